@@ -85,6 +85,7 @@ public class AIOInterface extends PlayerDevice {
                     padata.setVoltages (voltages);
 
                     readyPadata = true;
+                    publishData (padata);
                     break;
                 }
             }
@@ -109,7 +110,7 @@ public class AIOInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPadata) {
             readyPadata = false;
             return true;
@@ -126,15 +127,12 @@ public class AIOInterface extends PlayerDevice {
      */
     public void setState (int id, float voltage) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_AIO_CMD_STATE, 8);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_AIO_CMD_STATE, 8);
             xdr.xdrEncodeInt   (id);
             xdr.xdrEncodeFloat (voltage);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[AIO] : Couldn't send state command: " +
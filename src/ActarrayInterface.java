@@ -107,6 +107,7 @@ public class ActarrayInterface extends PlayerDevice {
                     padata.setActuators (paas);
 
                     readyPadata = true;
+                    publishData (padata);
                     break;
                 }
             }
@@ -130,15 +131,12 @@ public class ActarrayInterface extends PlayerDevice {
      */
     public void setPosition (int joint, float position) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_ACTARRAY_CMD_POS, 8);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_ACTARRAY_CMD_POS, 8);
             xdr.xdrEncodeByte  ((byte)joint);
             xdr.xdrEncodeFloat (position);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Actarray] : Couldn't send position command: " +
@@ -159,15 +157,12 @@ public class ActarrayInterface extends PlayerDevice {
      */
     public void setSpeed (int joint, float speed) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_ACTARRAY_CMD_SPEED, 8);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_ACTARRAY_CMD_SPEED, 8);
             xdr.xdrEncodeByte  ((byte)joint);
             xdr.xdrEncodeFloat (speed);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Actarray] : Couldn't send speed command: " +
@@ -187,14 +182,11 @@ public class ActarrayInterface extends PlayerDevice {
      */
     public void homeCmd (int joint) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_ACTARRAY_CMD_HOME, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_ACTARRAY_CMD_HOME, 4);
             xdr.xdrEncodeByte  ((byte)joint);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Actarray] : Couldn't send homing command: " +
@@ -213,14 +205,7 @@ public class ActarrayInterface extends PlayerDevice {
      * geometry in this form.
      */
     public void queryGeometry () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_ACTARRAY_REQ_GET_GEOM, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Actarray] : Couldn't request PLAYER_ACTARRAY_REQ_GET_GEOM: "
-                        + e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_ACTARRAY_REQ_GET_GEOM, 0);
     }
 
     /**
@@ -234,14 +219,11 @@ public class ActarrayInterface extends PlayerDevice {
      */
     public void setPower (int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_ACTARRAY_REQ_POWER, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_ACTARRAY_REQ_POWER, 4);
             xdr.xdrEncodeByte ((byte)state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Actarray] : Couldn't request PLAYER_ACTARRAY_REQ_POWER: " +
@@ -262,14 +244,11 @@ public class ActarrayInterface extends PlayerDevice {
      */
     public void setBrakes (int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_ACTARRAY_REQ_BRAKES, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_ACTARRAY_REQ_BRAKES, 4);
             xdr.xdrEncodeByte ((byte)state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Actarray] : Couldn't request PLAYER_ACTARRAY_REQ_BRAKES: " +
@@ -291,15 +270,12 @@ public class ActarrayInterface extends PlayerDevice {
      */
     public void setSpeedConfig (int joint, float speed) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_ACTARRAY_REQ_SPEED, 8);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_ACTARRAY_REQ_SPEED, 8);
             xdr.xdrEncodeByte  ((byte)joint);
             xdr.xdrEncodeFloat (speed);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Actarray] : Couldn't request PLAYER_ACTARRAY_REQ_SPEED: " +
@@ -316,7 +292,7 @@ public class ActarrayInterface extends PlayerDevice {
      * Handle acknowledgement response messages.
      * @param header Player header
      */
-    protected void handleResponse (PlayerMsgHdr header) {
+    protected synchronized void handleResponse (PlayerMsgHdr header) {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_ACTARRAY_REQ_POWER: {
@@ -391,6 +367,7 @@ public class ActarrayInterface extends PlayerDevice {
                     pageom.setActuators (paags);
 
                     readyPageom = true;
+                    publishData (pageom);
 
                     break;
                 }
@@ -433,7 +410,7 @@ public class ActarrayInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPadata) {
             readyPadata = false;
             return true;
@@ -445,7 +422,7 @@ public class ActarrayInterface extends PlayerDevice {
      * Check if geometry data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isGeomReady () {
+    public synchronized boolean isGeomReady () {
         if (readyPageom) {
             readyPageom = false;
             return true;
@@ -125,6 +125,7 @@ public class AudioDSPInterface extends PlayerDevice {
                     padata.setAmplitude       (amplitudes);            // [Db]
 
                     readyPadata = true;
+                    publishData (padata);
                     break;
                 }
             }
@@ -149,7 +150,7 @@ public class AudioDSPInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPadata) {
             readyPadata = false;
             return true;
@@ -167,7 +168,7 @@ public class AudioDSPInterface extends PlayerDevice {
      * Check if configuration data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isConfigReady () {
+    public synchronized boolean isConfigReady () {
         if (readyPaconfig) {
             readyPaconfig = false;
             return true;
@@ -197,22 +198,16 @@ public class AudioDSPInterface extends PlayerDevice {
                 leftOvers = 4 - (pacmd.getBit_string_count () % 4);
 
             int size = 16 + 4 + pacmd.getBit_string ().length + leftOvers;
-            sendHeader (PLAYER_MSGTYPE_CMD, subtype, size);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (size);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, subtype, size);
             xdr.xdrEncodeFloat (pacmd.getFrequency ());
             xdr.xdrEncodeFloat (pacmd.getAmplitude ());
             xdr.xdrEncodeFloat (pacmd.getDuration  ());
             xdr.xdrEncodeInt   (pacmd.getBit_string_count ());
             xdr.xdrEncodeByte  ((byte)pacmd.getBit_string_count ());
+            xdr.xdrEncodeOpaque (pacmd.getBit_string ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-
-            os.write (pacmd.getBit_string ());
-            byte[] buf = new byte[leftOvers];
-            os.write (buf, 0, leftOvers);
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[AudioDSP] : Couldn't send command: " +
@@ -240,14 +235,7 @@ public class AudioDSPInterface extends PlayerDevice {
      * See the player_audiodsp_config structure from player.h
      */
     public void getAudioProperties () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_AUDIODSP_GET_CONFIG, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[AudioDSP] : Couldn't send PLAYER_AUDIODSP_GET_CONFIG " +
-                        "command: " + e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_AUDIODSP_GET_CONFIG, 0);
     }
 
     /**
@@ -268,9 +256,8 @@ public class AudioDSPInterface extends PlayerDevice {
      */
     public void setAudioProperties (PlayerAudiodspConfig paconfig) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_AUDIODSP_SET_CONFIG, 12);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (12);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_AUDIODSP_SET_CONFIG, 12);
             // format with which to sample
             xdr.xdrEncodeInt   (paconfig.getFormat    ());
             // Sample rate in Hertz
@@ -278,9 +265,7 @@ public class AudioDSPInterface extends PlayerDevice {
             // nr of channels to use, 1=mono, 2=stereo
             xdr.xdrEncodeInt   (paconfig.getChannels  ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[AudioDSP] : Couldn't send PLAYER_AUDIODSP_SET_CONFIG " +
@@ -296,7 +281,7 @@ public class AudioDSPInterface extends PlayerDevice {
      * Handle acknowledgement response messages
      * @param header Player header
      */
-    public void handleResponse (PlayerMsgHdr header) {
+    public synchronized void handleResponse (PlayerMsgHdr header) {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_AUDIODSP_GET_CONFIG: {
@@ -317,6 +302,7 @@ public class AudioDSPInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPaconfig = true;
+                    publishData (paconfig);
                     break;
                 }
                 case PLAYER_AUDIODSP_SET_CONFIG: {
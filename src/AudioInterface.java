@@ -98,6 +98,7 @@ public class AudioInterface extends PlayerDevice {
                     this.timestamp = header.getTimestamp();
                     paWavData = readWaveform();
                     readyPaWavData = true;
+                    publishData (paWavData);
                     break;
                 }
                 case PLAYER_AUDIO_DATA_SEQ: {
@@ -141,6 +142,7 @@ public class AudioInterface extends PlayerDevice {
 
                     paSeqData.setTones (tones);
                     readyPaSeqData = true;
+                    publishData (paSeqData);
 
                     break;
                 }
@@ -167,6 +169,7 @@ public class AudioInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPaSttData = true;
+                    publishData (paSttData);
                     break;
                 }
             }
@@ -191,7 +194,7 @@ public class AudioInterface extends PlayerDevice {
      * Check if waveform data is available.
      * @return True if ready, false if not ready
      */
-    public boolean isWaveformDataReady () {
+    public synchronized boolean isWaveformDataReady () {
         if (readyPaWavData) {
             readyPaWavData = false;
             return true;
@@ -209,7 +212,7 @@ public class AudioInterface extends PlayerDevice {
      * Check if audio sample data is available.
      * @return True if ready, false if not ready
      */
-    public boolean isSampleDataReady () {
+    public synchronized boolean isSampleDataReady () {
         if (readyPaSmpData) {
             readyPaSmpData = false;
             return true;
@@ -227,7 +230,7 @@ public class AudioInterface extends PlayerDevice {
      * Check if sequence data is available.
      * @return True if ready, false if not ready.
      */
-    public boolean isSequenceDataReady () {
+    public synchronized boolean isSequenceDataReady () {
         if (readyPaSeqData) {
             readyPaSeqData = false;
             return true;
@@ -246,7 +249,7 @@ public class AudioInterface extends PlayerDevice {
      * Check if channel levels data is available.
      * @return True if ready, false if not ready.
      */
-    public boolean isChannelsDataReady () {
+    public synchronized boolean isChannelsDataReady () {
         if (readyPaMclData) {
             readyPaMclData = false;
             return true;
@@ -265,7 +268,7 @@ public class AudioInterface extends PlayerDevice {
      * Check if mixer channels details data is available.
      * @return True if ready, false if not ready
      */
-    public boolean isDetailsDataReady () {
+    public synchronized boolean isDetailsDataReady () {
         if (readyPaMcdData) {
             readyPaMcdData = false;
             return true;
@@ -283,7 +286,7 @@ public class AudioInterface extends PlayerDevice {
      * Check if device state data is available.
      * @return True if ready, false if not ready
      */
-    public boolean isStateDataReady () {
+    public synchronized boolean isStateDataReady () {
         if (readyPaSttData) {
             readyPaSttData = false;
             return true;
@@ -303,17 +306,14 @@ public class AudioInterface extends PlayerDevice {
                 leftOvers = 4 - (pacmd.getData_count () % 4);
 
             int size = 8 + pacmd.getData_count () + leftOvers + 4;
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_AUDIO_CMD_WAV_PLAY, size);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (size);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_AUDIO_CMD_WAV_PLAY, size);
             xdr.xdrEncodeInt    (pacmd.getData_count ());
             xdr.xdrEncodeInt    (pacmd.getData_count ());
             xdr.xdrEncodeOpaque (pacmd.getData ());
             xdr.xdrEncodeInt    (pacmd.getFormat ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Audio] : Couldn't send command: " +
@@ -332,14 +332,11 @@ public class AudioInterface extends PlayerDevice {
      */
     public void recordWavStream (int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_AUDIO_CMD_WAV_STREAM_REC, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_AUDIO_CMD_WAV_STREAM_REC, 4);
             xdr.xdrEncodeInt (state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Audio] : Couldn't send command: " +
@@ -357,14 +354,11 @@ public class AudioInterface extends PlayerDevice {
      */
     public void playSample (int index) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_AUDIO_CMD_SAMPLE_PLAY, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_AUDIO_CMD_SAMPLE_PLAY, 4);
             xdr.xdrEncodeInt (index);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Audio] : Couldn't send command: " +
@@ -384,9 +378,8 @@ public class AudioInterface extends PlayerDevice {
         try {
             // tones_count + array_count + tones_count*tone_size
             int size = 8 + (pacmd.getTones_count ()*16);
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_AUDIO_CMD_SEQ_PLAY, size);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (size);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_AUDIO_CMD_SEQ_PLAY, size);
             xdr.xdrEncodeInt (pacmd.getTones_count ());
             xdr.xdrEncodeInt (pacmd.getTones_count ());
             PlayerAudioSeqItem[] tones = pacmd.getTones ();
@@ -396,9 +389,7 @@ public class AudioInterface extends PlayerDevice {
                 xdr.xdrEncodeFloat (tones[i].getAmplitude ());
                 xdr.xdrEncodeBoolean (tones[i].getLink ());
             }
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Audio] : Couldn't send command: " +
@@ -416,18 +407,15 @@ public class AudioInterface extends PlayerDevice {
      */
     public void mixerChannel (PlayerAudioMixerChannel pacmd) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_AUDIO_CMD_MIXER_CHANNEL, 20);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (20);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_AUDIO_CMD_MIXER_CHANNEL, 20);
             xdr.xdrEncodeInt (1); // channels_count: just one channel
             xdr.xdrEncodeInt (1); // array_count: one-element array
             xdr.xdrEncodeFloat   (pacmd.getAmplitude ());
             xdr.xdrEncodeBoolean (pacmd.getActive ());
             xdr.xdrEncodeInt     (pacmd.getIndex ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Audio] : Couldn't send command: " +
@@ -446,9 +434,8 @@ public class AudioInterface extends PlayerDevice {
     public void mixerMultiChannels (PlayerAudioMixerChannelList pacmd) {
         try {
             int size = 8 + pacmd.getChannels_count ()*12;
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_AUDIO_CMD_MIXER_CHANNEL, size);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (size);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_AUDIO_CMD_MIXER_CHANNEL, size);
             xdr.xdrEncodeInt (pacmd.getChannels_count ()); // channels_count
             xdr.xdrEncodeInt (pacmd.getChannels_count ()); // array_count
             PlayerAudioMixerChannel[] channels = pacmd.getChannels ();
@@ -458,9 +445,7 @@ public class AudioInterface extends PlayerDevice {
                 xdr.xdrEncodeInt     (channels[i].getIndex ());
             }
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Audio] : Couldn't send command: " +
@@ -477,14 +462,7 @@ public class AudioInterface extends PlayerDevice {
      * player_audio_wav_t.
      */
     public void recordWaveform () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_AUDIO_REQ_WAV_REC, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Audio] : Couldn't send request: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_AUDIO_REQ_WAV_REC, 0);
     }
 
     /**
@@ -495,17 +473,14 @@ public class AudioInterface extends PlayerDevice {
         try {
             PlayerAudioWav sample = pareq.getSample ();
             int size = sample.getData_count() + 12 + 4;
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_AUDIO_REQ_SAMPLE_LOAD, size);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (size);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_AUDIO_REQ_SAMPLE_LOAD, size);
             xdr.xdrEncodeInt (sample.getData_count ());     // data_count
             xdr.xdrEncodeDynamicOpaque (sample.getData ()); // array_count + data
             xdr.xdrEncodeInt (sample.getFormat ());         // sample format
             xdr.xdrEncodeInt (pareq.getIndex ());           // sample index
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Audio] : Couldn't send request: " +
@@ -523,14 +498,11 @@ public class AudioInterface extends PlayerDevice {
      */
     public void retrieveSample (int index) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_AUDIO_REQ_SAMPLE_RETRIEVE, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_AUDIO_REQ_SAMPLE_RETRIEVE, 4);
             xdr.xdrEncodeInt (index);  // sample index
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Audio] : Couldn't send request: " +
@@ -549,15 +521,12 @@ public class AudioInterface extends PlayerDevice {
      */
     public void recordSample (int index, int length) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_AUDIO_REQ_SAMPLE_REC, 8);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_AUDIO_REQ_SAMPLE_REC, 8);
             xdr.xdrEncodeInt (index);  // sample index
             xdr.xdrEncodeInt (length); // sample length
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Audio] : Couldn't send request: " +
@@ -573,41 +542,29 @@ public class AudioInterface extends PlayerDevice {
      * Request subtype: mixer_channel_list_req, request the list of channels.
      */
     public void getMixerDetails () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_AUDIO_REQ_MIXER_CHANNEL_LIST, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Audio] : Couldn't send request: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_AUDIO_REQ_MIXER_CHANNEL_LIST, 0);
     }
 
     /**
      * Request subtype: mixer_channel_level_req, request the channel levels.
      */
     public void getMixerLevels () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_AUDIO_REQ_MIXER_CHANNEL_LEVEL, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Audio] : Couldn't send request: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ,
+                    PLAYER_AUDIO_REQ_MIXER_CHANNEL_LEVEL, 0);
     }
 
     /**
      * Handle acknowledgement response messages.
      * @param header Player message header.
      */
-    public void handleResponse (PlayerMsgHdr header) {
+    public synchronized void handleResponse (PlayerMsgHdr header) {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_AUDIO_REQ_WAV_REC: {
                     this.timestamp = header.getTimestamp();
                     paWavData = readWaveform();
                     readyPaWavData = true;
+                    publishData (paWavData);
                     break;
                 }
                 case PLAYER_AUDIO_REQ_SAMPLE_LOAD: {
@@ -632,6 +589,7 @@ public class AudioInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPaSmpData = true;
+                    publishData (paSmpData);
                     break;
                 }
                 case PLAYER_AUDIO_REQ_SAMPLE_REC: {
@@ -705,6 +663,7 @@ public class AudioInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPaMcdData = true;
+                    publishData (paMcdData);
                     break;
                 }
                 default:{
@@ -806,5 +765,6 @@ public class AudioInterface extends PlayerDevice {
 
         paMclData.setChannels (channels);
         readyPaMclData = true;
+        publishData (paMclData);
     }
 }
@@ -72,15 +72,12 @@ public class AudioMixerInterface extends PlayerDevice {
      */
     public void setVolume (int subtype, PlayerAudiomixerCmd pacmd) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, subtype, 8);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, subtype, 8);
             xdr.xdrEncodeInt (pacmd.getLeft  ());     // left level
             xdr.xdrEncodeInt (pacmd.getRight ());     // right level
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[AudioMixer] : Couldn't send command: " +
@@ -101,21 +98,14 @@ public class AudioMixerInterface extends PlayerDevice {
      * See the player_audiomixer_config structure from player.h
      */
     public void getLevels (byte subtype) {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_AUDIOMIXER_GET_LEVELS, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[AudioMixer] : Couldn't request PLAYER_AUDIOMIXER_GET_LEVELS: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_AUDIOMIXER_GET_LEVELS, 0);
     }
 
     /**
      * Handle acknowledgement response messages
      * @param header Player header
      */
-    public void handleResponse (PlayerMsgHdr header) {
+    public synchronized void handleResponse (PlayerMsgHdr header) {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_AUDIOMIXER_GET_LEVELS: {
@@ -143,6 +133,7 @@ public class AudioMixerInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPaconfig = true;
+                    publishData (paconfig);
                     break;
                 }
                 default:{
@@ -174,7 +165,7 @@ public class AudioMixerInterface extends PlayerDevice {
      * Check if configuration data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isConfigReady () {
+    public synchronized boolean isConfigReady () {
         if (readyPaconfig) {
             readyPaconfig = false;
             return true;
@@ -86,6 +86,7 @@ public class BlinkenlightInterface extends PlayerDevice {
                     xdr.endDecoding   ();
                     xdr.close ();
                     readyPbdata = true;
+                    publishData (pbdata);
 
                     break;
                 }
@@ -111,7 +112,7 @@ public class BlinkenlightInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPbdata) {
             readyPbdata = false;
             return true;
@@ -127,9 +128,8 @@ public class BlinkenlightInterface extends PlayerDevice {
      */
     public void setState (PlayerBlinkenlightData pbdata) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_BLINKENLIGHT_CMD_STATE, 12+16);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (12+16);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_BLINKENLIGHT_CMD_STATE, 12+16);
             xdr.xdrEncodeByte  ((byte)pbdata.getEnable ());
             xdr.xdrEncodeFloat (pbdata.getPeriod    ());
             xdr.xdrEncodeFloat (pbdata.getDutycycle ());
@@ -138,9 +138,7 @@ public class BlinkenlightInterface extends PlayerDevice {
             xdr.xdrEncodeByte  ((byte)pbdata.getColor ().getGreen ());
             xdr.xdrEncodeByte  ((byte)pbdata.getColor ().getBlue  ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Blinkenlight] : Couldn't send state command: " +
@@ -159,14 +157,11 @@ public class BlinkenlightInterface extends PlayerDevice {
      */
     public void setPower (int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_BLINKENLIGHT_CMD_POWER, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_BLINKENLIGHT_CMD_POWER, 4);
             xdr.xdrEncodeByte  ((byte)state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Blinkenlight] : Couldn't send power command: " +
@@ -185,17 +180,14 @@ public class BlinkenlightInterface extends PlayerDevice {
      */
     public void setColor (PlayerColor color) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_BLINKENLIGHT_CMD_COLOR, 16);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (16);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_BLINKENLIGHT_CMD_COLOR, 16);
             xdr.xdrEncodeByte  ((byte)color.getAlpha ());
             xdr.xdrEncodeByte  ((byte)color.getRed   ());
             xdr.xdrEncodeByte  ((byte)color.getGreen ());
             xdr.xdrEncodeByte  ((byte)color.getBlue  ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Blinkenlight] : Couldn't send color command: " +
@@ -214,14 +206,11 @@ public class BlinkenlightInterface extends PlayerDevice {
      */
     public void setPeriod (int period) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_BLINKENLIGHT_CMD_PERIOD, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_BLINKENLIGHT_CMD_PERIOD, 4);
             xdr.xdrEncodeByte  ((byte)period);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Blinkenlight] : Couldn't send period command: " +
@@ -242,14 +231,11 @@ public class BlinkenlightInterface extends PlayerDevice {
      */
     public void setDutycycle (int dutycycle) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_BLINKENLIGHT_CMD_DUTYCYCLE, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_BLINKENLIGHT_CMD_DUTYCYCLE, 4);
             xdr.xdrEncodeByte  ((byte)dutycycle);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Blinkenlight] : Couldn't send dutycycle command: " +
@@ -111,6 +111,7 @@ public class BlobfinderInterface extends PlayerDevice {
                     pbdata.setBlobs (pbbs);
 
                     readyPbdata = true;
+                    publishData (pbdata);
                     break;
                 }
             }
@@ -139,9 +140,8 @@ public class BlobfinderInterface extends PlayerDevice {
      */
     public void setTrackingColor (PlayerBlobfinderColorConfig pbcc) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_BLOBFINDER_REQ_SET_COLOR, 28);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (28);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_BLOBFINDER_REQ_SET_COLOR, 28);
             xdr.xdrEncodeInt (pbcc.getChannel ());
             xdr.xdrEncodeInt (pbcc.getRmin    ());
             xdr.xdrEncodeInt (pbcc.getRmax    ());
@@ -150,9 +150,7 @@ public class BlobfinderInterface extends PlayerDevice {
             xdr.xdrEncodeInt (pbcc.getBmin    ());
             xdr.xdrEncodeInt (pbcc.getBmax    ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Blobfinder] : Couldn't request " +
@@ -186,17 +184,14 @@ public class BlobfinderInterface extends PlayerDevice {
      */
     public void setImagerParams (PlayerBlobfinderImagerConfig pbic) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_BLOBFINDER_REQ_SET_IMAGER_PARAMS, 24);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (24);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_BLOBFINDER_REQ_SET_IMAGER_PARAMS, 24);
             xdr.xdrEncodeInt (pbic.getBrightness ());
             xdr.xdrEncodeInt (pbic.getContrast   ());
             xdr.xdrEncodeInt (pbic.getColormode  ());
             xdr.xdrEncodeInt (pbic.getAutogain   ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Blobfinder] : Couldn't request " +
@@ -213,7 +208,7 @@ public class BlobfinderInterface extends PlayerDevice {
      * Handle acknowledgement response messages.
      * @param header Player header
      */
-    protected void handleResponse (PlayerMsgHdr header) {
+    protected synchronized void handleResponse (PlayerMsgHdr header) {
         switch (header.getSubtype ()) {
             case PLAYER_BLOBFINDER_REQ_SET_COLOR: {
                 // null response
@@ -243,7 +238,7 @@ public class BlobfinderInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPbdata) {
             readyPbdata = false;
             return true;
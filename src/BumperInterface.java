@@ -95,6 +95,7 @@ public class BumperInterface extends PlayerDevice {
                         is.readFully (buffer, 0, 4 - (bumpersCount % 4));
 
                     readyPbdata = true;
+                    publishData (pbdata);
                     break;
                 }
                 case PLAYER_BUMPER_DATA_GEOM: {
@@ -129,7 +130,7 @@ public class BumperInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPbdata) {
             readyPbdata = false;
             return true;
@@ -141,7 +142,7 @@ public class BumperInterface extends PlayerDevice {
      * Check if geometry data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isGeomReady () {
+    public synchronized boolean isGeomReady () {
         if (readyPbgeom) {
             readyPbgeom = false;
             return true;
@@ -195,6 +196,7 @@ public class BumperInterface extends PlayerDevice {
             pbgeom.setBumper_def (pbds);
 
             readyPbgeom = true;
+            publishData (pbgeom);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Bumper] : Error reading geometry data: " +
@@ -212,21 +214,14 @@ public class BumperInterface extends PlayerDevice {
      * See the player_bumper_geom structure from player.h
      */
     public void queryGeometry () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_BUMPER_REQ_GET_GEOM, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Bumper] : Couldn't request PLAYER_BUMPER_REQ_GET_GEOM: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_BUMPER_REQ_GET_GEOM, 0);
     }
 
     /**
      * Handle acknowledgement response messages
      * @param header Player header
      */
-    public void handleResponse (PlayerMsgHdr header) {
+    public synchronized void handleResponse (PlayerMsgHdr header) {
         switch (header.getSubtype ()) {
             case PLAYER_BUMPER_REQ_GET_GEOM: {
                 readGeom ();
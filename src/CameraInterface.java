@@ -22,13 +22,20 @@
 package javaclient3;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javaclient3.structures.PlayerMsgHdr;
 import javaclient3.structures.camera.PlayerCameraData;
+import javaclient3.structures.camera.PlayerCameraFrame;
 import javaclient3.xdr.OncRpcException;
 import javaclient3.xdr.XdrBufferDecodingStream;
+import javaclient3.xdr.XdrByteBufferDecodingStream;
 
 /**
  * The camera interface is used to see what the camera sees. It is intended
@@ -53,6 +60,19 @@ public class CameraInterface extends PlayerDevice {
     private PlayerCameraData pcdata;
     private boolean          readyPcdata = false;
 
+    // Frame pool mode (see enableFramePool)
+    private volatile ConcurrentLinkedQueue<PlayerCameraFrame> freeFrames;
+    private volatile LinkedBlockingDeque<PlayerCameraFrame>   readyFrames;
+    private int                                      framePoolSize;
+    private int                                      frameCount;
+    private boolean                                  frameDirect;
+    private final AtomicInteger droppedFrames = new AtomicInteger ();
+
+    // JPEG decoding stage (see enableJpegDecoding), and the sequence number
+    // of the last frame it delivered
+    private volatile CameraJpegDecoder decoder;
+    private long                       decodedSeq = -1;
+
 
     /**
      * Constructor for CameraInterface.
@@ -69,59 +89,7 @@ public class CameraInterface extends PlayerDevice {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_CAMERA_DATA_STATE: {
-                    this.timestamp = header.getTimestamp();
-
-                    // Buffer for reading width, height, bpp, format, fdiv, compression, image_count
-                    byte[] buffer = new byte[28];
-                    // Read width, height, bpp, format, fdiv, compression, image_count
-                    is.readFully (buffer, 0, 28);
-
-                    pcdata = new PlayerCameraData ();
-
-                    // Begin decoding the XDR buffer
-                    XdrBufferDecodingStream xdr = new XdrBufferDecodingStream (buffer);
-                    xdr.beginDecoding ();
-
-                    pcdata.setWidth       (xdr.xdrDecodeInt ());
-                    pcdata.setHeight      (xdr.xdrDecodeInt ());
-                    pcdata.setBpp         (xdr.xdrDecodeInt ());
-                    pcdata.setFormat      (xdr.xdrDecodeInt ());
-                    pcdata.setFdiv        (xdr.xdrDecodeInt ());
-                    pcdata.setCompression (xdr.xdrDecodeInt ());
-                    int imageCount = xdr.xdrDecodeInt ();
-                    xdr.endDecoding   ();
-                    xdr.close ();
-
-                    // Read the length of the image array as reported by
-                    // the XDR encoded byte stream (xdr_bytes) - note that
-                    // an XDR encoded byte stream is simply the byte stream
-                    // itself prepended with its length. Check that
-                    // this matches up with imageCount. We could also have
-                    // used xdrDecodeByteVector for this but if we did we
-                    // wouldn't be able to do this check (that plus we
-                    // would have needed to allocate a suitably sized
-                    // buffer to create the xdr object anyway).
-                    is.readFully(buffer, 0, 4);
-                    xdr = new XdrBufferDecodingStream(buffer);
-                    xdr.beginDecoding();
-                    int imageCountFromXDR = xdr.xdrDecodeInt();
-                    xdr.endDecoding();
-                    xdr.close();
-
-                    if (imageCountFromXDR != imageCount)
-                    {
-                        throw new PlayerException
-                            ("[Camera] : Error reading image bytestream, header reports a length of " +
-                             imageCount + " bytes, XDR reports a length of " + imageCountFromXDR + " bytes.");
-                    }
-
-                    // Buffer for reading image
-                    buffer = new byte[header.getSize () - 32];
-
-                    is.readFully (buffer, 0, header.getSize () - 32);
-                    pcdata.setImage (buffer);
-
-                    readyPcdata = true;
+                    readImage (header);
                     break;
                 }
             }
@@ -136,6 +104,290 @@ public class CameraInterface extends PlayerDevice {
         }
     }
 
+    /**
+     * Read an image, either into a new PlayerCameraData structure or, in
+     * frame pool mode, into a pooled frame.
+     * @param header Player header
+     */
+    private void readImage (PlayerMsgHdr header)
+            throws IOException, OncRpcException {
+        this.timestamp = header.getTimestamp();
+        if (freeFrames != null) {
+            readFrame (header);
+            return;
+        }
+
+        // Buffer for reading width, height, bpp, format, fdiv, compression, image_count
+        byte[] buffer = new byte[28];
+        // Read width, height, bpp, format, fdiv, compression, image_count
+        is.readFully (buffer, 0, 28);
+
+        PlayerCameraData data = new PlayerCameraData ();
+
+        // Begin decoding the XDR buffer
+        XdrBufferDecodingStream xdr = new XdrBufferDecodingStream (buffer);
+        xdr.beginDecoding ();
+
+        data.setWidth       (xdr.xdrDecodeInt ());
+        data.setHeight      (xdr.xdrDecodeInt ());
+        data.setBpp         (xdr.xdrDecodeInt ());
+        data.setFormat      (xdr.xdrDecodeInt ());
+        data.setFdiv        (xdr.xdrDecodeInt ());
+        data.setCompression (xdr.xdrDecodeInt ());
+        int imageCount = xdr.xdrDecodeInt ();
+        xdr.endDecoding   ();
+        xdr.close ();
+
+        // Read the length of the image array as reported by
+        // the XDR encoded byte stream (xdr_bytes) - note that
+        // an XDR encoded byte stream is simply the byte stream
+        // itself prepended with its length. Check that
+        // this matches up with imageCount. We could also have
+        // used xdrDecodeByteVector for this but if we did we
+        // wouldn't be able to do this check (that plus we
+        // would have needed to allocate a suitably sized
+        // buffer to create the xdr object anyway).
+        is.readFully(buffer, 0, 4);
+        xdr = new XdrBufferDecodingStream(buffer);
+        xdr.beginDecoding();
+        int imageCountFromXDR = xdr.xdrDecodeInt();
+        xdr.endDecoding();
+        xdr.close();
+
+        if (imageCountFromXDR != imageCount)
+        {
+            throw new PlayerException
+                ("[Camera] : Error reading image bytestream, header reports a length of " +
+                 imageCount + " bytes, XDR reports a length of " + imageCountFromXDR + " bytes.");
+        }
+
+        // Buffer for reading image
+        buffer = new byte[header.getSize () - 32];
+
+        is.readFully (buffer, 0, header.getSize () - 32);
+        data.setImage (buffer);
+
+        CameraJpegDecoder d = decoder;
+        if (d != null) {
+            // Decoded (and delivered) by the worker threads
+            d.submit (data);
+            return;
+        }
+        pcdata = data;
+        readyPcdata = true;
+        publishData (pcdata);
+    }
+
+    /**
+     * Read an image into a pooled frame and queue it for the consumer.
+     * @param header Player header
+     */
+    private void readFrame (PlayerMsgHdr header)
+            throws IOException, OncRpcException {
+        // width, height, bpp, format, fdiv, compression, image_count, and
+        // the length of the image array as encoded by xdr_bytes
+        XdrByteBufferDecodingStream xdr = readXdr (32);
+        int width       = xdr.xdrDecodeInt ();
+        int height      = xdr.xdrDecodeInt ();
+        int bpp         = xdr.xdrDecodeInt ();
+        int format      = xdr.xdrDecodeInt ();
+        int fdiv        = xdr.xdrDecodeInt ();
+        int compression = xdr.xdrDecodeInt ();
+        int imageCount  = xdr.xdrDecodeInt ();
+        int imageCountFromXDR = xdr.xdrDecodeInt ();
+
+        if (imageCountFromXDR != imageCount)
+        {
+            throw new PlayerException
+                ("[Camera] : Error reading image bytestream, header reports a length of " +
+                 imageCount + " bytes, XDR reports a length of " + imageCountFromXDR + " bytes.");
+        }
+
+        // The image bytes are padded to a multiple of four
+        xdr = readXdr (header.getSize () - 32);
+
+        // Take a free frame, allocate one if the pool is not full yet, or
+        // else recycle the oldest frame the consumer has not taken
+        PlayerCameraFrame frame = freeFrames.poll ();
+        if (frame == null && frameCount < framePoolSize) {
+            frame = new PlayerCameraFrame (imageCount, frameDirect, freeFrames);
+            frameCount++;
+        }
+        if (frame == null) {
+            frame = readyFrames.pollFirst ();
+            if (frame != null)
+                droppedFrames.incrementAndGet ();
+        }
+        if (frame == null) {
+            // All the frames are held by the consumer: drop this image
+            xdr.skip (header.getSize () - 32);
+            droppedFrames.incrementAndGet ();
+            return;
+        }
+
+        ByteBuffer image = frame.prepare (imageCount);
+        xdr.xdrDecodeOpaque (image, imageCount);
+        xdr.skip (header.getSize () - 32 - ((imageCount + 3) & ~3));
+        image.flip ();
+        frame.setProperties (width, height, bpp, format, fdiv, compression,
+                header.getTimestamp ());
+
+        // Drop-oldest when the consumer is too slow
+        while (!readyFrames.offerLast (frame)) {
+            PlayerCameraFrame oldest = readyFrames.pollFirst ();
+            if (oldest != null) {
+                oldest.release ();
+                droppedFrames.incrementAndGet ();
+            }
+        }
+        // getData () and isDataReady () are not updated in this mode
+        publishData (frame);
+    }
+
+    /**
+     * Switch to frame pool mode: instead of allocating a new
+     * PlayerCameraData structure and image array for every frame, images
+     * are read into at most <b>poolSize</b> recycled buffers and queued for
+     * the consumer, which takes them with {@link #pollFrame()} or
+     * {@link #takeFrame(long, TimeUnit)} and must give them back with
+     * PlayerCameraFrame.release () once done.
+     * <br><br>
+     * When the consumer is too slow, the oldest queued frames are dropped
+     * (see {@link #getDroppedFrames()}). getData () and isDataReady () are no
+     * longer updated in this mode; data listeners registered for
+     * PlayerCameraFrame are called with each new frame, but must not keep or
+     * release it.
+     * <br><br>
+     * The method may be called again to resize the pool: the frames held by
+     * the consumer still come back to the pool, queued frames are kept as
+     * far as the new size allows, and new frames are allocated according to
+     * the new <b>direct</b> setting.
+     * @param poolSize maximum number of frames (queued or held by the
+     * consumer) at any time, at least 2
+     * @param direct true to allocate the image buffers outside the Java heap
+     */
+    public synchronized void enableFramePool (int poolSize, boolean direct) {
+        if (poolSize < 2)
+            throw new IllegalArgumentException
+                ("[Camera] : Frame pool needs at least 2 frames");
+        framePoolSize = poolSize;
+        frameDirect   = direct;
+        // Frames held by the consumer are released into the existing pool
+        if (freeFrames == null)
+            freeFrames = new ConcurrentLinkedQueue<PlayerCameraFrame> ();
+        LinkedBlockingDeque<PlayerCameraFrame> ready =
+            new LinkedBlockingDeque<PlayerCameraFrame> (poolSize - 1);
+        if (readyFrames != null) {
+            PlayerCameraFrame frame;
+            while ((frame = readyFrames.pollFirst ()) != null)
+                if (!ready.offerLast (frame)) {
+                    frame.release ();
+                    droppedFrames.incrementAndGet ();
+                }
+        }
+        readyFrames = ready;
+    }
+
+    // Queue of the frames ready for the consumer (frame pool mode only)
+    private LinkedBlockingDeque<PlayerCameraFrame> readyFrames () {
+        LinkedBlockingDeque<PlayerCameraFrame> ready = readyFrames;
+        if (ready == null)
+            throw new IllegalStateException
+                ("[Camera] : Frame pool mode is not enabled");
+        return ready;
+    }
+
+    /**
+     * Take the oldest queued frame, if any (frame pool mode only).
+     * @return the frame, to be released by the caller, or null if none
+     * @throws IllegalStateException if frame pool mode is not enabled
+     */
+    public PlayerCameraFrame pollFrame () {
+        return readyFrames ().pollFirst ();
+    }
+
+    /**
+     * Take the oldest queued frame, waiting for one if needed (frame pool
+     * mode only).
+     * @param timeout maximum time to wait
+     * @param unit unit of the timeout
+     * @return the frame, to be released by the caller, or null if the
+     * timeout expired
+     * @throws InterruptedException if the calling thread is interrupted
+     * @throws IllegalStateException if frame pool mode is not enabled
+     */
+    public PlayerCameraFrame takeFrame (long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return readyFrames ().pollFirst (timeout, unit);
+    }
+
+    /**
+     * Return the number of frames dropped in frame pool mode or by the JPEG
+     * decoding stage because the consumer or the decoders did not keep up.
+     * @return the number of dropped frames
+     */
+    public int getDroppedFrames () {
+        return droppedFrames.get ();
+    }
+
+    /**
+     * Decode JPEG-compressed images off the reading thread. Compressed frames
+     * are handed to a pool of <b>threads</b> workers which decompress them
+     * to raw RGB888 images; getData (), isDataReady (), the data listeners
+     * and waitForData () then only see the decoded frames, delivered in the
+     * order they were received. When the workers fall behind, the oldest
+     * frames waiting to be decoded are dropped, and so is any frame which
+     * completes after a newer one has been delivered (see
+     * {@link #getDroppedFrames()}). Uncompressed frames are delivered as
+     * they are.
+     * <br><br>
+     * Only applies to the default mode, not to frame pool mode.
+     * @param threads number of decoding threads
+     * @param maxPending maximum number of frames waiting for a free worker
+     */
+    public synchronized void enableJpegDecoding (int threads, int maxPending) {
+        disableJpegDecoding ();
+        decodedSeq = -1;
+        decoder = new CameraJpegDecoder (this, threads, maxPending);
+    }
+
+    /**
+     * Stop decoding JPEG images (see enableJpegDecoding ()). Frames still
+     * being decoded may be delivered afterwards.
+     */
+    public synchronized void disableJpegDecoding () {
+        if (decoder != null) {
+            decoder.shutdown ();
+            decoder = null;
+        }
+    }
+
+    /**
+     * Publish a frame decoded by the JPEG decoding stage, unless a newer
+     * frame was published in the meantime by another worker.
+     * @param seq sequence number of the frame in the decoding stage
+     * @param data the decoded frame
+     */
+    void deliverDecoded (long seq, PlayerCameraData data) {
+        synchronized (this) {
+            if (seq <= decodedSeq) {
+                frameDropped ();
+                return;
+            }
+            decodedSeq  = seq;
+            pcdata      = data;
+            readyPcdata = true;
+        }
+        publishData (data);
+    }
+
+    /**
+     * Count a frame dropped by the JPEG decoding stage.
+     */
+    void frameDropped () {
+        droppedFrames.incrementAndGet ();
+    }
+
     /**
      * Request/reply: Get current image frame.
      * <br><br>
@@ -145,78 +397,19 @@ public class CameraInterface extends PlayerDevice {
      * See the player_camera_data structure from player.h
      */
     public void getImage () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_CAMERA_REQ_GET_IMAGE, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Camera] : Couldn't send PLAYER_CAMERA_REQ_GET_IMAGE " +
-                        "command: " + e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_CAMERA_REQ_GET_IMAGE, 0);
     }
 
     /**
      * Handle acknowledgement response messages
      * @param header Player header
      */
-    public void handleResponse (PlayerMsgHdr header) {
+    public synchronized void handleResponse (PlayerMsgHdr header) {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_CAMERA_REQ_GET_IMAGE: {
 
-                    this.timestamp = header.getTimestamp();
-
-                    // Buffer for reading width, height, bpp, format, fdiv, compression, image_count
-                    byte[] buffer = new byte[28];
-                    // Read width, height, bpp, format, fdiv, compression, image_count
-                    is.readFully (buffer, 0, 28);
-
-                    pcdata = new PlayerCameraData ();
-
-                    // Begin decoding the XDR buffer
-                    XdrBufferDecodingStream xdr = new XdrBufferDecodingStream (buffer);
-                    xdr.beginDecoding ();
-
-                    pcdata.setWidth       (xdr.xdrDecodeInt ());
-                    pcdata.setHeight      (xdr.xdrDecodeInt ());
-                    pcdata.setBpp         (xdr.xdrDecodeInt ());
-                    pcdata.setFormat      (xdr.xdrDecodeInt ());
-                    pcdata.setFdiv        (xdr.xdrDecodeInt ());
-                    pcdata.setCompression (xdr.xdrDecodeInt ());
-                    int imageCount = xdr.xdrDecodeInt ();
-                    xdr.endDecoding   ();
-                    xdr.close ();
-
-                    // Read the length of the image array as reported by
-                    // the XDR encoded byte stream (xdr_bytes) - note that
-                    // an XDR encoded byte stream is simply the byte stream
-                    // itself prepended with its length. Check that
-                    // this matches up with imageCount. We could also have
-                    // used xdrDecodeByteVector for this but if we did we
-                    // wouldn't be able to do this check (that plus we
-                    // would have needed to allocate a suitably sized
-                    // buffer to create the xdr object anyway).
-                    is.readFully(buffer, 0, 4);
-                    xdr = new XdrBufferDecodingStream(buffer);
-                    xdr.beginDecoding();
-                    int imageCountFromXDR = xdr.xdrDecodeInt();
-                    xdr.endDecoding();
-                    xdr.close();
-
-                    if (imageCountFromXDR != imageCount)
-                    {
-                        throw new PlayerException
-                            ("[Camera] : Error reading image bytestream, header reports a length of " +
-                             imageCount + " bytes, XDR reports a length of " + imageCountFromXDR + " bytes.");
-                    }
-
-                    // Buffer for reading image
-                    buffer = new byte[header.getSize () - 32];
-
-                    is.readFully (buffer, 0, header.getSize () - 32);
-                    pcdata.setImage (buffer);
-
-                    readyPcdata = true;
+                    readImage (header);
                     break;
                 }
                 default:{
@@ -248,7 +441,7 @@ public class CameraInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPcdata) {
             readyPcdata = false;
             return true;
@@ -0,0 +1,196 @@
+/*
+ *  Player Java Client 3 - CameraJpegDecoder.java
+ *  Copyright (C) 2002-2006 Radu Bogdan Rusu, Maxim Batalin
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * $Id$
+ *
+ */
+package javaclient3;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.imageio.ImageIO;
+
+import javaclient3.structures.PlayerConstants;
+import javaclient3.structures.camera.PlayerCameraData;
+
+/**
+ * JPEG decoding stage of a CameraInterface (see
+ * CameraInterface.enableJpegDecoding ()). Compressed frames are decoded by
+ * a bounded pool of worker threads into raw RGB888 images, which are handed
+ * back to the camera in the order the frames were received; stale frames
+ * are dropped.
+ * @version
+ * <ul>
+ *      <li>v3.0 - Player 3.0 supported
+ * </ul>
+ */
+class CameraJpegDecoder implements PlayerConstants {
+
+    // Logging support
+    private Logger logger = Logger.getLogger
+        (CameraJpegDecoder.class.getName ());
+
+    private final CameraInterface    camera;
+    private final ThreadPoolExecutor workers;
+
+    // Sequence number of the next frame, and of the last delivered one
+    private final AtomicLong submitted = new AtomicLong ();
+    private final AtomicLong delivered = new AtomicLong (-1);
+
+    /**
+     * Constructor for CameraJpegDecoder.
+     * @param camera the camera to deliver the decoded frames to
+     * @param threads number of decoding threads
+     * @param maxPending maximum number of frames waiting for a worker
+     */
+    CameraJpegDecoder (CameraInterface camera, int threads, int maxPending) {
+        this.camera  = camera;
+        this.workers = new ThreadPoolExecutor (threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable> (Math.max (1, maxPending)),
+                new ThreadFactory () {
+                    public Thread newThread (Runnable task) {
+                        Thread t = new Thread (task, "javaclient-jpeg");
+                        t.setDaemon (true);
+                        return t;
+                    }
+                },
+                new RejectedExecutionHandler () {
+                    // Drop the oldest pending frames to make room; all the
+                    // workers are running once the queue is full
+                    public void rejectedExecution (Runnable task,
+                                                   ThreadPoolExecutor e) {
+                        while (!e.isShutdown ()) {
+                            if (e.getQueue ().poll () != null)
+                                CameraJpegDecoder.this.camera.frameDropped ();
+                            if (e.getQueue ().offer (task))
+                                return;
+                        }
+                        // Decoding was disabled: the frame is not delivered
+                        CameraJpegDecoder.this.camera.frameDropped ();
+                    }
+                });
+    }
+
+    /**
+     * Queue a frame for decoding. Frames which are not JPEG-compressed are
+     * delivered right away.
+     * @param frame the frame, as read from the server
+     */
+    void submit (final PlayerCameraData frame) {
+        final long seq = submitted.getAndIncrement ();
+        if (frame.getCompression () != PLAYER_CAMERA_COMPRESS_JPEG) {
+            deliver (seq, frame);
+            return;
+        }
+        workers.execute (new Runnable () {
+            public void run () {
+                PlayerCameraData raw = decode (frame);
+                if (raw != null)
+                    deliver (seq, raw);
+                else
+                    camera.frameDropped ();
+            }
+        });
+    }
+
+    /**
+     * Stop the worker threads once the pending frames are decoded.
+     */
+    void shutdown () {
+        workers.shutdown ();
+    }
+
+    /**
+     * Deliver a frame unless a newer one has already been delivered. No lock
+     * is held while calling into the camera, whose monitor the reading
+     * thread may hold when submitting a frame.
+     */
+    private void deliver (long seq, PlayerCameraData frame) {
+        long last;
+        do {
+            last = delivered.get ();
+            if (seq <= last) {
+                camera.frameDropped ();
+                return;
+            }
+        } while (!delivered.compareAndSet (last, seq));
+        camera.deliverDecoded (seq, frame);
+    }
+
+    /**
+     * Decompress a JPEG frame into a raw RGB888 frame.
+     * @return the decoded frame, or null if it could not be decoded
+     */
+    private PlayerCameraData decode (PlayerCameraData frame) {
+        BufferedImage image;
+        try {
+            image = ImageIO.read (new ByteArrayInputStream (frame.getImage ()));
+        } catch (IOException e) {
+            image = null;
+        }
+        if (image == null) {
+            logger.log (Level.WARNING, "[Camera] : Couldn't decode JPEG image");
+            return null;
+        }
+
+        int width  = image.getWidth ();
+        int height = image.getHeight ();
+        byte[] rgb = new byte[width * height * 3];
+        if (image.getType () == BufferedImage.TYPE_3BYTE_BGR) {
+            byte[] bgr = ((DataBufferByte)image.getRaster ().getDataBuffer ())
+                .getData ();
+            for (int i = 0; i < rgb.length; i += 3) {
+                rgb[i]     = bgr[i + 2];
+                rgb[i + 1] = bgr[i + 1];
+                rgb[i + 2] = bgr[i];
+            }
+        } else {
+            int[] row = new int[width];
+            for (int y = 0, j = 0; y < height; y++) {
+                image.getRGB (0, y, width, 1, row, 0, width);
+                for (int x = 0; x < width; x++) {
+                    rgb[j++] = (byte)(row[x] >> 16);
+                    rgb[j++] = (byte)(row[x] >> 8);
+                    rgb[j++] = (byte)row[x];
+                }
+            }
+        }
+
+        PlayerCameraData raw = new PlayerCameraData ();
+        raw.setWidth       (width);
+        raw.setHeight      (height);
+        raw.setBpp         (24);
+        raw.setFormat      (PLAYER_CAMERA_FORMAT_RGB888);
+        raw.setFdiv        (frame.getFdiv ());
+        raw.setCompression (PLAYER_CAMERA_COMPRESS_RAW);
+        raw.setImage       (rgb);
+        return raw;
+    }
+}
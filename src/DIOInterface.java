@@ -73,6 +73,7 @@ public class DIOInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPddata = true;
+                    publishData (pddata);
                     break;
                 }
             }
@@ -97,7 +98,7 @@ public class DIOInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPddata) {
             readyPddata = false;
             return true;
@@ -112,15 +113,12 @@ public class DIOInterface extends PlayerDevice {
      */
     public void setOutputBitfield (int count, int digout) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_DIO_CMD_VALUES, 8);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_DIO_CMD_VALUES, 8);
             xdr.xdrEncodeInt (count);
             xdr.xdrEncodeInt (digout);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[DIO] : Couldn't send output bitfield command request: " +
@@ -24,6 +24,8 @@ package javaclient3;
 import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import javaclient3.structures.*;
 import javaclient3.structures.fiducial.PlayerFiducialData;
@@ -132,6 +134,7 @@ public class FiducialInterface extends PlayerDevice {
                     pfdata.setFiducials       (pfis);
 
                     readyPfdata = true;
+                    publishData (pfdata);
                     break;
                 }
             }
@@ -155,14 +158,23 @@ public class FiducialInterface extends PlayerDevice {
      * See the player_fiducial_geom structure from player.h
      */
     public void queryGeometry () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_FIDUCIAL_REQ_GET_GEOM, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Fiducial] : Couldn't request PLAYER_FIDUCIAL_REQ_GET_GEOM: "
-                        + e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_FIDUCIAL_REQ_GET_GEOM, 0);
+    }
+
+    /**
+     * Asynchronous variant of queryGeometry (): the fiducial geometry is
+     * delivered through the returned future.
+     * @param timeout maximum time to wait for the reply
+     * @param unit unit of the timeout
+     * @return a future completed with the fiducial geometry
+     * @see PlayerDevice#sendRequestAsync(int, long, TimeUnit, Runnable)
+     */
+    public CompletableFuture<PlayerFiducialGeom> queryGeometryAsync
+            (long timeout, TimeUnit unit) {
+        return sendRequestAsync (PLAYER_FIDUCIAL_REQ_GET_GEOM, timeout, unit,
+            new Runnable () {
+                public void run () { queryGeometry (); }
+            });
     }
 
     /**
@@ -175,14 +187,23 @@ public class FiducialInterface extends PlayerDevice {
      * See the player_fiducial_fov structure from player.h
      */
     public void queryFOV () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_FIDUCIAL_REQ_GET_FOV, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Fiducial] : Couldn't request PLAYER_FIDUCIAL_REQ_GET_FOV: "
-                        + e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_FIDUCIAL_REQ_GET_FOV, 0);
+    }
+
+    /**
+     * Asynchronous variant of queryFOV (): the field of view is delivered
+     * through the returned future.
+     * @param timeout maximum time to wait for the reply
+     * @param unit unit of the timeout
+     * @return a future completed with the field of view
+     * @see PlayerDevice#sendRequestAsync(int, long, TimeUnit, Runnable)
+     */
+    public CompletableFuture<PlayerFiducialFov> queryFOVAsync
+            (long timeout, TimeUnit unit) {
+        return sendRequestAsync (PLAYER_FIDUCIAL_REQ_GET_FOV, timeout, unit,
+            new Runnable () {
+                public void run () { queryFOV (); }
+            });
     }
 
     /**
@@ -197,16 +218,13 @@ public class FiducialInterface extends PlayerDevice {
      */
     public void setFov (PlayerFiducialFov pff) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_FIDUCIAL_REQ_SET_FOV, 12);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (12);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_FIDUCIAL_REQ_SET_FOV, 12);
             xdr.xdrEncodeFloat (pff.getMin_range  ());
             xdr.xdrEncodeFloat (pff.getMax_range  ());
             xdr.xdrEncodeFloat (pff.getView_angle ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Fiducial] : Couldn't request PLAYER_FIDUCIAL_REQ_SET_FOV: "
@@ -238,14 +256,7 @@ public class FiducialInterface extends PlayerDevice {
      * See the player_fiducial_id structure from player.h
      */
     public void queryFiducialVal () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_FIDUCIAL_REQ_GET_ID, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Fiducial] : Couldn't request PLAYER_FIDUCIAL_REQ_GET_ID: "
-                        + e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_FIDUCIAL_REQ_GET_ID, 0);
     }
 
     /**
@@ -270,14 +281,11 @@ public class FiducialInterface extends PlayerDevice {
      */
     public void setFiducialVal (int id) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_FIDUCIAL_REQ_SET_ID, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_FIDUCIAL_REQ_SET_ID, 4);
             xdr.xdrEncodeInt (id);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Fiducial] : Couldn't request PLAYER_FIDUCIAL_REQ_SET_ID: "
@@ -293,7 +301,7 @@ public class FiducialInterface extends PlayerDevice {
      * Handle acknowledgement response messages.
      * @param header Player header
      */
-    protected void handleResponse (PlayerMsgHdr header) {
+    protected synchronized void handleResponse (PlayerMsgHdr header) {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_FIDUCIAL_REQ_GET_GEOM: {
@@ -336,6 +344,8 @@ public class FiducialInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPfgeom = true;
+                    publishData (pfgeom);
+                    completeReply (PLAYER_FIDUCIAL_REQ_GET_GEOM, pfgeom);
                     break;
                 }
                 case PLAYER_FIDUCIAL_REQ_GET_FOV: {
@@ -356,6 +366,8 @@ public class FiducialInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPffov = true;
+                    publishData (pffov);
+                    completeReply (PLAYER_FIDUCIAL_REQ_GET_FOV, pffov);
                     break;
                 }
                 case PLAYER_FIDUCIAL_REQ_SET_FOV: {
@@ -375,6 +387,7 @@ public class FiducialInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPfid = true;
+                    publishData (pfid);
                     break;
                 }
                 case PLAYER_FIDUCIAL_REQ_SET_ID: {
@@ -427,7 +440,7 @@ public class FiducialInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPfdata) {
             readyPfdata = false;
             return true;
@@ -439,7 +452,7 @@ public class FiducialInterface extends PlayerDevice {
      * Check if geometry data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isGeomReady () {
+    public synchronized boolean isGeomReady () {
         if (readyPfgeom) {
             readyPfgeom = false;
             return true;
@@ -451,7 +464,7 @@ public class FiducialInterface extends PlayerDevice {
      * Check if FOV data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isFOVReady () {
+    public synchronized boolean isFOVReady () {
         if (readyPffov) {
             readyPffov = false;
             return true;
@@ -463,7 +476,7 @@ public class FiducialInterface extends PlayerDevice {
      * Check if ID data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isIDReady () {
+    public synchronized boolean isIDReady () {
         if (readyPfid) {
             readyPfid = false;
             return true;
@@ -85,6 +85,7 @@ public class GPSInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPgdata = true;
+                    publishData (pgdata);
                     break;
                 }
             }
@@ -109,7 +110,7 @@ public class GPSInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPgdata) {
             readyPgdata = false;
             return true;
@@ -58,7 +58,7 @@ public class Graphics2DInterface extends PlayerDevice {
      * Requests: This interface accepts no requests.
      * @param header Player header
      */
-    public void handleResponse (PlayerMsgHdr header) { }
+    public synchronized void handleResponse (PlayerMsgHdr header) { }
 
 
     /**
@@ -66,14 +66,7 @@ public class Graphics2DInterface extends PlayerDevice {
      * <br><br>
      */
     public void clearScreen () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_GRAPHICS2D_CMD_CLEAR, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Graphics2D] : Couldn't send clear screen command: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_GRAPHICS2D_CMD_CLEAR, 0);
     }
 
     /**
@@ -89,10 +82,8 @@ public class Graphics2DInterface extends PlayerDevice {
             if (points > PLAYER_GRAPHICS2D_MAX_POINTS)
                 points = PLAYER_GRAPHICS2D_MAX_POINTS;
             int size = 8 + (points * 16) + 16;
-            sendHeader
+            XdrBufferEncodingStream xdr = beginMessage
                 (PLAYER_MSGTYPE_CMD, PLAYER_GRAPHICS2D_CMD_POINTS, size);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (size);
-            xdr.beginEncoding (null, 0);
             xdr.xdrEncodeInt   (points);
             xdr.xdrEncodeInt   (points);
             for (int i = 0; i < points; i++) {
@@ -109,9 +100,7 @@ public class Graphics2DInterface extends PlayerDevice {
                 ((byte)(pgcp.getColor ().getBlue  () & 0x000000FF));
             xdr.endEncoding ();
 
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Graphics2D] : Couldn't send draw command: " +
@@ -136,10 +125,8 @@ public class Graphics2DInterface extends PlayerDevice {
             if (points > PLAYER_GRAPHICS2D_MAX_POINTS)
                 points = PLAYER_GRAPHICS2D_MAX_POINTS;
             int size = 8 + (points * 16) + 16;
-            sendHeader
+            XdrBufferEncodingStream xdr = beginMessage
                 (PLAYER_MSGTYPE_CMD, PLAYER_GRAPHICS2D_CMD_POLYLINE, size);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (size);
-            xdr.beginEncoding (null, 0);
             xdr.xdrEncodeInt   (points);
             xdr.xdrEncodeInt   (points);
             for (int i = 0; i < points; i++) {
@@ -156,9 +143,7 @@ public class Graphics2DInterface extends PlayerDevice {
                 ((byte)(pgcp.getColor ().getBlue  () & 0x000000FF));
             xdr.endEncoding ();
 
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Graphics2D] : Couldn't send draw command: " +
@@ -183,10 +168,8 @@ public class Graphics2DInterface extends PlayerDevice {
             if (points > PLAYER_GRAPHICS2D_MAX_POINTS)
                 points = PLAYER_GRAPHICS2D_MAX_POINTS;
             int size = 8 + (points * 16) + 16 + 16 + 4;
-            sendHeader
+            XdrBufferEncodingStream xdr = beginMessage
                 (PLAYER_MSGTYPE_CMD, PLAYER_GRAPHICS2D_CMD_POLYGON, size);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (size);
-            xdr.beginEncoding (null, 0);
             xdr.xdrEncodeInt   (points);
             xdr.xdrEncodeInt   (points);
             for (int i = 0; i < points; i++) {
@@ -214,9 +197,7 @@ public class Graphics2DInterface extends PlayerDevice {
             xdr.xdrEncodeByte (pgcp.getFilled ());
             xdr.endEncoding ();
 
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Graphics2D] : Couldn't send draw command: " +
@@ -62,7 +62,7 @@ public class Graphics3DInterface extends PlayerDevice {
      * Requests: This interface accepts no requests.
      * @param header Player header
      */
-    public void handleResponse (PlayerMsgHdr header) { }
+    public synchronized void handleResponse (PlayerMsgHdr header) { }
 
 
     /**
@@ -70,14 +70,7 @@ public class Graphics3DInterface extends PlayerDevice {
      * <br><br>
      */
     public void clearScreen () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_GRAPHICS3D_CMD_CLEAR, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Graphics3D] : Couldn't send clear screen command: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_GRAPHICS3D_CMD_CLEAR, 0);
     }
 
     /**
@@ -91,10 +84,8 @@ public class Graphics3DInterface extends PlayerDevice {
             int points = pgcp.getCount ();
             if (points > 64) points = 64;
             int size = 4 + 4 + 4 + (points * 24) + 16;
-            sendHeader
+            XdrBufferEncodingStream xdr = beginMessage
                 (PLAYER_MSGTYPE_CMD, PLAYER_GRAPHICS2D_CMD_POINTS, size);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (size);
-            xdr.beginEncoding (null, 0);
             xdr.xdrEncodeInt   (pgcp.getDraw_mode ());
             xdr.xdrEncodeInt   (points);
             for (int i = 0; i < points; i++) {
@@ -112,9 +103,7 @@ public class Graphics3DInterface extends PlayerDevice {
                 ((byte)(pgcp.getColor ().getBlue  () & 0x000000FF));
             xdr.endEncoding ();
 
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Graphics3D] : Couldn't send draw command: " +
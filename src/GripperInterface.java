@@ -100,6 +100,7 @@ public class GripperInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPgdata = true;
+                    publishData (pgdata);
                     break;
                 }
             }
@@ -173,14 +174,7 @@ public class GripperInterface extends PlayerDevice {
      * @param cmd the command
      */
     public void setGripper (int cmd) {
-        try {
-            sendHeader (PLAYER_MSGTYPE_CMD, cmd, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Gripper] : Couldn't send state command request: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_CMD, cmd, 0);
     }
 
     /**
@@ -192,21 +186,14 @@ public class GripperInterface extends PlayerDevice {
      * See the player_gripper_geom structure from player.h
      */
     public void queryGeometry () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_GRIPPER_REQ_GET_GEOM, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Gripper] : Couldn't send PLAYER_GRIPPER_REQ_GET_GEOM " +
-                        "command: " + e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_GRIPPER_REQ_GET_GEOM, 0);
     }
 
     /**
      * Handle acknowledgement response messages
      * @param header Player header
      */
-    public void handleResponse (PlayerMsgHdr header) {
+    public synchronized void handleResponse (PlayerMsgHdr header) {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_GRIPPER_REQ_GET_GEOM: {
@@ -245,6 +232,7 @@ public class GripperInterface extends PlayerDevice {
                     pggeom.setOuterSize (outb);
 
                     readyPggeom = true;
+                    publishData (pggeom);
                     break;
                 }
                 default:{
@@ -282,7 +270,7 @@ public class GripperInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPgdata) {
             readyPgdata = false;
             return true;
@@ -294,7 +282,7 @@ public class GripperInterface extends PlayerDevice {
      * Check if geometry data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isGeomReady () {
+    public synchronized boolean isGeomReady () {
         if (readyPggeom) {
             readyPggeom = false;
             return true;
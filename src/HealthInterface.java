@@ -98,6 +98,7 @@ public class HealthInterface extends PlayerDevice {
                     phdata.setSwap (swap);
 
                     readyPhdata = true;
+                    publishData (phdata);
                     break;
                 }
             }
@@ -122,7 +123,7 @@ public class HealthInterface extends PlayerDevice {
      * Check if health data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPhdata) {
             readyPhdata = false;
             return true;
@@ -109,6 +109,7 @@ public class IMUInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPIMUState = true;
+                    publishData (pIMUState);
                     break;
                 }
                 case PLAYER_IMU_DATA_CALIB: {
@@ -141,6 +142,7 @@ public class IMUInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPIMUCalib = true;
+                    publishData (pIMUCalib);
                     break;
                 }
                 case PLAYER_IMU_DATA_QUAT: {
@@ -188,6 +190,7 @@ public class IMUInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPIMUQuat = true;
+                    publishData (pIMUQuat);
                     break;
                 }
                 case PLAYER_IMU_DATA_EULER: {
@@ -233,6 +236,7 @@ public class IMUInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPIMUEuler = true;
+                    publishData (pIMUEuler);
                     break;
                 }
                 case PLAYER_IMU_DATA_FULLSTATE: {
@@ -288,6 +292,7 @@ public class IMUInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPIMUFull = true;
+                    publishData (pIMUFull);
                     break;
                 }
             }
@@ -312,14 +317,11 @@ public class IMUInterface extends PlayerDevice {
      */
     public void setControlMode (byte type) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_IMU_REQ_SET_DATATYPE, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_IMU_REQ_SET_DATATYPE, 4);
             xdr.xdrEncodeByte (type);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[IMU] : Couldn't request PLAYER_IMU_REQ_SET_DATATYPE: " +
@@ -339,14 +341,11 @@ public class IMUInterface extends PlayerDevice {
      */
     public void resetOrientation (int value) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_IMU_REQ_RESET_ORIENTATION, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_IMU_REQ_RESET_ORIENTATION, 4);
             xdr.xdrEncodeInt (value);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[IMU] : Couldn't request PLAYER_IMU_REQ_RESET_ORIENTATION: " +
@@ -362,7 +361,7 @@ public class IMUInterface extends PlayerDevice {
      * Handle acknowledgement response messages.
      * @param header Player header.
      */
-    protected void handleResponse (PlayerMsgHdr header) {
+    protected synchronized void handleResponse (PlayerMsgHdr header) {
         switch (header.getSubtype ()) {
             case PLAYER_IMU_REQ_SET_DATATYPE: {
                 // null response
@@ -392,7 +391,7 @@ public class IMUInterface extends PlayerDevice {
      * Check if state data is available.
      * @return True if ready, false if not ready
      */
-    public boolean isStateReady () {
+    public synchronized boolean isStateReady () {
         if (readyPIMUState) {
             readyPIMUState = false;
             return true;
@@ -411,7 +410,7 @@ public class IMUInterface extends PlayerDevice {
      * Check if calibration data is available.
      * @return True if ready, false if not ready
      */
-    public boolean isCalibReady () {
+    public synchronized boolean isCalibReady () {
         if (readyPIMUCalib) {
             readyPIMUCalib = false;
             return true;
@@ -430,7 +429,7 @@ public class IMUInterface extends PlayerDevice {
      * Check if quaternions orientation data is available.
      * @return True if ready, false if not ready
      */
-    public boolean isQuatReady () {
+    public synchronized boolean isQuatReady () {
         if (readyPIMUQuat) {
             readyPIMUQuat = false;
             return true;
@@ -449,7 +448,7 @@ public class IMUInterface extends PlayerDevice {
      * Check if Euler orientation data is available.
      * @return True if ready, false if not ready
      */
-    public boolean isEulerReady () {
+    public synchronized boolean isEulerReady () {
         if (readyPIMUEuler) {
             readyPIMUEuler = false;
             return true;
@@ -467,7 +466,7 @@ public class IMUInterface extends PlayerDevice {
      * Check if full state data is available.
      * @return True if ready, false if not ready
      */
-    public boolean isFullStateReady () {
+    public synchronized boolean isFullStateReady () {
         if (readyPIMUFull) {
             readyPIMUFull = false;
             return true;
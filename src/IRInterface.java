@@ -124,6 +124,7 @@ public class IRInterface extends PlayerDevice {
                     pidata.setRanges   (ranges);
 
                     readyPidata = true;
+                    publishData (pidata);
                     break;
                 }
             }
@@ -154,7 +155,7 @@ public class IRInterface extends PlayerDevice {
      * Check if data is available.
      * @return True if ready, false if not ready.
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPidata) {
             readyPidata = false;
             return true;
@@ -166,7 +167,7 @@ public class IRInterface extends PlayerDevice {
      * Check if pose data is available.
      * @return True if ready, false if not ready.
      */
-    public boolean isPoseReady () {
+    public synchronized boolean isPoseReady () {
         if (readyPipose) {
             readyPipose = false;
             return true;
@@ -180,14 +181,7 @@ public class IRInterface extends PlayerDevice {
      * See the player_ir_pose structure from player.h.
      */
     public void queryPose () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_IR_REQ_POSE, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[IR] : Couldn't send PLAYER_IR_POSE command: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_IR_REQ_POSE, 0);
     }
 
     /**
@@ -196,14 +190,11 @@ public class IRInterface extends PlayerDevice {
      */
     public void setIRPower (int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_IR_REQ_POWER, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_IR_REQ_POWER, 4);
             xdr.xdrEncodeByte ((byte)state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[IR] : Couldn't send PLAYER_IR_POWER_REQ request: " +
@@ -219,7 +210,7 @@ public class IRInterface extends PlayerDevice {
      * Handle acknowledgement response messages.
      * @param header Player message header.
      */
-    public void handleResponse (PlayerMsgHdr header) {
+    public synchronized void handleResponse (PlayerMsgHdr header) {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_IR_REQ_POSE: {
@@ -261,6 +252,7 @@ public class IRInterface extends PlayerDevice {
                     pipose.setPoses (pps);
 
                     readyPipose = true;
+                    publishData (pipose);
                     break;
                 }
                 case PLAYER_IR_REQ_POWER: {
@@ -82,6 +82,7 @@ public class JoystickInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPjdata = true;
+                    publishData (pjdata);
                     break;
                 }
             }
@@ -106,7 +107,7 @@ public class JoystickInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPjdata) {
             readyPjdata = false;
             return true;
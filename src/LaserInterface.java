@@ -24,6 +24,8 @@ package javaclient3;
 import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import javaclient3.structures.*;
 import javaclient3.structures.laser.PlayerLaserConfig;
@@ -32,6 +34,7 @@ import javaclient3.structures.laser.PlayerLaserDataScanpose;
 import javaclient3.structures.laser.PlayerLaserGeom;
 import javaclient3.xdr.OncRpcException;
 import javaclient3.xdr.XdrBufferDecodingStream;
+import javaclient3.xdr.XdrByteBufferDecodingStream;
 import javaclient3.xdr.XdrBufferEncodingStream;
 
 /**
@@ -45,9 +48,12 @@ import javaclient3.xdr.XdrBufferEncodingStream;
  * before the actual range data. These fields tell the client the starting
  * and ending angles of the scan, the angular resolution of the scan, and
  * the number of range readings included. Scans proceed counterclockwise
- * about the laser (0 degrees is forward). The laser can return a maximum of
- * PLAYER_LASER_MAX_SAMPLES readings; this limits the valid combinations of
- * scan width and angular resolution.
+ * about the laser (0 degrees is forward). Scans of any number of readings
+ * are accepted, including scans longer than PLAYER_LASER_MAX_SAMPLES.
+ * <br><br>
+ * The data objects are reused: the interface alternates between two of
+ * them, so a scan returned by getData () stays valid until the next scan
+ * but one has been read.
  * @deprecated Use {@link RangerInterface ranger} instead.
  * @author Radu Bogdan Rusu, Maxim Batalin
  * @version
@@ -62,14 +68,24 @@ public class LaserInterface extends PlayerDevice {
     // Logging support
     private Logger logger = Logger.getLogger (LaserInterface.class.getName ());
 
-    private PlayerLaserData         pldata;
-    private boolean                 readyPldata     = false;
-    private PlayerLaserDataScanpose pldatascan;
-    private boolean                 readyPldatascan = false;
-    private PlayerLaserConfig       plconfig;
-    private boolean                 readyPlconfig   = false;
-    private PlayerLaserGeom         plgeom;
-    private boolean                 readyPlgeom     = false;
+    private volatile PlayerLaserData         pldata;
+    private boolean                          readyPldata     = false;
+    private volatile PlayerLaserDataScanpose pldatascan;
+    private boolean                          readyPldatascan = false;
+    private PlayerLaserConfig                plconfig;
+    private boolean                          readyPlconfig   = false;
+    private PlayerLaserGeom                  plgeom;
+    private boolean                          readyPlgeom     = false;
+
+    // Two sets of reusable scan buffers per data type, used in turn
+    private final PlayerLaserData[]         scans     = new PlayerLaserData[2];
+    private int                             currentScan;
+    private final PlayerLaserDataScanpose[] scanposes =
+        new PlayerLaserDataScanpose[2];
+    private int                             currentScanpose;
+
+    // Cached beam directions (see projectScan ())
+    private volatile TrigTable              trigTable;
 
 
     /**
@@ -78,98 +94,44 @@ public class LaserInterface extends PlayerDevice {
      */
     public LaserInterface (PlayerClient pc) { super (pc); }
 
-    private synchronized PlayerLaserData readLaserData () {
-        PlayerLaserData pld = new PlayerLaserData ();
-        try {
-            // Buffer for reading min/max_angle, resolution, max_range, ranges_count
-            byte[] buffer = new byte[20];
-            // Read min/max_angle, resolution, max_range, ranges_count
-            is.readFully (buffer, 0, 20);
-
-            // Begin decoding the XDR buffer
-            XdrBufferDecodingStream xdr = new XdrBufferDecodingStream (buffer);
-            xdr.beginDecoding ();
-            pld.setMin_angle    (xdr.xdrDecodeFloat ());
-            pld.setMax_angle    (xdr.xdrDecodeFloat ());
-            pld.setResolution   (xdr.xdrDecodeFloat ());
-            pld.setMax_range    (xdr.xdrDecodeFloat ());
-            int rangesCount = xdr.xdrDecodeInt ();
-            xdr.endDecoding   ();
-            xdr.close ();
-
-            // Buffer for reading range values
-            buffer = new byte[PLAYER_LASER_MAX_SAMPLES * 4 + 4];
-            // Read range values
-            is.readFully (buffer, 0, rangesCount * 4 + 4);
-            xdr = new XdrBufferDecodingStream (buffer);
-            xdr.beginDecoding ();
-            pld.setRanges (xdr.xdrDecodeFloatVector ());
-            xdr.endDecoding   ();
-            xdr.close ();
-
-            pld.setRanges_count (rangesCount);
-
-            // Buffer for intensity_count
-            buffer = new byte[8];
-            // Read intensity_count
-            is.readFully (buffer, 0, 8);
-
-            // Begin decoding the XDR buffer
-            xdr = new XdrBufferDecodingStream (buffer);
-            xdr.beginDecoding ();
-            int intensityCount = xdr.xdrDecodeInt ();
-            xdr.endDecoding   ();
-            xdr.close ();
-
-            // Buffer for reading intensity values (non XDR)
-            buffer = new byte[PLAYER_LASER_MAX_SAMPLES];
-            // Read intensity values
-            is.readFully (buffer, 0, intensityCount);
-            pld.setIntensity_count (intensityCount);
-            pld.setIntensity       (buffer);
-
-            // Take care of the residual zero bytes
-            if ((intensityCount % 4) != 0)
-                is.readFully (buffer, 0, 4 - (intensityCount % 4));
-
-            // Buffer for ID
-            buffer = new byte[4];
-            // Read ID
-            is.readFully (buffer, 0, 4);
-            xdr = new XdrBufferDecodingStream (buffer);
-            xdr.beginDecoding ();
-            pld.setId        (xdr.xdrDecodeInt ());
-            xdr.endDecoding   ();
-            xdr.close ();
-
-            // Compute the cartesian coordinates X and Y
-            double currentAngle = pld.getMin_angle  ();
-            double resolution   = pld.getResolution ();
-            float  ranges[]     = pld.getRanges     ();
-            PlayerPoint2d[] points = new PlayerPoint2d[pld.getRanges_count ()];
-            // Iterate through the ranges array
-            for (int i = 0; i < pld.getRanges_count (); i++)
-            {
-                PlayerPoint2d pp2d = new PlayerPoint2d ();
-                pp2d.setPx ((float)(ranges[i] * Math.cos (currentAngle)));
-                pp2d.setPy ((float)(ranges[i] * Math.sin (currentAngle)));
-                currentAngle += resolution;
-
-                points[i] = pp2d;
-            }
-
-            pld.setPoints (points);
-
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Laser] : Error reading laser data: " +
-                        e.toString(), e);
-        } catch (OncRpcException e) {
-            throw new PlayerException
-                ("[Laser] : Error while XDR-decoding laser data: " +
-                        e.toString(), e);
-        }
-        return pld;
+    /**
+     * Decode a laser scan into a reusable data object. The range and
+     * intensity arrays of the object are reused when they already have the
+     * size of the scan.
+     * @param xdr decoder over the message payload
+     * @param pld the data object to fill in
+     */
+    private void readLaserData (XdrByteBufferDecodingStream xdr,
+                                PlayerLaserData pld)
+            throws IOException, OncRpcException {
+        pld.setMin_angle    (xdr.xdrDecodeFloat ());
+        pld.setMax_angle    (xdr.xdrDecodeFloat ());
+        pld.setResolution   (xdr.xdrDecodeFloat ());
+        pld.setMax_range    (xdr.xdrDecodeFloat ());
+        int rangesCount = xdr.xdrDecodeInt ();
+        xdr.xdrDecodeInt ();                       // array count
+
+        float[] ranges = pld.getRanges ();
+        if (ranges == null || ranges.length != rangesCount)
+            ranges = new float[rangesCount];
+        xdr.xdrDecodeFloatFixedVector (ranges, 0, rangesCount);
+        pld.setRanges       (ranges);
+        pld.setRanges_count (rangesCount);
+
+        int intensityCount = xdr.xdrDecodeInt ();
+        xdr.xdrDecodeInt ();                       // array count
+
+        // Intensity values are bytes, padded to a multiple of 4
+        byte[] intensity = pld.getIntensity ();
+        if (intensity == null || intensity.length != intensityCount)
+            intensity = new byte[intensityCount];
+        xdr.xdrDecodeOpaque (intensity, 0, intensityCount);
+        pld.setIntensity       (intensity);
+        pld.setIntensity_count (intensityCount);
+
+        pld.setId     (xdr.xdrDecodeInt ());
+        // The cartesian coordinates are computed on demand
+        pld.setPoints (null);
     }
 
     /**
@@ -182,36 +144,41 @@ public class LaserInterface extends PlayerDevice {
                 case PLAYER_LASER_DATA_SCAN: {
                     this.timestamp = header.getTimestamp();
 
-                    pldata = readLaserData ();
+                    // Decode into the buffers not handed out last time, and
+                    // publish them once complete
+                    XdrByteBufferDecodingStream xdr = readXdr (header.getSize ());
+                    currentScan = 1 - currentScan;
+                    if (scans[currentScan] == null)
+                        scans[currentScan] = new PlayerLaserData ();
+                    readLaserData (xdr, scans[currentScan]);
+
+                    pldata = scans[currentScan];
                     readyPldata = true;
+                    publishData (pldata);
                     break;
                 }
                 case PLAYER_LASER_DATA_SCANPOSE: {
                     this.timestamp = header.getTimestamp();
 
-                    PlayerLaserData pld = readLaserData ();
-                    PlayerPose2d pp = new PlayerPose2d ();
-
-                    // Buffer for reading pose
-                    byte[] buffer = new byte[12];
-                    // Read pose
-                    is.readFully (buffer, 0, 12);
-
-                    // Begin decoding the XDR buffer
-                    XdrBufferDecodingStream xdr = new XdrBufferDecodingStream (buffer);
-                    xdr.beginDecoding ();
+                    XdrByteBufferDecodingStream xdr = readXdr (header.getSize ());
+                    currentScanpose = 1 - currentScanpose;
+                    PlayerLaserDataScanpose scanpose = scanposes[currentScanpose];
+                    if (scanpose == null) {
+                        scanpose = new PlayerLaserDataScanpose ();
+                        scanpose.setScan (new PlayerLaserData ());
+                        scanpose.setPose (new PlayerPose2d ());
+                        scanposes[currentScanpose] = scanpose;
+                    }
+                    readLaserData (xdr, scanpose.getScan ());
+
+                    PlayerPose2d pp = scanpose.getPose ();
                     pp.setPx (xdr.xdrDecodeDouble ());
                     pp.setPy (xdr.xdrDecodeDouble ());
                     pp.setPa (xdr.xdrDecodeDouble ());
-                    xdr.endDecoding   ();
-                    xdr.close ();
-
-                    pldatascan = new PlayerLaserDataScanpose ();
-
-                    pldatascan.setScan (pld);
-                    pldatascan.setPose (pp);
 
+                    pldatascan = scanpose;
                     readyPldatascan = true;
+                    publishData (pldatascan);
                     break;
                 }
             }
@@ -236,7 +203,7 @@ public class LaserInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPldata) {
             readyPldata = false;
             return true;
@@ -255,7 +222,7 @@ public class LaserInterface extends PlayerDevice {
     * Check if Scanpose data is available.
     * @return true if ready, false if not ready
     */
-   public boolean isDataScanposeReady () {
+   public synchronized boolean isDataScanposeReady () {
        if (readyPldatascan) {
            readyPldatascan = false;
            return true;
@@ -271,14 +238,23 @@ public class LaserInterface extends PlayerDevice {
      * See the player_laser_geom structure from player.h
      */
     public void queryGeometry () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LASER_REQ_GET_GEOM, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Laser] : Couldn't request PLAYER_LASER_REQ_GET_GEOM: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LASER_REQ_GET_GEOM, 0);
+    }
+
+    /**
+     * Asynchronous variant of queryGeometry (): the laser geometry is
+     * delivered through the returned future.
+     * @param timeout maximum time to wait for the reply
+     * @param unit unit of the timeout
+     * @return a future completed with the laser geometry
+     * @see PlayerDevice#sendRequestAsync(int, long, TimeUnit, Runnable)
+     */
+    public CompletableFuture<PlayerLaserGeom> queryGeometryAsync
+            (long timeout, TimeUnit unit) {
+        return sendRequestAsync (PLAYER_LASER_REQ_GET_GEOM, timeout, unit,
+            new Runnable () {
+                public void run () { queryGeometry (); }
+            });
     }
 
     /**
@@ -293,9 +269,8 @@ public class LaserInterface extends PlayerDevice {
      */
     public void setScanProperties (PlayerLaserConfig plc) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LASER_REQ_SET_CONFIG, 28);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (28);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_LASER_REQ_SET_CONFIG, 28);
             xdr.xdrEncodeFloat (plc.getMin_angle  ());
             xdr.xdrEncodeFloat (plc.getMax_angle  ());
             xdr.xdrEncodeFloat (plc.getResolution ());
@@ -304,9 +279,7 @@ public class LaserInterface extends PlayerDevice {
             xdr.xdrEncodeByte  (plc.getIntensity  ());
             xdr.xdrEncodeFloat (plc.getFrequency  ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Laser] : Couldn't request PLAYER_LASER_REQ_SET_CONFIG: " +
@@ -328,14 +301,23 @@ public class LaserInterface extends PlayerDevice {
      * will be returned in the response.
      */
     public void getScanProperties () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LASER_REQ_GET_CONFIG, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Laser] : Couldn't request PLAYER_LASER_REQ_GET_CONFIG: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LASER_REQ_GET_CONFIG, 0);
+    }
+
+    /**
+     * Asynchronous variant of getScanProperties (): the scan configuration
+     * is delivered through the returned future.
+     * @param timeout maximum time to wait for the reply
+     * @param unit unit of the timeout
+     * @return a future completed with the scan configuration
+     * @see PlayerDevice#sendRequestAsync(int, long, TimeUnit, Runnable)
+     */
+    public CompletableFuture<PlayerLaserConfig> getScanPropertiesAsync
+            (long timeout, TimeUnit unit) {
+        return sendRequestAsync (PLAYER_LASER_REQ_GET_CONFIG, timeout, unit,
+            new Runnable () {
+                public void run () { getScanProperties (); }
+            });
     }
 
     /**
@@ -344,14 +326,11 @@ public class LaserInterface extends PlayerDevice {
      */
     public void setPower (int value) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LASER_REQ_POWER, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_LASER_REQ_POWER, 4);
             xdr.xdrEncodeByte ((byte)value);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Laser] : Couldn't request PLAYER_LASER_REQ_POWER: " +
@@ -367,7 +346,7 @@ public class LaserInterface extends PlayerDevice {
      * Handle acknowledgement response messages (threaded mode).
      * @param header Player header
      */
-    public void handleResponse (PlayerMsgHdr header) {
+    public synchronized void handleResponse (PlayerMsgHdr header) {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_LASER_REQ_GET_GEOM: {
@@ -399,6 +378,8 @@ public class LaserInterface extends PlayerDevice {
                     plgeom.setSize (size);
 
                     readyPlgeom = true;
+                    publishData (plgeom);
+                    completeReply (PLAYER_LASER_REQ_GET_GEOM, plgeom);
                     break;
                 }
                 case PLAYER_LASER_REQ_SET_CONFIG: {
@@ -426,6 +407,8 @@ public class LaserInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPlconfig = true;
+                    publishData (plconfig);
+                    completeReply (PLAYER_LASER_REQ_GET_CONFIG, plconfig);
                     break;
                 }
                 case PLAYER_LASER_REQ_POWER: {
@@ -469,7 +452,7 @@ public class LaserInterface extends PlayerDevice {
      * @return true if ready, false if not ready
      * @see #getPlayerLaserGeom()
      */
-    public boolean isReadyPlgeom () {
+    public synchronized boolean isReadyPlgeom () {
         if (readyPlgeom) {
             readyPlgeom = false;
             return true;
@@ -482,11 +465,113 @@ public class LaserInterface extends PlayerDevice {
      * @return true if ready, false if not ready
      * @see #getPlayerLaserConfig()
      */
-    public boolean isReadyPlconfig () {
+    public synchronized boolean isReadyPlconfig () {
         if (readyPlconfig) {
             readyPlconfig = false;
             return true;
         }
         return false;
     }
+
+    /**
+     * Convert a scan to cartesian coordinates in the laser frame (x forward,
+     * y to the left). The sines and cosines of the beam angles are computed
+     * once per scan configuration (start angle, resolution and number of
+     * readings) and cached, so projecting a scan costs two multiplications
+     * per reading.
+     * @param scan the laser scan, e.g. getData ()
+     * @param x buffer receiving the X coordinates [m]
+     * @param y buffer receiving the Y coordinates [m]
+     * @return the number of points written, i.e. the number of readings
+     */
+    public int projectScan (PlayerLaserData scan, float[] x, float[] y) {
+        return projectScan (scan, 0.0, 0.0, 0.0, x, y);
+    }
+
+    /**
+     * Convert a scan to cartesian coordinates in the robot frame, using the
+     * pose of the laser on the robot (see queryGeometry ()). Only the
+     * planar part of the pose (px, py, pyaw) is used.
+     * @param scan the laser scan, e.g. getData ()
+     * @param geom the laser geometry, e.g. getPlayerLaserGeom ()
+     * @param x buffer receiving the X coordinates [m]
+     * @param y buffer receiving the Y coordinates [m]
+     * @return the number of points written, i.e. the number of readings
+     * @see #projectScan(PlayerLaserData, float[], float[])
+     */
+    public int projectScan (PlayerLaserData scan, PlayerLaserGeom geom,
+                            float[] x, float[] y) {
+        PlayerPose3d pose = geom.getPose ();
+        return projectScan (scan, pose.getPx (), pose.getPy (),
+                            pose.getPyaw (), x, y);
+    }
+
+    private int projectScan (PlayerLaserData scan, double px, double py,
+                             double pa, float[] x, float[] y) {
+        float[] ranges;
+        int     count;
+        float   minAngle, resolution;
+        synchronized (scan) {
+            ranges     = scan.getRanges ();
+            count      = scan.getRanges_count ();
+            minAngle   = scan.getMin_angle ();
+            resolution = scan.getResolution ();
+        }
+        if (x.length < count || y.length < count)
+            throw new IllegalArgumentException
+                ("[Laser] : Buffers too small for " + count + " points");
+
+        TrigTable table = trigTable;
+        if (table == null || !table.matches (minAngle, resolution, count)) {
+            table = new TrigTable (minAngle, resolution, count);
+            trigTable = table;
+        }
+        float[] cos = table.cos;
+        float[] sin = table.sin;
+
+        if (px == 0.0 && py == 0.0 && pa == 0.0) {
+            for (int i = 0; i < count; i++) {
+                x[i] = ranges[i] * cos[i];
+                y[i] = ranges[i] * sin[i];
+            }
+        } else {
+            // Rotate each beam by the laser yaw, then translate
+            float ca = (float)Math.cos (pa);
+            float sa = (float)Math.sin (pa);
+            float tx = (float)px;
+            float ty = (float)py;
+            for (int i = 0; i < count; i++) {
+                float c = ca * cos[i] - sa * sin[i];
+                float d = sa * cos[i] + ca * sin[i];
+                x[i] = tx + ranges[i] * c;
+                y[i] = ty + ranges[i] * d;
+            }
+        }
+        return count;
+    }
+
+    // Beam directions for one scan configuration
+    private static final class TrigTable {
+        final float   minAngle;
+        final float   resolution;
+        final float[] cos;
+        final float[] sin;
+
+        TrigTable (float minAngle, float resolution, int count) {
+            this.minAngle   = minAngle;
+            this.resolution = resolution;
+            this.cos        = new float[count];
+            this.sin        = new float[count];
+            for (int i = 0; i < count; i++) {
+                double angle = minAngle + (double)i * resolution;
+                cos[i] = (float)Math.cos (angle);
+                sin[i] = (float)Math.sin (angle);
+            }
+        }
+
+        boolean matches (float newMinAngle, float newResolution, int count) {
+            return minAngle == newMinAngle && resolution == newResolution &&
+                cos.length == count;
+        }
+    }
 }
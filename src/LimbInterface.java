@@ -103,6 +103,7 @@ public class LimbInterface extends PlayerDevice {
                     pldata.setState    (state);
 
                     readyPldata = true;
+                    publishData (pldata);
                     break;
                 }
             }
@@ -123,14 +124,7 @@ public class LimbInterface extends PlayerDevice {
      * Tells the end effector to return to its home position.
      */
     public void homeCmd () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_LIMB_CMD_HOME, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Limb] : Couldn't send homing command: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_LIMB_CMD_HOME, 0);
     }
 
     /**
@@ -139,14 +133,7 @@ public class LimbInterface extends PlayerDevice {
      * Tells the limb to stop moving immediatly.
      */
     public void stopCmd () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_LIMB_CMD_STOP, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Limb] : Couldn't send stop command: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_LIMB_CMD_STOP, 0);
     }
 
     /**
@@ -161,9 +148,8 @@ public class LimbInterface extends PlayerDevice {
     public void setPose (PlayerPoint3d position,
             PlayerPoint3d approach, PlayerPoint3d orientation) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_LIMB_CMD_SETPOSE, 72);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (72);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_LIMB_CMD_SETPOSE, 72);
             xdr.xdrEncodeDouble (position.getPx ());
             xdr.xdrEncodeDouble (position.getPy ());
             xdr.xdrEncodeDouble (position.getPz ());
@@ -174,9 +160,7 @@ public class LimbInterface extends PlayerDevice {
             xdr.xdrEncodeDouble (orientation.getPy ());
             xdr.xdrEncodeDouble (orientation.getPz ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Limb] : Couldn't send SETPOSE command: " +
@@ -198,16 +182,13 @@ public class LimbInterface extends PlayerDevice {
      */
     public void setPosition (PlayerPoint3d position) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_LIMB_CMD_SETPOSITION, 24);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (24);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_LIMB_CMD_SETPOSITION, 24);
             xdr.xdrEncodeDouble (position.getPx ());
             xdr.xdrEncodeDouble (position.getPy ());
             xdr.xdrEncodeDouble (position.getPz ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Limb] : Couldn't send SETPOSITION command: " +
@@ -230,17 +211,14 @@ public class LimbInterface extends PlayerDevice {
      */
     public void vectorMove (PlayerPoint3d direction, float length) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_LIMB_CMD_VECMOVE, 28);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (28);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_LIMB_CMD_VECMOVE, 28);
             xdr.xdrEncodeDouble (direction.getPx ());
             xdr.xdrEncodeDouble (direction.getPy ());
             xdr.xdrEncodeDouble (direction.getPz ());
             xdr.xdrEncodeFloat  (length);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Limb] : Couldn't send VECMOVE command: " +
@@ -264,14 +242,11 @@ public class LimbInterface extends PlayerDevice {
      */
     public void setPower (int value) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LIMB_REQ_POWER, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_LIMB_REQ_POWER, 4);
             xdr.xdrEncodeByte ((byte)value);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Limb] : Couldn't request PLAYER_LIMB_POWER_REQ: " +
@@ -292,14 +267,11 @@ public class LimbInterface extends PlayerDevice {
      */
     public void setBrakes (int value) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LIMB_REQ_BRAKES, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_LIMB_REQ_BRAKES, 4);
             xdr.xdrEncodeByte ((byte)value);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Limb] : Couldn't request PLAYER_LIMB_BRAKES_REQ: " +
@@ -318,14 +290,7 @@ public class LimbInterface extends PlayerDevice {
      * geometry in this form.
      */
     public void queryGeometry () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LIMB_REQ_GEOM, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Limb] : Couldn't request PLAYER_LIMB_GEOM_REQ: "
-                        + e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LIMB_REQ_GEOM, 0);
     }
 
     /**
@@ -337,14 +302,11 @@ public class LimbInterface extends PlayerDevice {
      */
     public void setSpeed (float speed) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LIMB_REQ_SPEED, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_LIMB_REQ_SPEED, 4);
             xdr.xdrEncodeFloat (speed);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Limb] : Couldn't request PLAYER_LIMB_SPEED_REQ: " +
@@ -360,7 +322,7 @@ public class LimbInterface extends PlayerDevice {
      * Handle acknowledgement response messages.
      * @param header Player header
      */
-    protected void handleResponse (PlayerMsgHdr header) {
+    protected synchronized void handleResponse (PlayerMsgHdr header) {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_LIMB_REQ_POWER: {
@@ -391,6 +353,7 @@ public class LimbInterface extends PlayerDevice {
                     plgeom = new PlayerLimbGeomReq ();
                     plgeom.setBasePos (basePose);
                     readyPlgeom = true;
+                    publishData (plgeom);
 
                     break;
                 }
@@ -433,7 +396,7 @@ public class LimbInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPldata) {
             readyPldata = false;
             return true;
@@ -445,7 +408,7 @@ public class LimbInterface extends PlayerDevice {
      * Check if geometry data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isGeomReady () {
+    public synchronized boolean isGeomReady () {
         if (readyPlgeom) {
             readyPlgeom = false;
             return true;
@@ -22,19 +22,22 @@
 package javaclient3;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import javaclient3.structures.PlayerMsgHdr;
 import javaclient3.structures.PlayerPose2d;
 import javaclient3.structures.localize.PlayerLocalizeData;
 import javaclient3.structures.localize.PlayerLocalizeGetParticles;
 import javaclient3.structures.localize.PlayerLocalizeHypoth;
-import javaclient3.structures.localize.PlayerLocalizeParticle;
 import javaclient3.structures.localize.PlayerLocalizeSetPose;
 import javaclient3.xdr.OncRpcException;
 import javaclient3.xdr.XdrBufferDecodingStream;
 import javaclient3.xdr.XdrBufferEncodingStream;
+import javaclient3.xdr.XdrByteBufferDecodingStream;
 
 /**
  * The localize interface provides pose information for the robot. Generally
@@ -57,10 +60,19 @@ public class LocalizeInterface extends PlayerDevice {
     // Logging support
     private Logger logger = Logger.getLogger (LocalizeInterface.class.getName ());
 
-    private PlayerLocalizeData         pldata;
-    private boolean                    readyPldata = false;
-    private PlayerLocalizeGetParticles plgp;
-    private boolean                    readyPlgp = false;
+    private PlayerLocalizeData                  pldata;
+    private boolean                             readyPldata = false;
+    private volatile PlayerLocalizeGetParticles plgp;
+    private boolean                             readyPlgp = false;
+
+    // Two sets of reusable particle buffers, used in turn
+    private final PlayerLocalizeGetParticles[] particleSets =
+        new PlayerLocalizeGetParticles[2];
+    private final double[][]           px    = new double[2][];
+    private final double[][]           py    = new double[2][];
+    private final double[][]           pa    = new double[2][];
+    private final double[][]           alpha = new double[2][];
+    private int                        current;
 
     /**
      * Constructor for LocalizeInterface.
@@ -132,6 +144,7 @@ public class LocalizeInterface extends PlayerDevice {
                     pldata.setHypoths (plhs);
 
                     readyPldata = true;
+                    publishData (pldata);
                     break;
                 }
             }
@@ -155,9 +168,8 @@ public class LocalizeInterface extends PlayerDevice {
      */
     public void setPose (PlayerLocalizeSetPose plsp) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LOCALIZE_REQ_SET_POSE, 24 + 48);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (24 + 48);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_LOCALIZE_REQ_SET_POSE, 24 + 48);
             xdr.xdrEncodeDouble (plsp.getMean ().getPx ());
             xdr.xdrEncodeDouble (plsp.getMean ().getPy ());
             xdr.xdrEncodeDouble (plsp.getMean ().getPa ());
@@ -168,9 +180,7 @@ public class LocalizeInterface extends PlayerDevice {
             xdr.xdrEncodeDouble (plsp.getCov ()[4]);
             xdr.xdrEncodeDouble (plsp.getCov ()[5]);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Localize] : Couldn't request PLAYER_LOCALIZE_SET_POSE_REQ: "
@@ -190,78 +200,105 @@ public class LocalizeInterface extends PlayerDevice {
      * PLAYER_LOCALIZE_REQ_GET_PARTICLES request.
      */
     public void queryParticles () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LOCALIZE_REQ_GET_PARTICLES, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Localize] : Couldn't request " +
-                        "PLAYER_LOCALIZE_REQ_GET_PARTICLES: "
-                        + e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LOCALIZE_REQ_GET_PARTICLES, 0);
+    }
+
+    /**
+     * Asynchronous variant of queryParticles (): the particle set is
+     * delivered through the returned future. Unlike the set returned by
+     * getParticleData (), it is a copy owned by the caller, so any number of
+     * queries can be outstanding.
+     * @param timeout maximum time to wait for the reply
+     * @param unit unit of the timeout
+     * @return a future completed with the particle set
+     * @see PlayerDevice#sendRequestAsync(int, long, TimeUnit, Runnable)
+     */
+    public CompletableFuture<PlayerLocalizeGetParticles> queryParticlesAsync
+            (long timeout, TimeUnit unit) {
+        return sendRequestAsync (PLAYER_LOCALIZE_REQ_GET_PARTICLES,
+            timeout, unit, new Runnable () {
+                public void run () { queryParticles (); }
+            });
+    }
+
+    /**
+     * Copy a particle set into new arrays.
+     * @param particles the particle set
+     * @return the copy
+     */
+    private PlayerLocalizeGetParticles copyParticles
+            (PlayerLocalizeGetParticles particles) {
+        int n = particles.getParticles_count ();
+        PlayerPose2d mean = new PlayerPose2d ();
+        mean.setPx (particles.getMean ().getPx ());
+        mean.setPy (particles.getMean ().getPy ());
+        mean.setPa (particles.getMean ().getPa ());
+
+        PlayerLocalizeGetParticles copy = new PlayerLocalizeGetParticles ();
+        copy.setMean      (mean);
+        copy.setVariance  (particles.getVariance ());
+        copy.setParticles (n, Arrays.copyOf (particles.getPx (), n),
+                Arrays.copyOf (particles.getPy (), n),
+                Arrays.copyOf (particles.getPa (), n),
+                Arrays.copyOf (particles.getAlpha (), n));
+        return copy;
     }
 
     /**
      * Handle acknowledgement response messages.
      * @param header Player header
      */
-    protected void handleResponse (PlayerMsgHdr header) {
+    protected synchronized void handleResponse (PlayerMsgHdr header) {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_LOCALIZE_REQ_SET_POSE:{
                     break;
                 }
                 case PLAYER_LOCALIZE_REQ_GET_PARTICLES:{
-                    // Buffer for reading mean, variance, particles_count
-                    byte[] buffer = new byte[24 + 8 + 8];
+                    // Decode the whole set in one go (mean, variance,
+                    // particles_count, array_count, then 32 bytes per
+                    // particle) into the buffers not handed out last time
+                    XdrByteBufferDecodingStream xdr = readXdr (header.getSize ());
 
-                    // Read mean, variance, particles_count; skip array_count
-                    is.readFully (buffer, 0, 24 + 8 + 8);
+                    current = 1 - current;
+                    if (particleSets[current] == null)
+                        particleSets[current] = new PlayerLocalizeGetParticles ();
+                    PlayerLocalizeGetParticles particles = particleSets[current];
 
-                    plgp = new PlayerLocalizeGetParticles ();
                     PlayerPose2d mean = new PlayerPose2d ();
-
-                    // Begin decoding the XDR buffer
-                    XdrBufferDecodingStream xdr = new XdrBufferDecodingStream (buffer);
-                    xdr.beginDecoding ();
-
                     mean.setPx (xdr.xdrDecodeDouble ());
                     mean.setPy (xdr.xdrDecodeDouble ());
                     mean.setPa (xdr.xdrDecodeDouble ());
-
-                    plgp.setMean (mean);
-                    plgp.setVariance (xdr.xdrDecodeDouble ());
+                    particles.setMean     (mean);
+                    particles.setVariance (xdr.xdrDecodeDouble ());
                     int particlesCount = xdr.xdrDecodeInt ();
+                    xdr.xdrDecodeInt ();                   // array_count
 
-                    xdr.endDecoding   ();
-                    xdr.close ();
-
-                    // Buffer for reading particle values
-                    buffer = new byte[particlesCount * 32];
-
-                    // Read particle values
-                    is.readFully (buffer, 0, particlesCount * 32);
-                    xdr = new XdrBufferDecodingStream (buffer);
-                    xdr.beginDecoding ();
-                    PlayerLocalizeParticle[] plps = new PlayerLocalizeParticle[particlesCount];
+                    if (px[current] == null || px[current].length < particlesCount) {
+                        px[current]    = new double[particlesCount];
+                        py[current]    = new double[particlesCount];
+                        pa[current]    = new double[particlesCount];
+                        alpha[current] = new double[particlesCount];
+                    }
+                    double[] x = px[current];
+                    double[] y = py[current];
+                    double[] a = pa[current];
+                    double[] w = alpha[current];
                     for (int i = 0; i < particlesCount; i++) {
-                        PlayerLocalizeParticle plp = new PlayerLocalizeParticle ();
-                        PlayerPose2d pp = new PlayerPose2d ();
-                        pp.setPx (xdr.xdrDecodeDouble ());
-                        pp.setPy (xdr.xdrDecodeDouble ());
-                        pp.setPa (xdr.xdrDecodeDouble ());
-
-                        plp.setPose  (pp);
-                        plp.setAlpha (xdr.xdrDecodeDouble ());
-
-                        plps[i] = plp;
+                        x[i] = xdr.xdrDecodeDouble ();
+                        y[i] = xdr.xdrDecodeDouble ();
+                        a[i] = xdr.xdrDecodeDouble ();
+                        w[i] = xdr.xdrDecodeDouble ();
                     }
-                    xdr.endDecoding   ();
-                    xdr.close ();
-
-                    plgp.setParticles (plps);
+                    particles.setParticles (particlesCount, x, y, a, w);
 
+                    plgp = particles;
                     readyPlgp = true;
+                    publishData (plgp);
+                    // The set is reused two queries later: futures get a copy
+                    if (isReplyAwaited ())
+                        completeReply (PLAYER_LOCALIZE_REQ_GET_PARTICLES,
+                                       copyParticles (particles));
                     break;
                 }
                 default:{
@@ -290,7 +327,10 @@ public class LocalizeInterface extends PlayerDevice {
     public PlayerLocalizeData getData () { return this.pldata; }
 
     /**
-     * Get the particle data.
+     * Get the particle data. The particles are held in primitive arrays (see
+     * PlayerLocalizeGetParticles.getPx () and forEachParticle ()). The
+     * interface alternates between two particle sets, so the returned object
+     * stays valid until the reply to the next query but one has been read.
      * @return an object of type PlayerLocalizeGetParticles containing the requested data
      */
     public PlayerLocalizeGetParticles getParticleData () { return this.plgp; }
@@ -299,7 +339,7 @@ public class LocalizeInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPldata) {
             readyPldata = false;
             return true;
@@ -311,7 +351,7 @@ public class LocalizeInterface extends PlayerDevice {
      * Check if particle data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isParticleDataReady () {
+    public synchronized boolean isParticleDataReady () {
         if (readyPlgp) {
             readyPlgp = false;
             return true;
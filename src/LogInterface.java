@@ -71,14 +71,11 @@ public class LogInterface extends PlayerDevice {
      */
     public void setWriteState (int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LOG_REQ_SET_WRITE_STATE, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_LOG_REQ_SET_WRITE_STATE, 4);
             xdr.xdrEncodeByte ((byte)state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Log] : Couldn't request PLAYER_LOG_REQ_SET_WRITE_STATE: "
@@ -101,14 +98,11 @@ public class LogInterface extends PlayerDevice {
      */
     public void setReadState (int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LOG_REQ_SET_READ_STATE, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_LOG_REQ_SET_READ_STATE, 4);
             xdr.xdrEncodeByte ((byte)state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Log] : Couldn't request PLAYER_LOG_REQ_SET_READ_STATE: "
@@ -129,14 +123,7 @@ public class LogInterface extends PlayerDevice {
      * <br><br>
      */
     public void rewindPlayback () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LOG_REQ_SET_READ_REWIND, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Log] : Couldn't request PLAYER_LOG_REQ_SET_READ_REWIND: "
-                        + e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LOG_REQ_SET_READ_REWIND, 0);
     }
 
 
@@ -149,14 +136,7 @@ public class LogInterface extends PlayerDevice {
      * See the player_log_get_state structure from player.h
      */
     public void queryState () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LOG_REQ_GET_STATE, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Log] : Couldn't request PLAYER_LOG_REQ_GET_STATE: "
-                        + e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_LOG_REQ_GET_STATE, 0);
     }
 
     /**
@@ -178,20 +158,13 @@ public class LogInterface extends PlayerDevice {
                 leftOvers = 4 - (temp.length () % 4);
             int size = 4 + 4 + leftOvers + temp.length ();
 
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_LOG_REQ_SET_FILENAME, size);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_LOG_REQ_SET_FILENAME, size);
             xdr.xdrEncodeInt  (size);
             xdr.xdrEncodeByte ((byte)size);
+            xdr.xdrEncodeOpaque (temp.getBytes ());    // the string to say
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-
-            byte[] buf = new byte[leftOvers];
-
-            os.writeBytes (temp);        // the string to say
-            os.write (buf, 0, leftOvers);
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Log] : Couldn't request PLAYER_LOG_REQ_SET_FILENAME: "
@@ -207,7 +180,7 @@ public class LogInterface extends PlayerDevice {
      * Handle acknowledgement response messages.
      * @param header Player header
      */
-    protected void handleResponse (PlayerMsgHdr header) {
+    protected synchronized void handleResponse (PlayerMsgHdr header) {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_LOG_REQ_SET_WRITE_STATE: {
@@ -274,7 +247,7 @@ public class LogInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPlgs) {
             readyPlgs = false;
             return true;
@@ -98,6 +98,7 @@ public class MComInterface extends PlayerDevice {
                 is.readFully (buffer, 0, 4 - (dataCount % 4));
 
             readyPmdata = true;
+            publishData (pmdata);
         } catch (IOException e) {
             throw new PlayerException
                 ("[MCom] : Error reading payload: " +
@@ -121,20 +122,16 @@ public class MComInterface extends PlayerDevice {
         try {
             int total = 12 + 4 + pmconfig.getChannel_count () + 8 + 4 +
                 pmconfig.getData ().getData_count ();
-            sendHeader (PLAYER_MSGTYPE_REQ, whichReq, total);     /* payload */
-
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (24);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, whichReq, total);     /* payload */
             xdr.xdrEncodeInt (pmconfig.getCommand       ());
             xdr.xdrEncodeInt (pmconfig.getType          ());
             xdr.xdrEncodeInt (pmconfig.getChannel_count ());
             xdr.xdrEncodeByte((byte)pmconfig.getChannel_count ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
 
             // Need to finish this after Player 2 gets updated in CVS!!!
-            os.flush ();
+            sendMessage (xdr);
         } catch (Exception e) {
             String subtype = "";
             switch (whichReq) {
@@ -275,7 +272,7 @@ public class MComInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPmdata) {
             readyPmdata = false;
             return true;
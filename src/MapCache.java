@@ -0,0 +1,295 @@
+/*
+ *  Player Java Client 3 - MapCache.java
+ *  Copyright (C) 2002-2006 Radu Bogdan Rusu, Maxim Batalin
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * $Id$
+ *
+ */
+package javaclient3;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import javaclient3.structures.PlayerPose2d;
+import javaclient3.structures.map.PlayerMapInfo;
+
+/**
+ * A persistent cache of downloaded grid maps. The latest map of each source,
+ * identified by a caller-chosen name (e.g. the Player server address), is
+ * stored uncompressed in its own file, together with the map information
+ * (size, scale and origin) and a checksum of the cells. Loading a cached map
+ * maps the file into memory instead of downloading it again; a cached map
+ * whose information no longer matches the server's is deleted.
+ * <br><br>
+ * Usage:
+ * <pre>
+ *  MapCache cache = new MapCache (new File ("maps"));
+ *  map.requestMapInformation ();
+ *  ... wait for map.isDataReady () ...
+ *  OccupancyGrid grid = cache.load ("robot1:6665", map, map.getData (),
+ *      640, 4, 30, TimeUnit.SECONDS);
+ * </pre>
+ * The map information is what tells a cached map from a changed one: a map
+ * edited on the server without any change of size, scale or origin is not
+ * detected, and needs {@link #remove(String)}.
+ * @version
+ * <ul>
+ *      <li>v3.0 - Player 3.0 supported
+ * </ul>
+ */
+public class MapCache {
+
+    // Logging support
+    private Logger logger = Logger.getLogger (MapCache.class.getName ());
+
+    // "JCMAP" followed by the format version
+    private static final long MAGIC = 0x4A434D4150000001L;
+
+    // magic, header size, width, height, scale, origin, checksum, name size
+    private static final int FIXED_HEADER = 8 + 4 + 4 + 4 + 4 + 24 + 8 + 4;
+
+    private static final Charset UTF8 = Charset.forName ("UTF-8");
+
+    private final File       directory;
+    private volatile boolean verifyChecksum = true;
+
+    /**
+     * Create a cache storing its files in the given directory, which is
+     * created if needed.
+     * @param directory the cache directory
+     */
+    public MapCache (File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Select whether the checksum of a cached map is verified when it is
+     * loaded (the default). Verifying reads the whole file once.
+     * @param verify true to verify the checksums
+     */
+    public void setVerifyChecksum (boolean verify) {
+        this.verifyChecksum = verify;
+    }
+
+    /**
+     * Load a map from the cache, or download it (see
+     * MapInterface.downloadMap ()) and store it if it is not cached yet.
+     * @param name name of the map source, e.g. the Player server address
+     * @param map the map interface
+     * @param info the current map information, as returned by
+     * MapInterface.requestMapInformation ()
+     * @param tileSize width and height of the tiles to download [cells]
+     * @param maxPending maximum number of tile requests in flight
+     * @param timeout maximum time to wait for the download
+     * @param unit unit of the timeout
+     * @return the occupancy grid
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public OccupancyGrid load (String name, MapInterface map,
+            PlayerMapInfo info, int tileSize, int maxPending, long timeout,
+            TimeUnit unit) throws InterruptedException {
+        ByteBuffer cells = get (name, info);
+        if (cells == null) {
+            cells = ByteBuffer.allocateDirect (info.getWidth () *
+                                               info.getHeight ());
+            map.downloadMap (info, cells, tileSize, maxPending, timeout, unit);
+            put (name, info, cells);
+        }
+        return new OccupancyGrid (info, cells);
+    }
+
+    /**
+     * Look a map up in the cache.
+     * @param name name of the map source
+     * @param info the current map information
+     * @return the cells of the map, mapped read-only from the cache file,
+     * or null if the map is not cached, has changed (its file is then
+     * deleted) or the file is corrupt
+     */
+    public ByteBuffer get (String name, PlayerMapInfo info) {
+        File file = fileFor (name);
+        if (!file.isFile ())
+            return null;
+        boolean stale = false;
+        try {
+            RandomAccessFile raf = new RandomAccessFile (file, "r");
+            try {
+                FileChannel channel = raf.getChannel ();
+                ByteBuffer header = ByteBuffer.allocate (FIXED_HEADER);
+                while (header.hasRemaining ())
+                    if (channel.read (header) < 0)
+                        return invalid (file, "truncated header");
+                header.flip ();
+
+                if (header.getLong () != MAGIC)
+                    return invalid (file, "unknown format");
+                int headerSize = header.getInt ();
+                int    width    = header.getInt    ();
+                int    height   = header.getInt    ();
+                float  scale    = header.getFloat  ();
+                double px       = header.getDouble ();
+                double py       = header.getDouble ();
+                double pa       = header.getDouble ();
+                long   checksum = header.getLong   ();
+
+                // Different names may share a file name: check the name too
+                int nameSize = header.getInt ();
+                if (nameSize < 0 || nameSize > channel.size () ||
+                        headerSize != FIXED_HEADER + (long)nameSize)
+                    return invalid (file, "corrupt header");
+                byte[] nameBytes = new byte[nameSize];
+                ByteBuffer nameBuffer = ByteBuffer.wrap (nameBytes);
+                while (nameBuffer.hasRemaining ())
+                    if (channel.read (nameBuffer) < 0)
+                        return invalid (file, "truncated header");
+                if (!new String (nameBytes, UTF8).equals
+                        (name == null ? "" : name))
+                    return invalid (file, "different map source");
+
+                PlayerPose2d origin = info.getOrigin ();
+                if (width != info.getWidth () ||
+                        height != info.getHeight () ||
+                        scale != info.getScale () ||
+                        px != origin.getPx () ||
+                        py != origin.getPy () ||
+                        pa != origin.getPa ()) {
+                    stale = true;
+                    return invalid (file, "map information changed");
+                }
+
+                long size = (long)info.getWidth () * info.getHeight ();
+                if (channel.size () != headerSize + size)
+                    return invalid (file, "wrong size");
+                ByteBuffer cells = channel.map
+                    (FileChannel.MapMode.READ_ONLY, headerSize, size);
+
+                if (verifyChecksum &&
+                        checksum (cells.duplicate ()) != checksum)
+                    return invalid (file, "checksum mismatch");
+                return cells;
+            } finally {
+                // The mapping stays valid once the file is closed
+                raf.close ();
+                if (stale)
+                    file.delete ();
+            }
+        } catch (IOException e) {
+            logger.log (Level.WARNING, "[MapCache] : Couldn't read " + file +
+                    ": " + e.toString (), e);
+            return null;
+        }
+    }
+
+    private ByteBuffer invalid (File file, String reason) {
+        logger.log (Level.INFO, "[MapCache] : Ignoring " + file + ": " +
+                reason);
+        return null;
+    }
+
+    /**
+     * Store a map in the cache, replacing any previous map of the same
+     * source. The file is written under a temporary name first, so that
+     * concurrent readers never see a partial map.
+     * @param name name of the map source
+     * @param info the map information
+     * @param cells width * height cells in row major order, from the
+     * position of the buffer (which is left unchanged)
+     */
+    public void put (String name, PlayerMapInfo info, ByteBuffer cells) {
+        int size = info.getWidth () * info.getHeight ();
+        ByteBuffer data = cells.duplicate ();
+        data.limit (data.position () + size);
+
+        byte[] nameBytes = (name == null ? "" : name).getBytes (UTF8);
+        int headerSize = FIXED_HEADER + nameBytes.length;
+        PlayerPose2d origin = info.getOrigin ();
+        ByteBuffer header = ByteBuffer.allocate (headerSize);
+        header.putLong   (MAGIC);
+        header.putInt    (headerSize);
+        header.putInt    (info.getWidth  ());
+        header.putInt    (info.getHeight ());
+        header.putFloat  (info.getScale  ());
+        header.putDouble (origin.getPx ());
+        header.putDouble (origin.getPy ());
+        header.putDouble (origin.getPa ());
+        header.putLong   (checksum (data.duplicate ()));
+        header.putInt    (nameBytes.length);
+        header.put       (nameBytes);
+        header.flip ();
+
+        File file = fileFor (name);
+        File temp = null;
+        try {
+            if (!directory.isDirectory () && !directory.mkdirs ())
+                throw new IOException ("Couldn't create " + directory);
+            temp = File.createTempFile ("map-", ".tmp", directory);
+            RandomAccessFile raf = new RandomAccessFile (temp, "rw");
+            try {
+                FileChannel channel = raf.getChannel ();
+                while (header.hasRemaining ())
+                    channel.write (header);
+                while (data.hasRemaining ())
+                    channel.write (data);
+                channel.force (false);
+            } finally {
+                raf.close ();
+            }
+            Files.move (temp.toPath (), file.toPath (),
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if (temp != null)
+                temp.delete ();
+            throw new PlayerException
+                ("[MapCache] : Couldn't write " + file + ": " +
+                        e.toString (), e);
+        }
+    }
+
+    /**
+     * Remove the map of the given source from the cache.
+     * @param name name of the map source
+     * @return true if a map was cached
+     */
+    public boolean remove (String name) {
+        return fileFor (name).delete ();
+    }
+
+    // File holding the map of the given source
+    private File fileFor (String name) {
+        CRC32 crc = new CRC32 ();
+        crc.update ((name == null ? "" : name).getBytes (UTF8));
+        return new File (directory, "map-" +
+                Long.toHexString (crc.getValue ()) + ".grid");
+    }
+
+    private static long checksum (ByteBuffer data) {
+        CRC32 crc = new CRC32 ();
+        crc.update (data);
+        return crc.getValue ();
+    }
+}
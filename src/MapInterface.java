@@ -22,6 +22,10 @@
 package javaclient3;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import javaclient3.structures.PlayerMsgHdr;
 import javaclient3.structures.PlayerPose2d;
@@ -32,6 +36,7 @@ import javaclient3.structures.map.PlayerMapInfo;
 import javaclient3.xdr.OncRpcException;
 import javaclient3.xdr.XdrBufferDecodingStream;
 import javaclient3.xdr.XdrBufferEncodingStream;
+import javaclient3.xdr.XdrByteBufferDecodingStream;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -61,6 +66,13 @@ public class MapInterface extends PlayerDevice {
     private PlayerMapDataVector pmdatavector;
     private boolean             readyPmdatavector = false;
 
+    // Decompressor and buffer reused for every tile
+    private final Inflater      inflater = new Inflater ();
+    private byte[]              compressed;
+
+    // Whole-map download in progress, if any (see downloadMap ())
+    private volatile MapDownload download;
+
 
     /**
      * Constructor for MapInterface.
@@ -115,6 +127,7 @@ public class MapInterface extends PlayerDevice {
 
                 readMapInfo ();
                 readyPminfo = true;
+                publishData (pminfo);
                 break;
             }
         }
@@ -131,14 +144,23 @@ public class MapInterface extends PlayerDevice {
      * See the player_map_info structure from player.h
      */
     public void requestMapInformation () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_MAP_REQ_GET_INFO, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Map] : ECouldn't request PLAYER_MAP_GET_INFO_REQ: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_MAP_REQ_GET_INFO, 0);
+    }
+
+    /**
+     * Asynchronous variant of requestMapInformation (): the map information
+     * is delivered through the returned future.
+     * @param timeout maximum time to wait for the reply
+     * @param unit unit of the timeout
+     * @return a future completed with the map information
+     * @see PlayerDevice#sendRequestAsync(int, long, TimeUnit, Runnable)
+     */
+    public CompletableFuture<PlayerMapInfo> requestMapInformationAsync
+            (long timeout, TimeUnit unit) {
+        return sendRequestAsync (PLAYER_MAP_REQ_GET_INFO, timeout, unit,
+            new Runnable () {
+                public void run () { requestMapInformation (); }
+            });
     }
 
     /**
@@ -156,9 +178,8 @@ public class MapInterface extends PlayerDevice {
      */
     public void requestMapData (PlayerMapData pmd) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_MAP_REQ_GET_DATA, 28);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (28);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_MAP_REQ_GET_DATA, 28);
             xdr.xdrEncodeInt (pmd.getCol    ());
             xdr.xdrEncodeInt (pmd.getRow    ());
             xdr.xdrEncodeInt (pmd.getWidth  ());
@@ -167,9 +188,7 @@ public class MapInterface extends PlayerDevice {
             xdr.xdrEncodeInt (0);
             xdr.xdrEncodeInt (0);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Map] : Couldn't request PLAYER_MAP_REQ_GET_DATA: " +
@@ -181,6 +200,150 @@ public class MapInterface extends PlayerDevice {
         }
     }
 
+    /**
+     * Download the whole grid map. The map is requested in square tiles,
+     * with up to <b>maxPending</b> requests in flight at any time, and the
+     * tiles are assembled into a single array as they arrive.
+     * <br><br>
+     * Responses are read by the PlayerClient thread in threaded mode, and by
+     * the calling thread otherwise. No other PLAYER_MAP_REQ_GET_DATA
+     * request should be sent while the download is in progress.
+     * <br><br>
+     * In non-threaded mode the timeout is only checked between two reads,
+     * and reading blocks until the server sends something: a server that
+     * stops answering altogether keeps the caller waiting past the timeout.
+     * Use threaded mode when the timeout must be enforced.
+     * @param info the map information (see requestMapInformation ())
+     * @param tileSize width and height of the tiles [cells]
+     * @param maxPending maximum number of tile requests in flight
+     * @param timeout maximum time to wait for the whole map
+     * @param unit unit of the timeout
+     * @return a PlayerMapData covering the whole map, with the cells in row
+     * major order
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public PlayerMapData downloadMap (PlayerMapInfo info, int tileSize,
+            int maxPending, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        byte[] cells = new byte[info.getWidth () * info.getHeight ()];
+        byte dataRange = downloadMap (info, ByteBuffer.wrap (cells), tileSize,
+                                      maxPending, timeout, unit);
+
+        PlayerMapData map = new PlayerMapData ();
+        map.setCol       (0);
+        map.setRow       (0);
+        map.setWidth     (info.getWidth  ());
+        map.setHeight    (info.getHeight ());
+        map.setDataRange (dataRange);
+        map.setData      (cells);
+        return map;
+    }
+
+    /**
+     * Download the whole grid map into the given buffer, which may be a
+     * direct buffer. The cells are written in row major order, starting at
+     * the position of the buffer; the position is left unchanged.
+     * @param info the map information (see requestMapInformation ())
+     * @param grid the buffer receiving the cells, with at least width *
+     * height bytes remaining
+     * @param tileSize width and height of the tiles [cells]
+     * @param maxPending maximum number of tile requests in flight
+     * @param timeout maximum time to wait for the whole map
+     * @param unit unit of the timeout
+     * @return the data range of the map (maximum cell value)
+     * @throws InterruptedException if the calling thread is interrupted
+     * @see #downloadMap(PlayerMapInfo, int, int, long, TimeUnit)
+     */
+    public byte downloadMap (PlayerMapInfo info, ByteBuffer grid, int tileSize,
+            int maxPending, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        int width  = info.getWidth  ();
+        int height = info.getHeight ();
+        if (tileSize < 1 || maxPending < 1)
+            throw new IllegalArgumentException
+                ("[Map] : Invalid tile size or number of pending requests");
+        if (grid.remaining () < width * height)
+            throw new IllegalArgumentException
+                ("[Map] : Grid buffer too small for a " + width + "x" +
+                        height + " map");
+
+        MapDownload d = new MapDownload (grid, width, height, maxPending);
+        synchronized (this) {
+            // An aborted download still draining its replies is replaced
+            if (download != null && !download.isDetached ())
+                throw new PlayerException
+                    ("[Map] : A map download is already in progress");
+            download = d;
+        }
+        try {
+            for (int row = 0; row < height; row += tileSize)
+                for (int col = 0; col < width; col += tileSize)
+                    d.toRequest.add (new int[] { col, row,
+                            Math.min (tileSize, width  - col),
+                            Math.min (tileSize, height - row) });
+            d.requestMore ();
+
+            long deadline = System.nanoTime () + unit.toNanos (timeout);
+            if (pc.isThreaded ())
+                d.await (deadline);
+            else
+                while (!d.isFinished ()) {
+                    if (System.nanoTime () - deadline >= 0)
+                        d.fail (new PlayerException
+                                ("[Map] : Timeout while downloading the map"));
+                    else
+                        pc.readAll ();
+                }
+            return d.getResult ();
+        } finally {
+            if (d.detach ())
+                releaseDownload (d);
+        }
+    }
+
+    // Forget a download once the replies to all its requests are in
+    private synchronized void releaseDownload (MapDownload d) {
+        if (download == d)
+            download = null;
+    }
+
+    /**
+     * Read the cells of a tile, uncompressing them if needed.
+     * @param xdr decoder positioned at the tile data
+     * @param dataCount size of the data on the wire [bytes]
+     * @param cells array receiving the cells
+     * @param cellsCount number of cells in the tile
+     */
+    private void readCells (XdrByteBufferDecodingStream xdr, int dataCount,
+            byte[] cells, int cellsCount)
+            throws IOException, OncRpcException, DataFormatException {
+        if (PLAYER_USE_COMPRESED_DATA == true)
+        {
+            if (compressed == null || compressed.length < dataCount)
+                compressed = new byte[dataCount];
+            // Compressed data (non XDR), padded to a multiple of 4
+            xdr.xdrDecodeOpaque (compressed, 0, dataCount);
+
+            // Uncompress the map data
+            inflater.reset ();
+            inflater.setInput (compressed, 0, dataCount);
+            int unzDataCount = inflater.inflate (cells, 0, cellsCount);
+            if (unzDataCount != cellsCount)
+                logger.log (Level.WARNING,
+                        "Uncompressed data size doesn't match cells number");
+        }
+        else
+        {
+            // Read uncompressed data
+            if (dataCount != cellsCount)
+                logger.log (Level.WARNING,
+                        "Uncompressed data size doesn't match cells number");
+            xdr.xdrDecodeOpaque (cells, 0, Math.min (dataCount, cellsCount));
+            if (dataCount > cellsCount)
+                xdr.skip (((dataCount + 3) & ~3) - ((cellsCount + 3) & ~3));
+        }
+    }
+
     /**
      * Request/reply: Get vector map.
      * <br><br>
@@ -190,14 +353,23 @@ public class MapInterface extends PlayerDevice {
      * See the player_map_data_vector structure from player.h
      */
     public void requestMapDataVector () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_MAP_REQ_GET_VECTOR, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Map] : Couldn't request PLAYER_MAP_REQ_GET_VECTOR: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_MAP_REQ_GET_VECTOR, 0);
+    }
+
+    /**
+     * Asynchronous variant of requestMapDataVector (): the vector map is
+     * delivered through the returned future.
+     * @param timeout maximum time to wait for the reply
+     * @param unit unit of the timeout
+     * @return a future completed with the vector map
+     * @see PlayerDevice#sendRequestAsync(int, long, TimeUnit, Runnable)
+     */
+    public CompletableFuture<PlayerMapDataVector> requestMapDataVectorAsync
+            (long timeout, TimeUnit unit) {
+        return sendRequestAsync (PLAYER_MAP_REQ_GET_VECTOR, timeout, unit,
+            new Runnable () {
+                public void run () { requestMapDataVector (); }
+            });
     }
 
     /**
@@ -205,75 +377,56 @@ public class MapInterface extends PlayerDevice {
      * @param header Player header
      */
     @SuppressWarnings("unused")
-    protected void handleResponse (PlayerMsgHdr header) {
+    protected synchronized void handleResponse (PlayerMsgHdr header) {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_MAP_REQ_GET_INFO: {
                     readMapInfo ();
                     readyPminfo = true;
+                    publishData (pminfo);
+                    completeReply (PLAYER_MAP_REQ_GET_INFO, pminfo);
                     break;
                 }
                 case PLAYER_MAP_REQ_GET_DATA: {
-                    // Buffer for reading col, row, width, height, data_count
-                    // NOTE: array_count extra 4 bytes are also returned
-                    byte[] buffer = new byte[28];
                     // Read col, row, width, height, data_count, data_range
-                    is.readFully (buffer, 0, 28);
+                    // NOTE: array_count extra 4 bytes are also returned
+                    XdrByteBufferDecodingStream xdr = readXdr (header.getSize ());
+                    int col       = xdr.xdrDecodeInt  ();
+                    int row       = xdr.xdrDecodeInt  ();
+                    int width     = xdr.xdrDecodeInt  ();
+                    int height    = xdr.xdrDecodeInt  ();
+                    int dataCount = xdr.xdrDecodeInt  ();
+                    byte dataRange = xdr.xdrDecodeByte ();
+                    xdr.xdrDecodeInt ();
+
+                    int cellsCount = width * height;
+                    MapDownload d = download;
+                    if (d != null && d.owns (col, row)) {
+                        // Part of a whole-map download
+                        byte[] cells = d.tileBuffer (cellsCount);
+                        readCells (xdr, dataCount, cells, cellsCount);
+                        if (d.tileReceived (col, row, width, height,
+                                            dataRange, cells))
+                            releaseDownload (d);
+                        break;
+                    }
 
                     pmdata = new PlayerMapData ();
+                    pmdata.setCol       (col);
+                    pmdata.setRow       (row);
+                    pmdata.setWidth     (width);
+                    pmdata.setHeight    (height);
+                    pmdata.setDataRange (dataRange);
 
-                    // Begin decoding the XDR buffer
-                    XdrBufferDecodingStream xdr = new XdrBufferDecodingStream (buffer);
-                    xdr.beginDecoding ();
-                    pmdata.setCol       (xdr.xdrDecodeInt ());
-                    pmdata.setRow       (xdr.xdrDecodeInt ());
-                    pmdata.setWidth     (xdr.xdrDecodeInt ());
-                    pmdata.setHeight    (xdr.xdrDecodeInt ());
-                    int dataCount      = xdr.xdrDecodeInt ();
-                    pmdata.setDataRange (xdr.xdrDecodeByte());
-                    xdr.endDecoding   ();
-                    xdr.close ();
-
-                    int cellsCount = pmdata.getWidth()*pmdata.getHeight();
-
-                    // Output buffer for uncompressed data
                     byte[] outBuffer = new byte[cellsCount];
-
-                    if (PLAYER_USE_COMPRESED_DATA == true)
-                    {
-                        // Buffer for reading compressed data (non XDR)
-                        buffer = new byte[dataCount];
-
-                        // Read compressed data
-                        is.readFully(buffer, 0, dataCount);
-
-                        // Uncompress the map data
-                        Inflater decomp = new Inflater ();
-                        decomp.setInput (buffer, 0, dataCount);
-                        int unzDataCount = decomp.inflate (outBuffer);
-                        if (unzDataCount != cellsCount)
-                            logger.log (Level.WARNING,
-                                    "Uncompressed data size doesn't match cells number");
-                    }
-                    else
-                    {
-                        // Read uncompressed data
-                        if (dataCount != cellsCount)
-                            logger.log (Level.WARNING,
-                                    "Uncompressed data size doesn't match cells number");
-                        is.readFully(outBuffer, 0, dataCount);
-                    }
-
+                    readCells (xdr, dataCount, outBuffer, cellsCount);
                     pmdata.setData (outBuffer);
 
-                    // Take care of the residual zero bytes
-                    if ((dataCount % 4) != 0)
-                        is.readFully (buffer, 0, 4 - (dataCount % 4));
-
                     logger.log (Level.INFO, "Map decompress: "
                             + pmdata.getData_count () + " bytes");
 
                     readyPmdata = true;
+                    publishData (pmdata);
 
                     break;
                 }
@@ -320,6 +473,8 @@ public class MapInterface extends PlayerDevice {
                     pmdatavector.setSegments (segments);
 
                     readyPmdatavector = true;
+                    publishData (pmdatavector);
+                    completeReply (PLAYER_MAP_REQ_GET_VECTOR, pmdatavector);
                     break;
                 }
                 default:{
@@ -355,7 +510,7 @@ public class MapInterface extends PlayerDevice {
      * Check if data is available. (map information)
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPminfo) {
             readyPminfo = false;
             return true;
@@ -373,7 +528,7 @@ public class MapInterface extends PlayerDevice {
      * Check if grid map tile data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isGridDataReady () {
+    public synchronized boolean isGridDataReady () {
         if (readyPmdata) {
             readyPmdata = false;
             return true;
@@ -391,11 +546,189 @@ public class MapInterface extends PlayerDevice {
      * Check if map data vector is available.
      * @return true if ready, false if not ready
      */
-    public boolean isMapDataVectorReady () {
+    public synchronized boolean isMapDataVectorReady () {
         if (readyPmdatavector) {
             readyPmdatavector = false;
             return true;
         }
         return false;
     }
+
+    /**
+     * Handle negative acknowledgements: a refused tile request aborts the
+     * map download in progress.
+     * @param header Player header
+     */
+    protected void handleNARMessage (PlayerMsgHdr header) {
+        MapDownload d = download;
+        if (d != null && header.getSubtype () == PLAYER_MAP_REQ_GET_DATA) {
+            if (d.refused ())
+                releaseDownload (d);
+        } else
+            super.handleNARMessage (header);
+    }
+
+    // State of a whole-map download
+    private final class MapDownload {
+        private final ByteBuffer grid;
+        private final int        base;
+        private final int        width;
+        private final int        maxPending;
+
+        // Tiles still to request, and requested tiles not received yet
+        final ArrayDeque<int[]>  toRequest = new ArrayDeque<int[]> ();
+        private final ArrayDeque<int[]> inFlight = new ArrayDeque<int[]> ();
+
+        private long             remaining;
+        private byte             dataRange;
+        private PlayerException  error;
+        private byte[]           tile;
+        // Set once downloadMap () has returned: the replies to the tiles
+        // still in flight are then discarded
+        private volatile boolean detached;
+
+        MapDownload (ByteBuffer grid, int width, int height, int maxPending) {
+            this.grid       = grid.duplicate ();
+            this.base       = grid.position ();
+            this.width      = width;
+            this.maxPending = maxPending;
+            this.remaining  = (long)width * height;
+        }
+
+        // Reusable buffer for the cells of one tile
+        byte[] tileBuffer (int cellsCount) {
+            if (tile == null || tile.length < cellsCount)
+                tile = new byte[cellsCount];
+            return tile;
+        }
+
+        synchronized void requestMore () {
+            while (error == null && inFlight.size () < maxPending &&
+                    !toRequest.isEmpty ()) {
+                int[] t = toRequest.poll ();
+                PlayerMapData pmd = new PlayerMapData ();
+                pmd.setCol    (t[0]);
+                pmd.setRow    (t[1]);
+                pmd.setWidth  (t[2]);
+                pmd.setHeight (t[3]);
+                inFlight.add (t);
+                try {
+                    requestMapData (pmd);
+                } catch (PlayerException e) {
+                    fail (e);
+                }
+            }
+        }
+
+        // Requested tile with the given origin, or null
+        private int[] findInFlight (int col, int row) {
+            for (int[] r : inFlight)
+                if (r[0] == col && r[1] == row)
+                    return r;
+            return null;
+        }
+
+        /**
+         * Check whether a tile reply is for this download: any reply while it
+         * runs, only the replies to its own requests once it is detached.
+         */
+        synchronized boolean owns (int col, int row) {
+            return !detached || findInFlight (col, row) != null;
+        }
+
+        /**
+         * Store a tile (or discard it if the download is over).
+         * @return true if the download is detached and no longer waits for
+         * any reply
+         */
+        synchronized boolean tileReceived (int col, int row, int w, int h,
+                                           byte newDataRange, byte[] cells) {
+            // Replies may come in any order: match them by their origin,
+            // which is unique among the requested tiles
+            int[] t = findInFlight (col, row);
+            if (t != null)
+                inFlight.remove (t);
+            if (error != null || detached)
+                return detached && inFlight.isEmpty ();
+            if (t == null || w <= 0 || h <= 0 || w > t[2] || h > t[3]) {
+                fail (new PlayerException ("[Map] : Unexpected tile " + w +
+                        "x" + h + " at " + col + "," + row));
+                return false;
+            }
+            for (int y = 0; y < h; y++) {
+                grid.position (base + (row + y) * width + col);
+                grid.put (cells, y * w, w);
+            }
+            dataRange  = (byte)Math.max (dataRange, newDataRange);
+            remaining -= (long)w * h;
+
+            // The server may send less than requested: ask for the rest
+            if (w < t[2])
+                toRequest.addFirst (new int[] { col + w, row, t[2] - w, h });
+            if (h < t[3])
+                toRequest.addFirst (new int[] { col, row + h, t[2], t[3] - h });
+
+            if (remaining <= 0)
+                notifyAll ();
+            else
+                requestMore ();
+            return false;
+        }
+
+        /**
+         * Handle a refused tile request. NACKs carry no tile origin, so the
+         * oldest request is taken as the refused one.
+         * @return true if the download is detached and no longer waits for
+         * any reply
+         */
+        synchronized boolean refused () {
+            inFlight.poll ();
+            if (!detached)
+                fail (new PlayerException
+                        ("[Map] : PLAYER_MAP_REQ_GET_DATA refused by the " +
+                                "server"));
+            return detached && inFlight.isEmpty ();
+        }
+
+        /**
+         * Called when downloadMap () returns, successfully or not.
+         * @return true if no reply is awaited any more
+         */
+        synchronized boolean detach () {
+            detached = true;
+            return inFlight.isEmpty ();
+        }
+
+        boolean isDetached () {
+            return detached;
+        }
+
+        synchronized void fail (PlayerException e) {
+            if (error == null)
+                error = e;
+            notifyAll ();
+        }
+
+        synchronized boolean isFinished () {
+            return error != null || remaining <= 0;
+        }
+
+        synchronized void await (long deadline) throws InterruptedException {
+            while (!isFinished ()) {
+                long left = deadline - System.nanoTime ();
+                if (left <= 0) {
+                    fail (new PlayerException
+                            ("[Map] : Timeout while downloading the map"));
+                    break;
+                }
+                TimeUnit.NANOSECONDS.timedWait (this, left);
+            }
+        }
+
+        synchronized byte getResult () {
+            if (error != null)
+                throw error;
+            return dataRange;
+        }
+    }
 }
@@ -0,0 +1,422 @@
+/*
+ *  Player Java Client 3 - OccupancyGrid.java
+ *  Copyright (C) 2002-2006 Radu Bogdan Rusu, Maxim Batalin
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * $Id$
+ *
+ */
+package javaclient3;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+import javaclient3.structures.PlayerPose2d;
+import javaclient3.structures.map.PlayerMapData;
+import javaclient3.structures.map.PlayerMapInfo;
+
+/**
+ * An occupancy grid map held outside the Java heap, with the queries used
+ * by localization and laser simulation: ray casting, distance to the
+ * nearest obstacle and likelihood field lookups.
+ * <br><br>
+ * Cells use the Player map convention: -1 is free, 0 is unknown and +1 is
+ * occupied; any positive value is treated as an obstacle. Cell (0, 0) is
+ * the lower left cell of the map, and covers the square of side scale
+ * starting at the map origin. The orientation of the origin is ignored.
+ * <br><br>
+ * The cells can live in any ByteBuffer, e.g. a direct buffer filled by
+ * {@link MapInterface#downloadMap(PlayerMapInfo, ByteBuffer, int, int, long,
+ * TimeUnit)} or a memory-mapped file. The distance transform and the
+ * likelihood field are computed once, on demand, into direct buffers. All
+ * queries are thread-safe.
+ * @version
+ * <ul>
+ *      <li>v3.0 - Player 3.0 supported
+ * </ul>
+ */
+public class OccupancyGrid {
+
+    // Squared distance used for cells without any obstacle (in cells^2)
+    private static final double FAR = 1e20;
+
+    private final int        width;
+    private final int        height;
+    private final double     scale;
+    private final double     originX;
+    private final double     originY;
+    private final ByteBuffer cells;
+
+    // Distance to the nearest obstacle [m], clamped to maxDistance
+    private volatile FloatBuffer distances;
+    private double               maxDistance;
+
+    // exp (-d^2 / (2 sigma^2)) for every cell
+    private volatile FloatBuffer likelihoods;
+    private double               sigma;
+
+    /**
+     * Create a grid over the given cells, which are not copied.
+     * @param info the map information (size, scale and origin)
+     * @param cells width * height cells in row major order, starting at the
+     * position of the buffer
+     */
+    public OccupancyGrid (PlayerMapInfo info, ByteBuffer cells) {
+        this.width   = info.getWidth  ();
+        this.height  = info.getHeight ();
+        this.scale   = info.getScale  ();
+        PlayerPose2d origin = info.getOrigin ();
+        this.originX = origin.getPx ();
+        this.originY = origin.getPy ();
+        if (cells.remaining () < width * height)
+            throw new IllegalArgumentException
+                ("[OccupancyGrid] : Buffer too small for a " + width + "x" +
+                        height + " map");
+        this.cells   = cells.slice ();
+    }
+
+    /**
+     * Create a grid from a whole map (see MapInterface.downloadMap ()). The
+     * cells are copied outside the Java heap.
+     * @param info the map information (size, scale and origin)
+     * @param map the map data, covering the whole map
+     */
+    public OccupancyGrid (PlayerMapInfo info, PlayerMapData map) {
+        this (info, copyDirect (map.getData ()));
+    }
+
+    /**
+     * Download a map straight into a direct buffer and wrap it in a grid.
+     * @param map the map interface
+     * @param info the map information (see MapInterface.getData ())
+     * @param tileSize width and height of the tiles [cells]
+     * @param maxPending maximum number of tile requests in flight
+     * @param timeout maximum time to wait for the whole map
+     * @param unit unit of the timeout
+     * @return the occupancy grid
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public static OccupancyGrid download (MapInterface map, PlayerMapInfo info,
+            int tileSize, int maxPending, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        ByteBuffer cells = ByteBuffer.allocateDirect
+            (info.getWidth () * info.getHeight ());
+        map.downloadMap (info, cells, tileSize, maxPending, timeout, unit);
+        return new OccupancyGrid (info, cells);
+    }
+
+    private static ByteBuffer copyDirect (byte[] data) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect (data.length);
+        buffer.put (data);
+        buffer.flip ();
+        return buffer;
+    }
+
+    /**
+     * @return width of the map [cells]
+     */
+    public int getWidth () {
+        return width;
+    }
+
+    /**
+     * @return height of the map [cells]
+     */
+    public int getHeight () {
+        return height;
+    }
+
+    /**
+     * @return size of a cell [m]
+     */
+    public double getScale () {
+        return scale;
+    }
+
+    /**
+     * @param x X coordinate [m]
+     * @return the column of the cell containing the point (possibly
+     * outside the map)
+     */
+    public int toCol (double x) {
+        return (int)Math.floor ((x - originX) / scale);
+    }
+
+    /**
+     * @param y Y coordinate [m]
+     * @return the row of the cell containing the point (possibly outside
+     * the map)
+     */
+    public int toRow (double y) {
+        return (int)Math.floor ((y - originY) / scale);
+    }
+
+    /**
+     * @param col column of the cell
+     * @param row row of the cell
+     * @return true if the cell is inside the map
+     */
+    public boolean contains (int col, int row) {
+        return col >= 0 && row >= 0 && col < width && row < height;
+    }
+
+    /**
+     * @param col column of the cell
+     * @param row row of the cell
+     * @return the value of the cell (-1 free, 0 unknown, +1 occupied), or 0
+     * outside the map
+     */
+    public int getCell (int col, int row) {
+        if (!contains (col, row))
+            return 0;
+        return cells.get (row * width + col);
+    }
+
+    /**
+     * @param x X coordinate [m]
+     * @param y Y coordinate [m]
+     * @return true if the point lies in an occupied cell
+     */
+    public boolean isOccupied (double x, double y) {
+        return getCell (toCol (x), toRow (y)) > 0;
+    }
+
+    /**
+     * Cast a ray through the grid (Amanatides-Woo traversal, visiting every
+     * cell the ray crosses) and return the distance to the first occupied
+     * cell. A ray leaving the map is considered to hit nothing.
+     * @param x X coordinate of the ray origin [m]
+     * @param y Y coordinate of the ray origin [m]
+     * @param angle direction of the ray [rad]
+     * @param maxRange maximum range [m]
+     * @return distance to the first obstacle [m], or maxRange if there is
+     * none within range
+     */
+    public double raycast (double x, double y, double angle, double maxRange) {
+        double cx = (x - originX) / scale;
+        double cy = (y - originY) / scale;
+        int    col = (int)Math.floor (cx);
+        int    row = (int)Math.floor (cy);
+        double dx  = Math.cos (angle);
+        double dy  = Math.sin (angle);
+
+        int    stepCol   = (dx > 0) ? 1 : -1;
+        int    stepRow   = (dy > 0) ? 1 : -1;
+        double deltaCol  = (dx != 0) ? Math.abs (1.0 / dx) : Double.MAX_VALUE;
+        double deltaRow  = (dy != 0) ? Math.abs (1.0 / dy) : Double.MAX_VALUE;
+        double nextCol   = (dx != 0) ?
+            ((dx > 0) ? (col + 1 - cx) : (cx - col)) * deltaCol :
+            Double.MAX_VALUE;
+        double nextRow   = (dy != 0) ?
+            ((dy > 0) ? (row + 1 - cy) : (cy - row)) * deltaRow :
+            Double.MAX_VALUE;
+        double maxCells  = maxRange / scale;
+        double t         = 0.0;
+
+        while (t <= maxCells) {
+            if (!contains (col, row))
+                return maxRange;
+            if (cells.get (row * width + col) > 0)
+                return t * scale;
+            if (nextCol < nextRow) {
+                t        = nextCol;
+                nextCol += deltaCol;
+                col     += stepCol;
+            } else {
+                t        = nextRow;
+                nextRow += deltaRow;
+                row     += stepRow;
+            }
+        }
+        return maxRange;
+    }
+
+    /**
+     * Cast a fan of rays from one point, e.g. to simulate a laser scan.
+     * @param x X coordinate of the rays origin [m]
+     * @param y Y coordinate of the rays origin [m]
+     * @param startAngle direction of the first ray [rad]
+     * @param resolution angle between consecutive rays [rad]
+     * @param count number of rays
+     * @param maxRange maximum range [m]
+     * @param ranges buffer receiving the ranges [m]
+     */
+    public void raycast (double x, double y, double startAngle,
+            double resolution, int count, double maxRange, float[] ranges) {
+        for (int i = 0; i < count; i++)
+            ranges[i] = (float)raycast (x, y, startAngle + i * resolution,
+                                        maxRange);
+    }
+
+    /**
+     * Compute the Euclidean distance transform of the map: the distance from
+     * every cell to the nearest occupied cell, clamped to maxDistance. Runs
+     * in time linear in the number of cells (Felzenszwalb-Huttenlocher).
+     * Called automatically by the first distance () query; calling it again
+     * with a different maxDistance recomputes the transform. The likelihood
+     * field is not affected: it is computed from distances of its own when
+     * the transform is clamped below 3 sigma.
+     * @param newMaxDistance largest distance of interest [m]
+     */
+    public synchronized void computeDistances (double newMaxDistance) {
+        if (distances != null && maxDistance == newMaxDistance)
+            return;
+        FloatBuffer d = distanceTransform (newMaxDistance);
+        maxDistance = newMaxDistance;
+        distances   = d;
+    }
+
+    // Distance transform clamped to max [m], in a new direct buffer
+    private FloatBuffer distanceTransform (double max) {
+        FloatBuffer d = ByteBuffer.allocateDirect (4 * width * height)
+            .order (ByteOrder.nativeOrder ()).asFloatBuffer ();
+        for (int i = 0; i < width * height; i++)
+            d.put (i, (cells.get (i) > 0) ? 0.0f : (float)FAR);
+
+        int      n = Math.max (width, height);
+        double[] f = new double[n];
+        double[] e = new double[n];
+        double[] z = new double[n + 1];
+        int[]    v = new int[n];
+
+        // Squared distances along the columns, then along the rows
+        for (int col = 0; col < width; col++) {
+            for (int row = 0; row < height; row++)
+                f[row] = d.get (row * width + col);
+            transform (f, height, e, v, z);
+            for (int row = 0; row < height; row++)
+                d.put (row * width + col, (float)e[row]);
+        }
+        float clamp = (float)max;
+        for (int row = 0; row < height; row++) {
+            int base = row * width;
+            for (int col = 0; col < width; col++)
+                f[col] = d.get (base + col);
+            transform (f, width, e, v, z);
+            for (int col = 0; col < width; col++)
+                d.put (base + col,
+                       Math.min (clamp, (float)(Math.sqrt (e[col]) * scale)));
+        }
+        return d;
+    }
+
+    // One-dimensional squared distance transform of f into e
+    private static void transform (double[] f, int n, double[] e, int[] v,
+                                   double[] z) {
+        int k = 0;
+        v[0] = 0;
+        z[0] = Double.NEGATIVE_INFINITY;
+        z[1] = Double.POSITIVE_INFINITY;
+        for (int q = 1; q < n; q++) {
+            // Intersection with the rightmost parabola kept so far; z[0]
+            // being -infinity, the loop never goes below the first one
+            double s = intersect (f, q, v[k]);
+            while (s <= z[k]) {
+                k--;
+                s = intersect (f, q, v[k]);
+            }
+            k++;
+            v[k]     = q;
+            z[k]     = s;
+            z[k + 1] = Double.POSITIVE_INFINITY;
+        }
+        k = 0;
+        for (int q = 0; q < n; q++) {
+            while (z[k + 1] < q)
+                k++;
+            double dq = q - v[k];
+            e[q] = dq * dq + f[v[k]];
+        }
+    }
+
+    // Abscissa where the parabolas rooted at q and p intersect
+    private static double intersect (double[] f, int q, int p) {
+        return ((f[q] + (double)q * q) - (f[p] + (double)p * p)) /
+            (2.0 * (q - p));
+    }
+
+    /**
+     * Distance from a point to the nearest occupied cell. Uses the distance
+     * transform, computed on the first call with a maximum distance of 2 m
+     * unless computeDistances () was called before.
+     * @param x X coordinate [m]
+     * @param y Y coordinate [m]
+     * @return distance to the nearest obstacle [m], clamped to the maximum
+     * distance; the maximum distance outside the map
+     */
+    public double distance (double x, double y) {
+        FloatBuffer d = distances;
+        if (d == null) {
+            computeDistances (2.0);
+            d = distances;
+        }
+        int col = toCol (x);
+        int row = toRow (y);
+        if (!contains (col, row))
+            return maxDistance;
+        return d.get (row * width + col);
+    }
+
+    /**
+     * Precompute the likelihood field used by beam-endpoint sensor models:
+     * exp (-d^2 / (2 sigma^2)) for every cell, d being the distance to the
+     * nearest obstacle. The distance transform is reused if it reaches at
+     * least 3 sigma, and computed up to 3 sigma otherwise (without replacing
+     * the one used by distance (), if any).
+     * @param newSigma standard deviation of the measurement noise [m]
+     */
+    public synchronized void computeLikelihoodField (double newSigma) {
+        if (likelihoods != null && sigma == newSigma)
+            return;
+        if (distances == null)
+            computeDistances (3.0 * newSigma);
+        FloatBuffer d = distances;
+        if (maxDistance < 3.0 * newSigma)
+            d = distanceTransform (3.0 * newSigma);
+        FloatBuffer l = ByteBuffer.allocateDirect (4 * width * height)
+            .order (ByteOrder.nativeOrder ()).asFloatBuffer ();
+        double k = -1.0 / (2.0 * newSigma * newSigma);
+        for (int i = 0; i < width * height; i++) {
+            double di = d.get (i);
+            l.put (i, (float)Math.exp (k * di * di));
+        }
+        sigma       = newSigma;
+        likelihoods = l;
+    }
+
+    /**
+     * Look up the likelihood field (see computeLikelihoodField ()) at a
+     * beam end point.
+     * @param x X coordinate [m]
+     * @param y Y coordinate [m]
+     * @return exp (-d^2 / (2 sigma^2)), or 0 outside the map
+     * @throws IllegalStateException if the likelihood field was not
+     * computed
+     */
+    public double likelihood (double x, double y) {
+        FloatBuffer l = likelihoods;
+        if (l == null)
+            throw new IllegalStateException
+                ("[OccupancyGrid] : Likelihood field not computed");
+        int col = toCol (x);
+        int row = toRow (y);
+        if (!contains (col, row))
+            return 0.0;
+        return l.get (row * width + col);
+    }
+}
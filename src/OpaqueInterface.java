@@ -92,7 +92,7 @@ public class OpaqueInterface extends PlayerDevice {
      * Check if data is available.
      * @return True if ready, false if not ready.
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPodata) {
             readyPodata = false;
             return true;
@@ -140,7 +140,7 @@ public class OpaqueInterface extends PlayerDevice {
      * Handle acknowledgement response messages.
      * @param header Player message header.
      */
-    public void handleResponse (PlayerMsgHdr header) {
+    public synchronized void handleResponse (PlayerMsgHdr header) {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_OPAQUE_REQ_DATA: {
@@ -175,16 +175,13 @@ public class OpaqueInterface extends PlayerDevice {
      */
     private void sendData (byte[] data, int subtype)
                    throws OncRpcException, IOException {
-        sendHeader (PLAYER_MSGTYPE_CMD, subtype, 8 + data.length);
-        XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8 + data.length);
-        xdr.beginEncoding (null, 0);
+        XdrBufferEncodingStream xdr = beginMessage
+            (PLAYER_MSGTYPE_CMD, subtype, 8 + data.length);
         xdr.xdrEncodeInt (data.length);
         xdr.xdrEncodeInt (data.length);
         xdr.xdrEncodeOpaque (data);
         xdr.endEncoding ();
-        os.write (xdr.getXdrData(), 0, xdr.getXdrLength());
-        xdr.close ();
-        os.flush ();
+        sendMessage (xdr);
     }
 
     /**
@@ -221,5 +218,6 @@ public class OpaqueInterface extends PlayerDevice {
         xdr.close ();
 
         readyPodata = true;
+        publishData (podata);
     }
 }
@@ -108,6 +108,7 @@ public class PlannerInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPpdata = true;
+                    publishData (ppdata);
                     break;
                 }
             }
@@ -128,16 +129,13 @@ public class PlannerInterface extends PlayerDevice {
      */
     public void setGoal (PlayerPose2d goal) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_PLANNER_CMD_GOAL, 24);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (24);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_PLANNER_CMD_GOAL, 24);
             xdr.xdrEncodeDouble (goal.getPx ());
             xdr.xdrEncodeDouble (goal.getPy ());
             xdr.xdrEncodeDouble (goal.getPa ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Planner] : Couldn't send new goals command: " +
@@ -155,15 +153,7 @@ public class PlannerInterface extends PlayerDevice {
      * See the player_planner_waypoints_req structure from player.h
      */
     public void getWaypoints () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_PLANNER_REQ_GET_WAYPOINTS, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Planner] : Couldn't request " + "" +
-                        "PLAYER_PLANNER_REQ_GET_WAYPOINTS: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_PLANNER_REQ_GET_WAYPOINTS, 0);
     }
 
     /**
@@ -178,14 +168,11 @@ public class PlannerInterface extends PlayerDevice {
      */
     public void setRobotMotion (int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_PLANNER_REQ_ENABLE, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_PLANNER_REQ_ENABLE, 4);
             xdr.xdrEncodeByte ((byte)state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Planner] : Couldn't request PLAYER_PLANNER_REQ_ENABLE: " +
@@ -201,7 +188,7 @@ public class PlannerInterface extends PlayerDevice {
      * Handle acknowledgement response messages.
      * @param header Player header
      */
-    protected void handleResponse (PlayerMsgHdr header) {
+    protected synchronized void handleResponse (PlayerMsgHdr header) {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_PLANNER_REQ_GET_WAYPOINTS: {
@@ -242,6 +229,7 @@ public class PlannerInterface extends PlayerDevice {
                     ppwaypoints.setWaypoints (waypoints);
 
                     readyPpWaypoints = true;
+                    publishData (ppwaypoints);
                     break;
                 }
                 case PLAYER_PLANNER_REQ_ENABLE: {
@@ -276,7 +264,7 @@ public class PlannerInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPpdata) {
             readyPpdata = false;
             return true;
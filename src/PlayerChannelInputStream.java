@@ -0,0 +1,196 @@
+/*
+ *  Player Java Client 3 - PlayerChannelInputStream.java
+ *  Copyright (C) 2002-2006 Radu Bogdan Rusu, Maxim Batalin
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * $Id$
+ *
+ */
+package javaclient3;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.SocketChannel;
+
+import javaclient3.structures.PlayerMsgHdr;
+
+/**
+ * Input stream backed by a SocketChannel. Data is read from the network in
+ * large chunks into a single reusable direct ByteBuffer, so the many small
+ * readFully () calls issued while decoding a Player message are served from
+ * memory instead of going down to the socket each time. The buffer itself
+ * can also be accessed through {@link #require(int)} in order to decode
+ * data straight out of it.
+ * @version
+ * <ul>
+ *      <li>v3.0 - Player 3.0 supported
+ * </ul>
+ */
+class PlayerChannelInputStream extends InputStream {
+
+    /**
+     * Default size of the read buffer, in bytes.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final SocketChannel channel;
+
+    // Unread data is always kept between position () and limit ()
+    private ByteBuffer buffer;
+
+    /**
+     * Constructor for PlayerChannelInputStream.
+     * @param channel the (connected) channel to read from
+     * @param bufferSize size of the read buffer, in bytes
+     */
+    PlayerChannelInputStream (SocketChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer  = ByteBuffer.allocateDirect (bufferSize);
+        this.buffer.flip ();
+    }
+
+    /**
+     * Read as much data as fits in the buffer, preserving the unread bytes.
+     * @return the number of bytes read, or -1 on end of stream
+     */
+    private int fill () throws IOException {
+        buffer.compact ();
+        try {
+            return channel.read (buffer);
+        } finally {
+            buffer.flip ();
+        }
+    }
+
+    /**
+     * Same as fill (), for the synchronous read paths: those must never be
+     * used once the channel is in non-blocking mode, as they would spin
+     * until the missing data arrives.
+     * @return the number of bytes read, or -1 on end of stream
+     */
+    private int fillBlocking () throws IOException {
+        if (!channel.isBlocking ())
+            throw new IllegalBlockingModeException ();
+        return fill ();
+    }
+
+    /**
+     * Make sure that at least <b>length</b> bytes are available in the read
+     * buffer, and return it. The returned buffer is positioned at the first
+     * unread byte (big-endian order); callers advance its position as they
+     * consume data. The buffer is grown if it is too small.
+     * @param length number of bytes needed
+     * @return the read buffer
+     */
+    ByteBuffer require (int length) throws IOException {
+        ensureCapacity (length);
+        while (buffer.remaining () < length)
+            if (fillBlocking () < 0)
+                throw new EOFException ();
+        return buffer;
+    }
+
+    /**
+     * Grow the read buffer so that it can hold at least <b>length</b> bytes,
+     * keeping the unread data.
+     * @param length number of bytes needed
+     */
+    private void ensureCapacity (int length) {
+        if (length <= buffer.capacity ())
+            return;
+        ByteBuffer larger = ByteBuffer.allocateDirect (length);
+        larger.put (buffer);
+        larger.flip ();
+        buffer = larger;
+    }
+
+    /**
+     * Read whatever the channel has to offer without waiting for more. Meant
+     * to be used in non-blocking mode, when the channel has been reported
+     * readable by a Selector.
+     * @return the number of bytes read, or -1 on end of stream
+     */
+    int readAvailable () throws IOException {
+        return fill ();
+    }
+
+    /**
+     * Check whether a complete Player message (header and payload) is held
+     * in the read buffer, so that it can be decoded without touching the
+     * network. The buffer is grown if the message is larger than it.
+     * @return true if a complete message is buffered
+     */
+    boolean hasMessage () {
+        int available = buffer.remaining ();
+        if (available < PlayerMsgHdr.PLAYERXDR_MSGHDR_SIZE)
+            return false;
+        // The payload size is the last field of the header
+        int length = PlayerMsgHdr.PLAYERXDR_MSGHDR_SIZE + buffer.getInt
+            (buffer.position () + PlayerMsgHdr.PLAYERXDR_MSGHDR_SIZE - 4);
+        ensureCapacity (length);
+        return available >= length;
+    }
+
+    /**
+     * Return the read buffer without reading from the network.
+     * @return the read buffer, positioned at the first unread byte
+     */
+    ByteBuffer getBuffer () {
+        return buffer;
+    }
+
+    public int read () throws IOException {
+        if (!buffer.hasRemaining () && fillBlocking () < 0)
+            return -1;
+        return buffer.get () & 0xFF;
+    }
+
+    public int read (byte[] b, int off, int len) throws IOException {
+        if (len == 0)
+            return 0;
+        if (!buffer.hasRemaining ()) {
+            // Large reads go straight into the destination array
+            if (len >= buffer.capacity () && channel.isBlocking ())
+                return channel.read (ByteBuffer.wrap (b, off, len));
+            if (fillBlocking () < 0)
+                return -1;
+        }
+        int n = Math.min (len, buffer.remaining ());
+        buffer.get (b, off, n);
+        return n;
+    }
+
+    public long skip (long n) throws IOException {
+        if (n <= 0)
+            return 0;
+        if (!buffer.hasRemaining () && fillBlocking () < 0)
+            return 0;
+        int skipped = (int)Math.min (n, buffer.remaining ());
+        buffer.position (buffer.position () + skipped);
+        return skipped;
+    }
+
+    public int available () throws IOException {
+        return buffer.remaining ();
+    }
+
+    public void close () throws IOException {
+        channel.close ();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ *  Player Java Client 3 - PlayerChannelOutputStream.java
+ *  Copyright (C) 2002-2006 Radu Bogdan Rusu, Maxim Batalin
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * $Id$
+ *
+ */
+package javaclient3;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Output stream writing to a SocketChannel. Unlike the stream returned by
+ * Channels.newOutputStream (), it keeps working once the channel has been
+ * handed over to a {@link PlayerClientManager} and switched to non-blocking
+ * mode: what the socket send buffer cannot take is queued, and written by
+ * the manager's selector thread as soon as the channel becomes writable
+ * again, so that neither the writer nor the selector thread ever waits.
+ * @version
+ * <ul>
+ *      <li>v3.0 - Player 3.0 supported
+ * </ul>
+ */
+class PlayerChannelOutputStream extends OutputStream {
+
+    /**
+     * Maximum number of bytes queued in non-blocking mode. Writes that would
+     * exceed it fail, as the server has obviously stopped reading.
+     */
+    public static final int MAX_PENDING = 16 * 1024 * 1024;
+
+    private final SocketChannel channel;
+
+    // Key of the channel with the manager's selector (non-blocking mode
+    // only), and the data still to be written (between 0 and position ())
+    private SelectionKey key;
+    private ByteBuffer   pending = ByteBuffer.allocate (0);
+
+    /**
+     * Constructor for PlayerChannelOutputStream.
+     * @param channel the (connected) channel to write to
+     */
+    PlayerChannelOutputStream (SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Switch the channel to non-blocking mode and register it with the given
+     * selector for reading. Writes issued from now on never block.
+     * @param selector the selector to register with
+     * @param attachment the object to attach to the key
+     * @return the selection key of the channel
+     */
+    synchronized SelectionKey register (Selector selector, Object attachment)
+            throws IOException {
+        channel.configureBlocking (false);
+        key = channel.register (selector, SelectionKey.OP_READ, attachment);
+        return key;
+    }
+
+    public void write (int b) throws IOException {
+        write (new byte[] { (byte)b }, 0, 1);
+    }
+
+    public synchronized void write (byte[] b, int off, int len)
+            throws IOException {
+        ByteBuffer src = ByteBuffer.wrap (b, off, len);
+        if (key == null) {
+            while (src.hasRemaining ())
+                channel.write (src);
+            return;
+        }
+        if (!key.isValid ())
+            throw new ClosedChannelException ();
+        // Bytes must go out in order: write directly only if none are queued
+        if (pending.position () == 0)
+            channel.write (src);
+        if (!src.hasRemaining ())
+            return;
+        queue (src);
+        key.interestOps (SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        key.selector ().wakeup ();
+    }
+
+    /**
+     * Append data to the pending queue, growing it if needed.
+     * @param src the data to append
+     */
+    private void queue (ByteBuffer src) throws IOException {
+        int needed = pending.position () + src.remaining ();
+        if (needed > pending.capacity ()) {
+            if (needed > MAX_PENDING)
+                throw new IOException ("Send queue overflow: the Player " +
+                        "server is not reading");
+            ByteBuffer larger = ByteBuffer.allocate (Math.min (MAX_PENDING,
+                        Math.max (needed, pending.capacity () * 2)));
+            pending.flip ();
+            larger.put (pending);
+            pending = larger;
+        }
+        pending.put (src);
+    }
+
+    /**
+     * Write as much of the queued data as the channel accepts. Called by the
+     * selector thread when the channel is reported writable; the interest in
+     * writability is dropped once the queue is empty.
+     */
+    synchronized void writePending () throws IOException {
+        pending.flip ();
+        try {
+            channel.write (pending);
+        } finally {
+            pending.compact ();
+        }
+        if (pending.position () == 0 && key.isValid ())
+            key.interestOps (SelectionKey.OP_READ);
+    }
+
+    public synchronized void close () throws IOException {
+        channel.close ();
+    }
+}
@@ -21,15 +21,22 @@
  */
 package javaclient3;
 
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
 import java.io.DataInputStream;
 import java.io.BufferedOutputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
-import java.util.Date;
-import java.util.Vector;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -72,6 +79,11 @@ public class PlayerClient extends Thread implements PlayerConstants {
     // Used for creating PlayerDevice type objects on requestDeviceAccess ()
     private PlayerDevice           newpd;
     private boolean                readyRequestDevice = false;
+    // Guards newpd/readyRequestDevice while waiting for PLAYER_PLAYER_REQ_DEV
+    private final Object           requestLock = new Object ();
+    private boolean                requestNacked;
+    // Set when the reader stops or the client is closed: no reply will come
+    private boolean                readerStopped;
 
     // Used for lookupName () and lookupCode ()
     private PlayerClientUtils      pcu = new PlayerClientUtils ();
@@ -79,6 +91,11 @@ public class PlayerClient extends Thread implements PlayerConstants {
     protected Socket socket;
     protected BufferedOutputStream buffer;
 
+    // Channel based transport (null when using a plain socket)
+    protected SocketChannel             channel;
+    protected PlayerChannelInputStream  channelIn;
+    protected PlayerChannelOutputStream channelOut;
+
     /**
      * The input stream for the socket connected to the player server.
      */
@@ -89,21 +106,72 @@ public class PlayerClient extends Thread implements PlayerConstants {
      */
     protected DataOutputStream os;
 
-    protected Vector<PlayerDevice> deviceList = new Vector<PlayerDevice>();
+    // Subscribed devices, indexed by their address
+    protected PlayerDeviceTable deviceList = new PlayerDeviceTable ();
 
     private boolean receivedAuthentication = false;
     private boolean readyPortNumber        = false;
 
     XdrBufferEncodingStream xdrbuffEnc;
 
+    // Reused header structures and XDR buffers (see readHeader/writeHeader)
+    private final PlayerMsgHdr            rxHeader = new PlayerMsgHdr  ();
+    private final PlayerDevAddr           rxAddr   = new PlayerDevAddr ();
+    private final byte[]                  rxBuffer =
+        new byte[PlayerMsgHdr.PLAYERXDR_MSGHDR_SIZE];
+    private final XdrBufferDecodingStream rxXdr    =
+        new XdrBufferDecodingStream (rxBuffer);
+    // Pool of reusable message encoders (see beginMessage/sendMessage)
+    private final ConcurrentLinkedQueue<XdrBufferEncodingStream> txPool =
+        new ConcurrentLinkedQueue<XdrBufferEncodingStream> ();
+    private final AtomicInteger txPoolSize = new AtomicInteger ();
+    // Outgoing frames, written to the network by the thread holding txLock,
+    // the frames written in the current pass, and the error which broke the
+    // connection, if any (see sendMessage)
+    private final ConcurrentLinkedQueue<TxFrame> txQueue =
+        new ConcurrentLinkedQueue<TxFrame> ();
+    private final ReentrantLock      txLock  = new ReentrantLock ();
+    private final ArrayList<TxFrame> txBatch = new ArrayList<TxFrame> ();
+    private IOException              txError;
+    // Sequence number of the last request sent (see nextRequestSeq)
+    private final AtomicInteger requestSeq = new AtomicInteger ();
+    private static final int TX_POOL_SIZE       = 8;
+    private static final int TX_MIN_BUFFER_SIZE = 256;
+    // Frames written after its own one by a thread sending a message
+    private static final int TX_MAX_BATCH       = 64;
+
+    // An outgoing message, and the outcome of its write (guarded by txLock)
+    private static final class TxFrame {
+        final XdrBufferEncodingStream xdr;
+        boolean                       done;
+        IOException                   error;
+
+        TxFrame (XdrBufferEncodingStream xdr) {
+            this.xdr = xdr;
+        }
+    }
+    private final PlayerDevAddr           serverAddr = new PlayerDevAddr ();
+
+    // Reused payload buffer and decoder (see readXdr)
+    private ByteBuffer                    rxPayload  = ByteBuffer.allocate (4096);
+    private final XdrByteBufferDecodingStream rxPayloadXdr =
+        new XdrByteBufferDecodingStream (rxPayload, 0);
+
     private int portNumber;
 
     private long    millis;
     private int     nanos;
     // Timeout for packets
 //    private long    timeout = 100;
-    private boolean isThreaded;
-    private boolean isRunning;
+    private volatile boolean isThreaded;
+    // true if the reader thread blocks on the socket instead of sleeping
+    private boolean isBlocking;
+    // the thread running run (): this, or a virtual thread
+    private Thread  reader;
+    // true once the connection is driven by a PlayerClientManager
+    private volatile boolean isSelected;
+    // true once close () has been called
+    private volatile boolean isClosed;
 
     // current data mode
     private int     datamode = PLAYER_DATAMODE_PUSH;
@@ -116,16 +184,46 @@ public class PlayerClient extends Thread implements PlayerConstants {
      * @param portNumber the port number of the Player server
      */
     public PlayerClient (String serverName, int portNumber) {
+        this (serverName, portNumber, false);
+    }
+
+    /**
+     * The PlayerClient constructor. Once called, it will connect to the
+     * Player server running on host <b>servername</b> on port <b>portNumber</b>.
+     * <br><br>
+     * If <b>useChannel</b> is set, the connection is backed by a SocketChannel
+     * and incoming data is read in large chunks into a single reusable direct
+     * buffer, from which message headers and device data are decoded. This
+     * greatly reduces the number of system calls issued per message.
+     * @param serverName url of the host running Player
+     * @param portNumber the port number of the Player server
+     * @param useChannel true to use the SocketChannel transport, false to use
+     * a plain blocking socket
+     */
+    public PlayerClient (String serverName, int portNumber, boolean useChannel) {
         try {
             // init
             isThreaded = false;
-            isRunning  = false;
-
-            // initialize network connection
-            socket = new Socket (serverName, portNumber);
-            // open the proper streams (I/O)
-            is     = new DataInputStream (socket.getInputStream ());
-            buffer = new BufferedOutputStream (socket.getOutputStream (), 128);
+            isBlocking = false;
+            rxHeader.setAddr (rxAddr);
+            serverAddr.setInterf (PLAYER_PLAYER_CODE);
+
+            // initialize network connection and open the proper streams (I/O)
+            if (useChannel) {
+                channel = SocketChannel.open
+                    (new InetSocketAddress (serverName, portNumber));
+                channel.socket ().setTcpNoDelay (true);
+                socket     = channel.socket ();
+                channelIn  = new PlayerChannelInputStream
+                    (channel, PlayerChannelInputStream.DEFAULT_BUFFER_SIZE);
+                is         = new DataInputStream (channelIn);
+                channelOut = new PlayerChannelOutputStream (channel);
+                buffer     = new BufferedOutputStream (channelOut, 128);
+            } else {
+                socket = new Socket (serverName, portNumber);
+                is     = new DataInputStream (socket.getInputStream ());
+                buffer = new BufferedOutputStream (socket.getOutputStream (), 128);
+            }
             os     = new DataOutputStream (new DataOutputStream (buffer));
 
             String ident = "";
@@ -211,29 +309,141 @@ public class PlayerClient extends Thread implements PlayerConstants {
         readAll ();
           }
   */
-            // close all sockets
-            this.setNotThreaded ();
+            // close all sockets; closing the socket is what stops the reader
+            // thread if it is blocked waiting for data
+            isClosed   = true;
+            isThreaded = false;
             os.close     ();
             buffer.close ();
             is.close     ();
             socket.close ();
+            joinReader ();
         } catch (IOException e) {
             throw new PlayerException
                 ("[PlayerClient]: Error in PlayerClient stop: " +
                         e.toString (), e);
+        } finally {
+            signalReaderStopped ();
+        }
+    }
+
+    /**
+     * Record that no reply will be read any more (the reader thread exited,
+     * or the client was closed), and wake up the threads waiting for one.
+     */
+    private void signalReaderStopped () {
+        synchronized (requestLock) {
+            readerStopped = true;
+            requestLock.notifyAll ();
+        }
+    }
+
+    /**
+     * Mark the client as threaded, before its reader starts.
+     */
+    private void readerStarting () {
+        isThreaded = true;
+        synchronized (requestLock) {
+            readerStopped = false;
         }
     }
 
     /**
      * Change the mode Javaclient runs to non-threaded.
-     * NOTE: waits for thread to stop
+     * NOTE: waits for thread to stop (in blocking mode, after the message it
+     * is currently waiting for has been read). Not available for connections
+     * driven by a {@link PlayerClientManager}, which stay non-blocking until
+     * they are closed.
      */
     public void setNotThreaded() {
+        if (isSelected)
+            throw new PlayerException ("[PlayerClient]: Client is driven " +
+                    "by a PlayerClientManager and can't be read synchronously");
         if (!isThreaded)
             return;
         isThreaded = false;
-        while (isRunning == true) // wait to exit run thread
-            try { Thread.sleep (10); } catch (Exception e) { }
+        joinReader ();
+    }
+
+    /**
+     * Wait for the reader thread to exit, unless called from the reader
+     * thread itself (e.g. from a data listener).
+     */
+    private void joinReader () {
+        Thread t = reader;
+        if (t == null || t == Thread.currentThread ())
+            return;
+        boolean interrupted = false;
+        while (t.isAlive ())
+            try {
+                t.join ();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        if (interrupted)
+            Thread.currentThread ().interrupt ();
+    }
+
+    /**
+     * Start a threaded copy of Javaclient which blocks on the socket and
+     * dispatches every message to its device as soon as it arrives, without
+     * sleeping between reads. In PLAYER_DATAMODE_PULL mode, a new round of
+     * data is requested as soon as the previous one has been received.
+     * <br><br>
+     * The thread stops when close () is called, which closes the socket
+     * under it, or after the message it is waiting for when
+     * setNotThreaded () is called. Interrupting it is not a way to stop it:
+     * a blocked socket read ignores interrupts, and on the SocketChannel
+     * transport an interrupt closes the connection.
+     */
+    public void runThreaded () {
+        if (isThreaded) {
+            logger.log (Level.WARNING, "[PlayerClient]: A second call for runThreaded, ignoring!");
+            return;
+        }
+        this.isBlocking = true;
+        readerStarting ();
+        reader      = this;
+        this.start ();
+    }
+
+    /**
+     * Same as {@link #runThreaded()}, but the reader loop runs on a virtual
+     * thread (Java 21 and later; a daemon platform thread on older runtimes).
+     * Thousands of connections can be read this way without dedicating an
+     * operating system thread to each of them. Data listeners can be run on
+     * virtual threads as well, by registering them with
+     * {@link VirtualThreads#executor()}.
+     * <br><br>
+     * NOTE: the reader blocks on the socket while holding the monitor of the
+     * device being read (readData () is synchronized), and writers block
+     * inside synchronized stream methods. Before Java 24 a virtual thread
+     * blocking in a synchronized block pins its carrier thread, so there is
+     * no scaling benefit over {@link #runThreaded()} on those runtimes: use
+     * a {@link PlayerClientManager} to serve many connections there.
+     * <br><br>
+     * The thread stops when setNotThreaded () or close () is called (see
+     * {@link #runThreaded()}).
+     */
+    public void runThreadedVirtual () {
+        if (isThreaded) {
+            logger.log (Level.WARNING, "[PlayerClient]: A second call for runThreaded, ignoring!");
+            return;
+        }
+        this.isBlocking = true;
+        readerStarting ();
+        reader      = VirtualThreads.newThread (this, getName ());
+        reader.start ();
+    }
+
+    /**
+     * Return the thread reading from the Player server in threaded mode:
+     * this object itself, or the virtual thread started by
+     * runThreadedVirtual ().
+     * @return the reader thread, or null if the client never ran threaded
+     */
+    public Thread getReaderThread () {
+        return reader;
     }
 
     /**
@@ -248,7 +458,8 @@ public class PlayerClient extends Thread implements PlayerConstants {
         }
         this.millis = millis;
         this.nanos  = nanos;
-        isThreaded  = true;
+        readerStarting ();
+        reader      = this;
         this.start ();
     }
 
@@ -256,9 +467,8 @@ public class PlayerClient extends Thread implements PlayerConstants {
      * Start the Javaclient thread. Ran automatically from runThreaded ().
      */
     public void run () {
-        isRunning = true;
         try {
-            while (isThreaded) {
+            while (isThreaded && !Thread.currentThread ().isInterrupted ()) {
                 if (this.datamode == PLAYER_DATAMODE_PULL) {
                     this.requestData ();
                     while (read () != PLAYER_MSGTYPE_SYNCH && isThreaded);
@@ -267,6 +477,8 @@ public class PlayerClient extends Thread implements PlayerConstants {
 //                    while (read () != PLAYER_MSGTYPE_SYNCH && isThreaded);
                     read ();
 
+                if (isBlocking)
+                    continue;
                 if (millis < 0)
                     Thread.yield ();
                 else
@@ -275,10 +487,72 @@ public class PlayerClient extends Thread implements PlayerConstants {
                     else
                         Thread.sleep (millis, nanos);
             }
-        } catch (InterruptedException e) { throw new PlayerException (e); }
-//        } catch (IOException e) { throw new PlayerException (e); }
+        } catch (InterruptedException e) {
+            // interrupted while sleeping: stop reading
+        } catch (PlayerException e) {
+            // the connection was closed by close () underneath us
+            if (!isClosed)
+                throw e;
+        } finally {
+            isThreaded = false;
+            signalReaderStopped ();
+        }
+    }
 
-        isRunning = false;    // sync with setNotThreaded
+    /**
+     * Hand the connection over to a {@link PlayerClientManager}: the client
+     * behaves from now on as if it were running threaded, its messages being
+     * read and dispatched by the manager's selector thread. The synchronous
+     * read paths are no longer available.
+     */
+    void startSelected () throws IOException {
+        if (channel == null)
+            throw new PlayerException ("[PlayerClient]: Only clients " +
+                    "created with the SocketChannel transport can be managed");
+        if (isThreaded)
+            throw new PlayerException ("[PlayerClient]: Client is already " +
+                    "running threaded");
+        readerStarting ();
+        isSelected = true;
+        if (this.datamode == PLAYER_DATAMODE_PULL)
+            this.requestData ();
+    }
+
+    /**
+     * Switch the channel to non-blocking mode and register it for reading
+     * with the selector of a {@link PlayerClientManager}. From now on,
+     * outgoing messages the socket can't take at once are queued and
+     * written by the selector thread (see {@link #writeSelected()}).
+     * @param selector the selector of the manager's thread
+     * @return the selection key, with this client attached
+     */
+    SelectionKey registerSelected (Selector selector) throws IOException {
+        return channelOut.register (selector, this);
+    }
+
+    /**
+     * Write the queued outgoing data the channel accepts. Called by the
+     * selector thread of a {@link PlayerClientManager} when the channel is
+     * writable.
+     */
+    void writeSelected () throws IOException {
+        channelOut.writePending ();
+    }
+
+    /**
+     * Read the data available on a non-blocking channel and dispatch every
+     * complete message it holds to its device. Partial messages are kept in
+     * the read buffer until the rest arrives. Called by the selector thread
+     * of a {@link PlayerClientManager}.
+     * @return false if the server closed the connection
+     */
+    boolean readSelected () throws IOException {
+        int n = channelIn.readAvailable ();
+        while (channelIn.hasMessage ())
+            if (read () == PLAYER_MSGTYPE_SYNCH &&
+                    this.datamode == PLAYER_DATAMODE_PULL)
+                this.requestData ();
+        return n >= 0;
     }
 
     /**
@@ -297,39 +571,7 @@ public class PlayerClient extends Thread implements PlayerConstants {
      */
     private void sendHeader (int type, int subtype, int size) {
         try {
-            PlayerDevAddr devAddr = new PlayerDevAddr ();
-            devAddr.setHost   (0);
-            devAddr.setRobot  (0);
-            devAddr.setInterf (PLAYER_PLAYER_CODE);
-            devAddr.setIndex  (0);
-            Date d = new Date ();
-            double timestamp = d.getTime () / 1000;
-
-            XdrBufferEncodingStream xdr =
-                new XdrBufferEncodingStream (PlayerMsgHdr.PLAYERXDR_MSGHDR_SIZE);
-            xdr.beginEncoding (null, 0);
-            /* see player.h / player_msghdr for additional explanations */
-            /* The "host" on which the device resides */
-            xdr.xdrEncodeInt    (devAddr.getHost   ());
-            /* The "robot" or device collection in which the device resides */
-            xdr.xdrEncodeInt    (devAddr.getRobot  ());
-            /* The interface provided by the device; must be one of PLAYER_*_CODE */
-            xdr.xdrEncodeShort  (devAddr.getInterf ());
-            /* Which device of that interface */
-            xdr.xdrEncodeShort  (devAddr.getIndex  ());
-            /* Message type; must be one of PLAYER_MSGTYPE_* */
-            xdr.xdrEncodeByte   ((byte)type);
-            /* Message subtype; interface specific */
-            xdr.xdrEncodeByte   ((byte)subtype);
-            /* Time associated with message contents (seconds since epoch) */
-            xdr.xdrEncodeDouble (timestamp);
-            /* For keeping track of associated messages. */
-            xdr.xdrEncodeInt    (0);
-            /* Size in bytes of the payload to follow */
-            xdr.xdrEncodeInt    (size);
-            xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, PlayerMsgHdr.PLAYERXDR_MSGHDR_SIZE);
-            xdr.close ();
+            sendMessage (beginMessage (serverAddr, type, subtype, size));
         } catch (IOException e) {
             throw new PlayerException
                 ("[PlayerClient]: Error sending header: " +
@@ -341,39 +583,207 @@ public class PlayerClient extends Thread implements PlayerConstants {
         }
     }
 
+    /**
+     * Return a new sequence number for an outgoing request. The numbers are
+     * unique on the connection (until they wrap around) and never 0, which
+     * marks messages that are not part of a request/reply exchange.
+     * @return the sequence number
+     */
+    int nextRequestSeq () {
+        int seq;
+        do {
+            seq = requestSeq.incrementAndGet ();
+        } while (seq == 0);
+        return seq;
+    }
+
+    /**
+     * Starts a new outgoing message. A reusable encoder is taken from the
+     * connection's pool and the Player message header is XDR-encoded into
+     * it; the payload is then encoded into the same stream, right after the
+     * header, and the message is sent with {@link #sendMessage}. Requests
+     * are given a new sequence number (see {@link #nextRequestSeq}), echoed
+     * by the server in the reply; other messages a sequence number of 0.
+     * @param devAddr address of the device the message is sent to
+     * @param type type of message (DATA, CMD, REQ, RESP_ACK, SYNCH, RESP_NACK)
+     * @param subtype subtype of message
+     * @param size size of the payload to follow
+     * @return the encoder, holding the header
+     */
+    XdrBufferEncodingStream beginMessage (PlayerDevAddr devAddr, int type,
+            int subtype, int size) throws IOException, OncRpcException {
+        int seq = type == PLAYER_MSGTYPE_REQ ? nextRequestSeq () : 0;
+        int capacity = (PlayerMsgHdr.PLAYERXDR_MSGHDR_SIZE + size + 3) & ~3;
+        XdrBufferEncodingStream xdr = txPool.poll ();
+        if (xdr != null)
+            txPoolSize.decrementAndGet ();
+        if (xdr == null || xdr.getXdrData ().length < capacity)
+            xdr = new XdrBufferEncodingStream
+                (Math.max (capacity, TX_MIN_BUFFER_SIZE));
+
+        double timestamp = System.currentTimeMillis () / 1000;
+
+        xdr.beginEncoding (null, 0);
+        /* see player.h / player_msghdr for additional explanations */
+        /* The "host" on which the device resides */
+        xdr.xdrEncodeInt    (devAddr.getHost   ());
+        /* The "robot" or device collection in which the device resides */
+        xdr.xdrEncodeInt    (devAddr.getRobot  ());
+        /* The interface provided by the device; must be one of PLAYER_*_CODE */
+        xdr.xdrEncodeShort  (devAddr.getInterf ());
+        /* Which device of that interface */
+        xdr.xdrEncodeShort  (devAddr.getIndex  ());
+        /* Message type; must be one of PLAYER_MSGTYPE_* */
+        xdr.xdrEncodeByte   ((byte)type);
+        /* Message subtype; interface specific */
+        xdr.xdrEncodeByte   ((byte)subtype);
+        /* Time associated with message contents (seconds since epoch) */
+        xdr.xdrEncodeDouble (timestamp);
+        /* For keeping track of associated messages. */
+        xdr.xdrEncodeInt    (seq);
+        /* Size in bytes of the payload to follow */
+        xdr.xdrEncodeInt    (size);
+        return xdr;
+    }
+
+    /**
+     * Sends a message started with {@link #beginMessage}. This method can be
+     * called concurrently by any number of threads: complete frames are put
+     * on a lock-free queue, and the thread holding the writer lock writes out
+     * the frames queued up to its own one (those of the threads waiting for
+     * the lock) and at most TX_MAX_BATCH more, each frame in a single write,
+     * then flushes once. A thread whose frame was written by another one
+     * returns as soon as it gets the lock, so the call only returns once the
+     * message is flushed. Messages sent by a given thread are always written
+     * in order. The encoder must not be used afterwards.
+     * <br><br>
+     * A write error breaks the connection: the frames still queued are
+     * discarded, so that nothing is written after a partial frame, and the
+     * error is thrown to every thread whose message was not sent, now or in
+     * any later call.
+     * @param xdr the encoder holding the message
+     * @throws IOException if the message could not be sent
+     */
+    void sendMessage (XdrBufferEncodingStream xdr) throws IOException {
+        TxFrame frame = new TxFrame (xdr);
+        txQueue.offer (frame);
+        txLock.lock ();
+        try {
+            if (!frame.done)
+                writeQueued (frame);
+        } finally {
+            txLock.unlock ();
+        }
+        if (frame.error != null)
+            throw new IOException ("Connection broken: " +
+                    frame.error.toString (), frame.error);
+    }
+
+    /**
+     * Write the queued frames up to the given one and at most TX_MAX_BATCH
+     * more, then flush. Called with txLock held.
+     * @param own the frame of the calling thread
+     */
+    private void writeQueued (TxFrame own) {
+        ArrayList<TxFrame> batch = txBatch;
+        IOException error = txError;
+        int extra = -1;
+        TxFrame next;
+        while (error == null && extra < TX_MAX_BATCH &&
+                (next = txQueue.poll ()) != null) {
+            batch.add (next);
+            if (next == own || extra >= 0)
+                extra++;
+            try {
+                os.write (next.xdr.getXdrData (), 0, next.xdr.getXdrLength ());
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        if (error == null) {
+            try {
+                os.flush ();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            // Nothing may be written after a partial frame
+            txError = error;
+            while ((next = txQueue.poll ()) != null)
+                batch.add (next);
+        }
+        for (TxFrame f : batch) {
+            f.done  = true;
+            f.error = error;
+            releaseEncoder (f.xdr);
+        }
+        batch.clear ();
+    }
+
+    /**
+     * Returns an encoder to the pool, unless the pool is already full.
+     * @param xdr the encoder
+     */
+    private void releaseEncoder (XdrBufferEncodingStream xdr) {
+        if (txPoolSize.incrementAndGet () <= TX_POOL_SIZE)
+            txPool.offer (xdr);
+        else
+            txPoolSize.decrementAndGet ();
+    }
+
     /**
      * Reads the Player message header from the network.
+     * <br><br>
+     * The header is decoded into a per-connection instance which is reused
+     * for every incoming message, so its contents are only valid until the
+     * next call. Devices that need to keep any of its fields must copy them.
+     * @return the decoded header
      */
     private PlayerMsgHdr readHeader () {
-        // Create two new empty structures to hold the header
-        PlayerMsgHdr  header  = new PlayerMsgHdr  ();
-        PlayerDevAddr devaddr = new PlayerDevAddr ();
+        PlayerMsgHdr  header  = rxHeader;
+        PlayerDevAddr devaddr = rxAddr;
 
         try {
-            byte[] buffer = new byte[PlayerMsgHdr.PLAYERXDR_MSGHDR_SIZE];
+            if (channelIn != null) {
+                // Decode the header straight out of the read buffer
+                ByteBuffer b = channelIn.require (PlayerMsgHdr.PLAYERXDR_MSGHDR_SIZE);
+                devaddr.setHost   (b.getInt ());
+                devaddr.setRobot  (b.getInt ());
+                devaddr.setInterf ((short)b.getInt ());
+                devaddr.setIndex  ((short)b.getInt ());
+
+                header.setType      ((byte)b.getInt ());
+                header.setSubtype   ((byte)b.getInt ());
+                header.setTimestamp (b.getDouble ());
+                header.setSeq       (b.getInt ());
+                header.setSize      (b.getInt ());
+                return header;
+            }
+
             // Read the header from the network
-            is.readFully (buffer, 0, PlayerMsgHdr.PLAYERXDR_MSGHDR_SIZE);
+            is.readFully (rxBuffer, 0, PlayerMsgHdr.PLAYERXDR_MSGHDR_SIZE);
 
             // Begin decoding the XDR buffer
-            XdrBufferDecodingStream xdr = new XdrBufferDecodingStream (buffer);
-            xdr.beginDecoding ();
+            rxXdr.beginDecoding ();
 
             // Decode the player_devaddr
-            devaddr.setHost   (xdr.xdrDecodeInt   ());
-            devaddr.setRobot  (xdr.xdrDecodeInt   ());
-            devaddr.setInterf (xdr.xdrDecodeShort ());
-            devaddr.setIndex  (xdr.xdrDecodeShort ());
-            header.setAddr (devaddr);
+            devaddr.setHost   (rxXdr.xdrDecodeInt   ());
+            devaddr.setRobot  (rxXdr.xdrDecodeInt   ());
+            devaddr.setInterf (rxXdr.xdrDecodeShort ());
+            devaddr.setIndex  (rxXdr.xdrDecodeShort ());
 
             // Decode the rest of the player_msghdr
-            header.setType      (xdr.xdrDecodeByte   ());
-            header.setSubtype   (xdr.xdrDecodeByte   ());
-            header.setTimestamp (xdr.xdrDecodeDouble ());
-            header.setSeq       (xdr.xdrDecodeInt    ());
-            header.setSize      (xdr.xdrDecodeInt    ());
-            xdr.endDecoding ();
-            xdr.close ();
+            header.setType      (rxXdr.xdrDecodeByte   ());
+            header.setSubtype   (rxXdr.xdrDecodeByte   ());
+            header.setTimestamp (rxXdr.xdrDecodeDouble ());
+            header.setSeq       (rxXdr.xdrDecodeInt    ());
+            header.setSize      (rxXdr.xdrDecodeInt    ());
+            rxXdr.endDecoding ();
         } catch (IOException e) {
+            if (isClosed)
+                // Stopped by close (): not an error worth logging
+                throw new PlayerException (e);
             throw new PlayerException
                 ("[PlayerClient]: Error reading header: "
                     + e.toString (), e);
@@ -385,6 +795,34 @@ public class PlayerClient extends Thread implements PlayerConstants {
         return header;
     }
 
+    /**
+     * Reads the next <b>length</b> bytes of the current message payload and
+     * returns a decoder over them. With the channel transport the data is
+     * decoded straight out of the read buffer; otherwise it is read into a
+     * reusable buffer. Either way exactly <b>length</b> bytes are consumed,
+     * whether or not they are all decoded. The decoder is shared by all the
+     * devices of this connection, and is only valid until the next call.
+     * @param length number of payload bytes to decode (multiple of four)
+     * @return a decoder positioned at the first byte
+     */
+    XdrByteBufferDecodingStream readXdr (int length) throws IOException {
+        if (channelIn != null) {
+            // Consume exactly length bytes, however many the device decodes
+            ByteBuffer buffer  = channelIn.require (length);
+            ByteBuffer payload = buffer.slice ();
+            payload.limit (length);
+            buffer.position (buffer.position () + length);
+            rxPayloadXdr.setXdrData (payload, length);
+            return rxPayloadXdr;
+        }
+        if (rxPayload.capacity () < length)
+            rxPayload = ByteBuffer.allocate (length);
+        is.readFully (rxPayload.array (), 0, length);
+        rxPayload.clear ();
+        rxPayloadXdr.setXdrData (rxPayload, length);
+        return rxPayloadXdr;
+    }
+
     /**
      * Request/reply: Get the list of available devices.
      * <br><br>
@@ -394,18 +832,12 @@ public class PlayerClient extends Thread implements PlayerConstants {
      */
     public void requestDeviceList () {
         try {
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8);
-            xdr.beginEncoding  (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage (serverAddr,
+                    PLAYER_MSGTYPE_REQ, PLAYER_PLAYER_REQ_DEVLIST, 8);
             xdr.xdrEncodeInt   (0);        // devices_count
             xdr.xdrEncodeInt   (0);        // array count
             xdr.endEncoding ();
-            int size = xdr.getXdrLength ();
-
-            sendHeader ((int)PLAYER_MSGTYPE_REQ, PLAYER_PLAYER_REQ_DEVLIST, size);
-
-            os.write (xdr.getXdrData (), 0, size);
-                  os.flush  ();
-                  xdr.close ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[PlayerClient]: Couldn't request device list: " +
@@ -429,9 +861,9 @@ public class PlayerClient extends Thread implements PlayerConstants {
     public void requestDriverInfo (PlayerDevAddr device) {
         try {
             // Encode the data into XDR format
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream
-                (PlayerDevAddr.PLAYERXDR_DEVADDR_SIZE + 8);
-            xdr.beginEncoding  (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage (serverAddr,
+                    PLAYER_MSGTYPE_REQ, PLAYER_PLAYER_REQ_DRIVERINFO,
+                    PlayerDevAddr.PLAYERXDR_DEVADDR_SIZE + 8);
             xdr.xdrEncodeInt   (device.getHost   ());
             xdr.xdrEncodeInt   (device.getRobot  ());
             xdr.xdrEncodeShort (device.getInterf ());
@@ -439,13 +871,7 @@ public class PlayerClient extends Thread implements PlayerConstants {
             xdr.xdrEncodeInt   (0);        // driver_name_count
             xdr.xdrEncodeInt   (0);        // array count
             xdr.endEncoding ();
-            int size = xdr.getXdrLength ();
-
-            sendHeader ((int)PLAYER_MSGTYPE_REQ, PLAYER_PLAYER_REQ_DRIVERINFO,
-                    size);
-            os.write (xdr.getXdrData (), 0, size);
-                  os.flush  ();
-                  xdr.close ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[PlayerClient]: Couldn't request device info: " +
@@ -518,10 +944,15 @@ public class PlayerClient extends Thread implements PlayerConstants {
             devAddr.setInterf(code);
             devAddr.setIndex(index);
 
+            synchronized (requestLock) {
+                readyRequestDevice = false;
+                requestNacked      = false;
+            }
+
             // Encode the data into XDR format
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream(
+            XdrBufferEncodingStream xdr = beginMessage(serverAddr,
+                    PLAYER_MSGTYPE_REQ, PLAYER_PLAYER_REQ_DEV,
                     PlayerDevAddr.PLAYERXDR_DEVADDR_SIZE + 12);
-            xdr.beginEncoding(null, 0);
             xdr.xdrEncodeInt(devAddr.getHost());
             xdr.xdrEncodeInt(devAddr.getRobot());
             xdr.xdrEncodeShort(devAddr.getInterf());
@@ -530,12 +961,7 @@ public class PlayerClient extends Thread implements PlayerConstants {
             xdr.xdrEncodeInt(0); // driver_name_count
             xdr.xdrEncodeInt(0); // array count
             xdr.endEncoding();
-            int size = xdr.getXdrLength();
-
-            sendHeader((int) PLAYER_MSGTYPE_REQ, PLAYER_PLAYER_REQ_DEV, size);
-            os.write(xdr.getXdrData(), 0, size);
-            os.flush();
-            xdr.close();
+            sendMessage(xdr);
 
             if (isThreaded) {
                 logger.log(Level.FINEST, "requestDeviceAccess () called while"
@@ -570,14 +996,7 @@ public class PlayerClient extends Thread implements PlayerConstants {
      * PLAYER_PLAYER_REQ_DATA request.
      */
     public void requestData () {
-        try {
-            sendHeader ((int)PLAYER_MSGTYPE_REQ, PLAYER_PLAYER_REQ_DATA, 0);
-                  os.flush  ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[PlayerClient]: Couldn't request data: " +
-                        e.toString (), e);
-        }
+        sendHeader ((int)PLAYER_MSGTYPE_REQ, PLAYER_PLAYER_REQ_DATA, 0);
     }
 
 
@@ -593,17 +1012,11 @@ public class PlayerClient extends Thread implements PlayerConstants {
         this.datamode = mode;
         try {
             // Encode the data into XDR format
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding  (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage (serverAddr,
+                    PLAYER_MSGTYPE_REQ, PLAYER_PLAYER_REQ_DATAMODE, 4);
             xdr.xdrEncodeInt   (mode);    // the requested mode
             xdr.endEncoding ();
-            int size = xdr.getXdrLength ();
-
-            sendHeader ((int)PLAYER_MSGTYPE_REQ, PLAYER_PLAYER_REQ_DATAMODE,
-                    size);
-            os.write (xdr.getXdrData (), 0, size);
-                  os.flush  ();
-                  xdr.close ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[PlayerClient]: Couldn't request change of datamode: " +
@@ -658,26 +1071,15 @@ public class PlayerClient extends Thread implements PlayerConstants {
                         " bytes");
 
             // Encode the data into XDR format
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8);
-            xdr.beginEncoding  (null, 0);
+            // Key bytes are padded with zeros to a multiple of 4
+            XdrBufferEncodingStream xdr = beginMessage (serverAddr,
+                    PLAYER_MSGTYPE_REQ, PLAYER_PLAYER_REQ_AUTH,
+                    8 + ((key.length + 3) & ~3));
             xdr.xdrEncodeInt   (key.length);          // length of key
             xdr.xdrEncodeByte  ((byte)key.length);    // length of key
+            xdr.xdrEncodeOpaque (key);
             xdr.endEncoding ();
-            int size = xdr.getXdrLength ();
-
-            sendHeader ((int)PLAYER_MSGTYPE_REQ, PLAYER_PLAYER_REQ_AUTH, size);
-            os.write (xdr.getXdrData (), 0, size);
-            xdr.close ();
-
-            int leftOvers = 0;
-            // Take care of the residual zero bytes
-            if ((key.length % 4) != 0)
-                leftOvers = 4 - (key.length % 4);
-            byte[] buf = new byte[leftOvers];
-
-            os.write (key);
-            os.write (buf, 0, leftOvers);
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[PlayerClient]: Couldn't request authentication: " +
@@ -706,27 +1108,16 @@ public class PlayerClient extends Thread implements PlayerConstants {
                         PLAYER_MAX_DRIVER_STRING_LEN + " bytes");
 
             // Encode the data into XDR format
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8);
-            xdr.beginEncoding  (null, 0);
+            // Name bytes are padded with zeros to a multiple of 4
+            byte[] bytes = new String (name).getBytes ();
+            XdrBufferEncodingStream xdr = beginMessage (serverAddr,
+                    PLAYER_MSGTYPE_REQ, PLAYER_PLAYER_REQ_NAMESERVICE,
+                    8 + ((bytes.length + 3) & ~3));
             xdr.xdrEncodeInt   (name.length);        // length of name
             xdr.xdrEncodeByte  ((byte)name.length);    // length of name
+            xdr.xdrEncodeOpaque (bytes);
             xdr.endEncoding ();
-            int size = xdr.getXdrLength ();
-
-            sendHeader ((int)PLAYER_MSGTYPE_REQ, PLAYER_PLAYER_REQ_NAMESERVICE,
-                    size);
-            os.write (xdr.getXdrData (), 0, size);
-            xdr.close ();
-
-            int leftOvers = 0;
-            // Take care of the residual zero bytes
-            if ((name.length % 4) != 0)
-                leftOvers = 4 - (name.length % 4);
-            byte[] buf = new byte[leftOvers];
-
-            os.write (new String (name).getBytes ());
-            os.write (buf, 0, leftOvers);
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[PlayerClient]: Couldn't request name service: " +
@@ -743,14 +1134,7 @@ public class PlayerClient extends Thread implements PlayerConstants {
      * [NOT IMPLEMENTED IN PLAYER2 YET?]
      */
     public void requestIdent () {
-        try {
-            sendHeader ((int)PLAYER_MSGTYPE_REQ, PLAYER_PLAYER_REQ_IDENT, 0);
-                  os.flush  ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[PlayerClient]: Couldn't request ident: " +
-                        e.toString (), e);
-        }
+        sendHeader ((int)PLAYER_MSGTYPE_REQ, PLAYER_PLAYER_REQ_IDENT, 0);
     }
 
 
@@ -776,21 +1160,15 @@ public class PlayerClient extends Thread implements PlayerConstants {
                                        int subtype, int replace) {
         try {
             // Encode the data into XDR format
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (20);
-            xdr.beginEncoding  (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage (serverAddr,
+                    PLAYER_MSGTYPE_REQ, PLAYER_PLAYER_REQ_ADD_REPLACE_RULE, 20);
             xdr.xdrEncodeInt   (interf);
             xdr.xdrEncodeInt   (index);
             xdr.xdrEncodeInt   (type);
             xdr.xdrEncodeInt   (subtype);
             xdr.xdrEncodeInt   (replace);
             xdr.endEncoding ();
-            int size = xdr.getXdrLength ();
-
-            sendHeader ((int)PLAYER_MSGTYPE_REQ,
-                    PLAYER_PLAYER_REQ_ADD_REPLACE_RULE, size);
-            os.write (xdr.getXdrData (), 0, size);
-            os.flush  ();
-            xdr.close ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[PlayerClient]: Couldn't request ADD_REPLACE_RULE: " +
@@ -810,12 +1188,32 @@ public class PlayerClient extends Thread implements PlayerConstants {
      * @return a PlayerDevice object containing the requested device
      */
     private PlayerDevice getRequestedDevice (int interf, int index) {
-        while (!readyRequestDevice);
-        PlayerDevAddr pda = newpd.getDeviceAddress ();
-        if ((pda.getInterf () == interf) && (pda.getIndex () == index))
-            return newpd;
-        else
-            return null;
+        // In threaded mode the reply is read by another thread
+        synchronized (requestLock) {
+            try {
+                while (!readyRequestDevice && !requestNacked &&
+                        !readerStopped)
+                    requestLock.wait ();
+            } catch (InterruptedException e) {
+                Thread.currentThread ().interrupt ();
+                throw new PlayerException
+                    ("[PlayerClient] Interrupted while waiting for " +
+                            pcu.lookupName ((short)interf) + ":" + index, e);
+            }
+            if (!readyRequestDevice && !requestNacked)
+                throw new PlayerException
+                    ("[PlayerClient] Connection lost while waiting for " +
+                            pcu.lookupName ((short)interf) + ":" + index);
+            if (!readyRequestDevice)
+                throw new PlayerException
+                    ("[PlayerClient] Negative acknowledgement received for " +
+                            pcu.lookupName ((short)interf) + ":" + index);
+            PlayerDevAddr pda = newpd.getDeviceAddress ();
+            if ((pda.getInterf () == interf) && (pda.getIndex () == index))
+                return newpd;
+            else
+                return null;
+        }
     }
 
     /**
@@ -1005,13 +1403,16 @@ public class PlayerClient extends Thread implements PlayerConstants {
                             // Create an instance of the actual object interface
                             PlayerDevice requestedpd =
                                 requestSatisfy (devAddr, access, new String (buffer));
-                            newpd = requestedpd;
 
                             // Take care of the residual zero bytes
                             if ((driverNameCount % 4) != 0)
                                 is.readFully (buffer, 0, 4 - (driverNameCount % 4));
 
-                            readyRequestDevice = true;
+                            synchronized (requestLock) {
+                                newpd = requestedpd;
+                                readyRequestDevice = true;
+                                requestLock.notifyAll ();
+                            }
                             break;
                         }
 
@@ -1071,7 +1472,17 @@ public class PlayerClient extends Thread implements PlayerConstants {
                     if (isDebugging)
                         logger.log (Level.FINEST, "[PlayerClient][Debug]: " +
                                 "Negative acknowledgement received");
-//                    deviceList[(int)device][(int)index].handleNARMessage ();
+                    if (header.getAddr ().getInterf () == PLAYER_PLAYER_CODE) {
+                        if (header.getSubtype () == PLAYER_PLAYER_REQ_DEV)
+                            synchronized (requestLock) {
+                                requestNacked = true;
+                                requestLock.notifyAll ();
+                            }
+                    } else {
+                        PlayerDevice pd = deviceList.get (header.getAddr ());
+                        if (pd != null)
+                            pd.handleNack (header);
+                    }
                     break;
                 }
 
@@ -1131,6 +1542,15 @@ public class PlayerClient extends Thread implements PlayerConstants {
         return devAddr;
     }
 
+    /**
+     * Check whether the messages from the server are read by another thread
+     * (threaded mode, or driven by a PlayerClientManager).
+     * @return true if running threaded
+     */
+    boolean isThreaded () {
+        return isThreaded;
+    }
+
     /**
      * Read the Player server replies in non-threaded mode.
      */
@@ -1161,44 +1581,25 @@ public class PlayerClient extends Thread implements PlayerConstants {
     }
 
     /**
-     * Calls the device's readData () method.
+     * Calls the device's readData () method, through handleData (), which
+     * then calls its data listeners.
      * @param header Player header
      */
     private void readDataDevice (PlayerMsgHdr header) {
-        PlayerDevAddr devAddr = header.getAddr ();
-
-        for (int i = 0; i < deviceList.size (); i++) {
-            PlayerDevAddr currAddr = ((PlayerDevice)deviceList.get (i)).getDeviceAddress ();
-            if ( currAddr.getHost   () == devAddr.getHost   () &&
-                 currAddr.getIndex  () == devAddr.getIndex  () &&
-                 currAddr.getInterf () == devAddr.getInterf () &&
-                 currAddr.getRobot  () == devAddr.getRobot  ()
-               ) {
-                ((PlayerDevice)deviceList.get (i)).readData (header);
-                break;
-            }
-        }
+        PlayerDevice pd = deviceList.get (header.getAddr ());
+        if (pd != null)
+            pd.handleData (header);
     }
 
     /**
-     * Calls the device's handleResponse () method in case of a REQ/REP.
+     * Calls the device's handleResponse () method in case of a REQ/REP,
+     * through handleAck (), which matches the reply to its request.
      * @param header Player header
      */
     private void handleRequestsDevice (PlayerMsgHdr header) {
-        PlayerDevAddr devAddr = header.getAddr ();
-
-        for (int i = 0; i < deviceList.size (); i++) {
-            PlayerDevAddr currAddr = ((PlayerDevice)deviceList.get (i)).getDeviceAddress ();
-            if ( currAddr.getHost   () == devAddr.getHost   () &&
-                 currAddr.getIndex  () == devAddr.getIndex  () &&
-                 currAddr.getInterf () == devAddr.getInterf () &&
-                 currAddr.getRobot  () == devAddr.getRobot  ()
-               ) {
-                ((PlayerDevice)deviceList.get (i)).handleResponse (header);
-                break;
-            }
-
-        }
+        PlayerDevice pd = deviceList.get (header.getAddr ());
+        if (pd != null)
+            pd.handleAck (header);
     }
 
     /**
@@ -1412,8 +1813,9 @@ public class PlayerClient extends Thread implements PlayerConstants {
             newpd.setDeviceAddress    (devAddr);
             newpd.setDeviceAccess     (access);
             newpd.setDeviceDriverName (driverName);
-            // add the device to the list
-            deviceList.add (newpd);
+            // add the device to the dispatch table (unless the address was
+            // already subscribed to: the first device keeps its messages)
+            deviceList.put (newpd);
         }
         return newpd;
     }
@@ -1523,11 +1925,13 @@ public class PlayerClient extends Thread implements PlayerConstants {
      * otherwise
      */
     public boolean isReadyRequestDevice () {
-        if (readyRequestDevice) {
-            readyRequestDevice = false;
-            return true;
+        synchronized (requestLock) {
+            if (readyRequestDevice) {
+                readyRequestDevice = false;
+                return true;
+            }
+            return false;
         }
-        return false;
     }
 
     /**
@@ -0,0 +1,248 @@
+/*
+ *  Player Java Client 3 - PlayerClientManager.java
+ *  Copyright (C) 2002-2006 Radu Bogdan Rusu, Maxim Batalin
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * $Id$
+ *
+ */
+package javaclient3;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Drives many Player server connections from a small, fixed number of
+ * threads, instead of one reader thread per PlayerClient. Each thread owns
+ * a NIO Selector; the connections are spread over the threads, and every
+ * message received is decoded and dispatched to its device exactly as in
+ * threaded mode, so all the interface APIs (getters, isDataReady (), data
+ * listeners, waitForData (), commands) keep working unchanged.
+ * <br><br>
+ * Usage:
+ * <pre>
+ *  PlayerClientManager manager = new PlayerClientManager (2);
+ *  PlayerClient robot = manager.connect ("localhost", 6665);
+ *  Position2DInterface pos = robot.requestInterfacePosition2D
+ *      (0, PLAYER_OPEN_MODE);
+ *  ...
+ *  manager.close ();
+ * </pre>
+ * Device callbacks run on the selector threads, so they should not block.
+ * Outgoing messages never block them either: what a socket can't take at
+ * once is queued, and written as soon as the socket is writable again.
+ * @version
+ * <ul>
+ *      <li>v3.0 - Player 3.0 supported
+ * </ul>
+ */
+public class PlayerClientManager {
+
+    // Logging support
+    private Logger logger = Logger.getLogger
+        (PlayerClientManager.class.getName ());
+
+    private final SelectorThread[] threads;
+    private final AtomicInteger    nextThread = new AtomicInteger ();
+    private volatile boolean       closed;
+
+    /**
+     * Create a manager running a single selector thread.
+     */
+    public PlayerClientManager () {
+        this (1);
+    }
+
+    /**
+     * Create a manager running the given number of selector threads.
+     * @param threadCount number of selector threads
+     */
+    public PlayerClientManager (int threadCount) {
+        if (threadCount < 1)
+            throw new IllegalArgumentException
+                ("[PlayerClientManager] : Need at least one thread");
+        threads = new SelectorThread[threadCount];
+        try {
+            for (int i = 0; i < threadCount; i++)
+                threads[i] = new SelectorThread (i);
+        } catch (IOException e) {
+            throw new PlayerException
+                ("[PlayerClientManager] : Couldn't open selector: " +
+                        e.toString (), e);
+        }
+        for (int i = 0; i < threadCount; i++)
+            threads[i].start ();
+    }
+
+    /**
+     * Connect to a Player server and have its connection driven by this
+     * manager.
+     * @param serverName address of the Player server
+     * @param portNumber port of the Player server
+     * @return the PlayerClient object, already running in threaded mode
+     */
+    public PlayerClient connect (String serverName, int portNumber) {
+        PlayerClient pc = new PlayerClient (serverName, portNumber, true);
+        manage (pc);
+        return pc;
+    }
+
+    /**
+     * Have an existing connection driven by this manager. The client must
+     * use the SocketChannel transport and must not be running threaded.
+     * It stays under the manager's control until it is closed.
+     * @param pc the PlayerClient object
+     */
+    public void manage (PlayerClient pc) {
+        if (closed)
+            throw new PlayerException
+                ("[PlayerClientManager] : Manager is closed");
+        try {
+            pc.startSelected ();
+            int i = (nextThread.getAndIncrement () & 0x7FFFFFFF) %
+                threads.length;
+            threads[i].register (pc);
+        } catch (IOException e) {
+            throw new PlayerException
+                ("[PlayerClientManager] : Couldn't register client: " +
+                        e.toString (), e);
+        }
+    }
+
+    /**
+     * Close all the managed connections and stop the selector threads.
+     */
+    public void close () {
+        closed = true;
+        for (int i = 0; i < threads.length; i++)
+            threads[i].selector.wakeup ();
+        for (int i = 0; i < threads.length; i++)
+            try {
+                threads[i].join ();
+            } catch (InterruptedException e) {
+                Thread.currentThread ().interrupt ();
+                return;
+            }
+    }
+
+    // A selector and the thread serving it
+    private final class SelectorThread extends Thread {
+        final Selector selector;
+
+        // Connections waiting to be registered with the selector
+        private final ConcurrentLinkedQueue<PlayerClient> pending =
+            new ConcurrentLinkedQueue<PlayerClient> ();
+
+        SelectorThread (int number) throws IOException {
+            super ("PlayerClientManager-" + number);
+            selector = Selector.open ();
+            setDaemon (true);
+        }
+
+        void register (PlayerClient pc) {
+            pending.offer (pc);
+            selector.wakeup ();
+        }
+
+        public void run () {
+            try {
+                while (!closed) {
+                    selector.select ();
+                    registerPending ();
+
+                    Iterator<SelectionKey> it =
+                        selector.selectedKeys ().iterator ();
+                    while (it.hasNext ()) {
+                        SelectionKey key = it.next ();
+                        it.remove ();
+                        if (key.isValid () && key.isWritable ())
+                            flush (key);
+                        if (key.isValid () && key.isReadable ())
+                            dispatch (key);
+                    }
+                }
+            } catch (IOException e) {
+                logger.log (Level.SEVERE, "[PlayerClientManager] : " +
+                        "Selector failed: " + e.toString (), e);
+            } finally {
+                for (SelectionKey key : selector.keys ())
+                    drop (key);
+                try {
+                    selector.close ();
+                } catch (IOException e) { }
+            }
+        }
+
+        private void registerPending () {
+            PlayerClient pc;
+            while ((pc = pending.poll ()) != null) {
+                try {
+                    SelectionKey key = pc.registerSelected (selector);
+                    // Messages may already be buffered from the handshake
+                    dispatch (key);
+                } catch (IOException e) {
+                    logger.log (Level.WARNING, "[PlayerClientManager] : " +
+                            "Couldn't register client: " + e.toString (), e);
+                    pc.close ();
+                }
+            }
+        }
+
+        private void dispatch (SelectionKey key) {
+            PlayerClient pc = (PlayerClient)key.attachment ();
+            try {
+                if (!pc.readSelected ()) {
+                    logger.log (Level.WARNING, "[PlayerClientManager] : " +
+                            "Connection closed by the Player server");
+                    drop (key);
+                }
+            } catch (IOException e) {
+                logger.log (Level.WARNING, "[PlayerClientManager] : " +
+                        "Read error: " + e.toString (), e);
+                drop (key);
+            } catch (PlayerException e) {
+                // Already logged/closed if the client was closed by the user
+                if (key.channel ().isOpen ())
+                    logger.log (Level.WARNING, "[PlayerClientManager] : " +
+                            e.getMessage (), e);
+                drop (key);
+            }
+        }
+
+        private void flush (SelectionKey key) {
+            try {
+                ((PlayerClient)key.attachment ()).writeSelected ();
+            } catch (IOException e) {
+                logger.log (Level.WARNING, "[PlayerClientManager] : " +
+                        "Write error: " + e.toString (), e);
+                drop (key);
+            }
+        }
+
+        private void drop (SelectionKey key) {
+            key.cancel ();
+            try {
+                ((PlayerClient)key.attachment ()).close ();
+            } catch (PlayerException e) { }
+        }
+    }
+}
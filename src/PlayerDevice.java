@@ -24,7 +24,21 @@ package javaclient3;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.util.Date;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -33,6 +47,7 @@ import javaclient3.structures.PlayerDevAddr;
 import javaclient3.structures.PlayerMsgHdr;
 import javaclient3.xdr.OncRpcException;
 import javaclient3.xdr.XdrBufferEncodingStream;
+import javaclient3.xdr.XdrByteBufferDecodingStream;
 
 /**
  * Abstract class for all Player interfaces.
@@ -57,7 +72,90 @@ public abstract class PlayerDevice implements PlayerConstants {
     protected DataInputStream  is;
     protected DataOutputStream os;
 
-    
+    // Registered data listeners (see addDataListener/publishData)
+    private final CopyOnWriteArrayList<DataListener> dataListeners =
+        new CopyOnWriteArrayList<DataListener> ();
+
+    // Data published by the reading thread while handling a message, handed
+    // to the listeners once the device is done with it (see handleData)
+    private final ArrayList<Object> published = new ArrayList<Object> ();
+    private volatile Thread         handlingThread;
+    // true while the reading thread handles a reply (see handleAck)
+    private boolean                 handlingReply;
+
+    // Number of data structures published so far, replies to requests
+    // excluded (see awaitData)
+    private final Object dataLock = new Object ();
+    private long         dataSequence;
+
+    // Requests sent by this device and not answered yet, by sequence number,
+    // in the order they were sent; the oldest ones are forgotten beyond
+    // MAX_IN_FLIGHT (e.g. when the server never answered them)
+    private static final int MAX_IN_FLIGHT = 256;
+    private final LinkedHashMap<Integer, PendingRequest> inFlight =
+        new LinkedHashMap<Integer, PendingRequest> () {
+            protected boolean removeEldestEntry
+                    (Map.Entry<Integer, PendingRequest> eldest) {
+                if (size () <= MAX_IN_FLIGHT)
+                    return false;
+                if (eldest.getValue ().reply != null)
+                    eldest.getValue ().reply.completeExceptionally
+                        (new PlayerException ("[PlayerDevice] : Too many " +
+                                "requests without reply"));
+                return true;
+            }
+        };
+
+    // Asynchronous request to be sent next by the current thread
+    private final ThreadLocal<PendingRequest> asyncRequest =
+        new ThreadLocal<PendingRequest> ();
+
+    // Request whose reply is being handled, and the decoded reply (used by
+    // the reading thread)
+    private PendingRequest answered;
+    private Object         answer;
+
+    // A request waiting for its reply, and the future receiving it (null
+    // for the synchronous requests)
+    private static final class PendingRequest {
+        final int                       subtype;
+        final CompletableFuture<Object> reply;
+
+        PendingRequest (int subtype, CompletableFuture<Object> reply) {
+            this.subtype = subtype;
+            this.reply   = reply;
+        }
+    }
+
+    // Timer failing the asynchronous requests which time out
+    private static final class ReplyTimer {
+        static final ScheduledThreadPoolExecutor TIMER;
+        static {
+            TIMER = new ScheduledThreadPoolExecutor (1, new ThreadFactory () {
+                public Thread newThread (Runnable task) {
+                    Thread t = new Thread (task, "javaclient-request-timer");
+                    t.setDaemon (true);
+                    return t;
+                }
+            });
+            TIMER.setRemoveOnCancelPolicy (true);
+        }
+    }
+
+    // A data listener and the way it wants to be notified
+    private static final class DataListener {
+        final Class<?>         type;
+        final Consumer<Object> consumer;
+        final Executor         executor;
+
+        DataListener (Class<?> type, Consumer<Object> consumer,
+                      Executor executor) {
+            this.type     = type;
+            this.consumer = consumer;
+            this.executor = executor;
+        }
+    }
+
     /**
      * Abstract constructor for each PlayerDevice.
      * @param plc a reference to the PlayerClient object
@@ -76,34 +174,7 @@ public abstract class PlayerDevice implements PlayerConstants {
      */
     protected void sendHeader (int type, int subtype, int size) {
         try {
-            Date d = new Date ();
-            double timestamp = d.getTime () / 1000;
-
-            XdrBufferEncodingStream xdr =
-                new XdrBufferEncodingStream (PlayerMsgHdr.PLAYERXDR_MSGHDR_SIZE);
-            xdr.beginEncoding (null, 0);
-            // see player.h / player_msghdr for additional explanations
-            // The "host" on which the device resides
-            xdr.xdrEncodeInt    (deviceAddress.getHost   ());
-            // The "robot" or device collection in which the device resides
-            xdr.xdrEncodeInt    (deviceAddress.getRobot  ());
-            // The interface provided by the device; must be one of PLAYER_*_CODE
-            xdr.xdrEncodeShort  (deviceAddress.getInterf ());
-            // Which device of that interface
-            xdr.xdrEncodeShort  (deviceAddress.getIndex  ());
-            // Message type; must be one of PLAYER_MSGTYPE_*
-            xdr.xdrEncodeByte   ((byte)type);
-            // Message subtype; interface specific
-            xdr.xdrEncodeByte   ((byte)subtype);
-            // Time associated with message contents (seconds since epoch)
-            xdr.xdrEncodeDouble (timestamp);
-            // For keeping track of associated messages.
-            xdr.xdrEncodeInt    (0);
-            // Size in bytes of the payload to follow
-            xdr.xdrEncodeInt    (size);
-            xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, PlayerMsgHdr.PLAYERXDR_MSGHDR_SIZE);
-            xdr.close ();
+            sendMessage (beginMessage (type, subtype, size));
         } catch (IOException e) {
             throw new PlayerException
                 ("[PlayerDevice] : Error sending header: " +
@@ -115,11 +186,467 @@ public abstract class PlayerDevice implements PlayerConstants {
         }
     }
 
+    /**
+     * Starts a new outgoing message for this device. The Player header is
+     * XDR-encoded into a reusable encoder taken from the connection; the
+     * payload is then encoded into the returned stream and the whole message
+     * is sent with {@link #sendMessage(XdrBufferEncodingStream)}. Requests
+     * are given a new sequence number.
+     * @param type type of message (DATA, CMD, REQ, RESP_ACK, SYNCH, RESP_NACK)
+     * @param subtype subtype of message
+     * @param size size of the payload to follow
+     * @return the encoder, positioned right after the header
+     */
+    protected XdrBufferEncodingStream beginMessage (int type, int subtype,
+            int size) throws OncRpcException, IOException {
+        return pc.beginMessage (deviceAddress, type, subtype, size);
+    }
+
+    /**
+     * Sends a message started with {@link #beginMessage(int, int, int)}:
+     * header and payload are written in one go and the output is flushed.
+     * Devices sharing the same connection can be commanded from different
+     * threads without any external locking. Requests are recorded as in
+     * flight while they are sent, so that their reply can be matched to
+     * them, and forgotten if they could not be sent. The encoder must not be
+     * used afterwards.
+     * @param xdr the encoder holding the message
+     */
+    protected void sendMessage (XdrBufferEncodingStream xdr)
+            throws IOException {
+        // Recorded first: the reply may be read before the call returns
+        int seq = recordRequest (xdr);
+        try {
+            pc.sendMessage (xdr);
+        } catch (IOException e) {
+            forgetRequest (seq);
+            throw e;
+        }
+    }
+
+    /**
+     * Record the request held by an encoder as in flight.
+     * @param xdr the encoder holding the message
+     * @return the sequence number of the message, 0 if it is not a request
+     */
+    private int recordRequest (XdrBufferEncodingStream xdr) {
+        // type, subtype and seq fields of the encoded Player header
+        ByteBuffer header = ByteBuffer.wrap (xdr.getXdrData ());
+        if (header.getInt (16) != PLAYER_MSGTYPE_REQ)
+            return 0;
+        int subtype = header.getInt (20);
+        int seq     = header.getInt (32);
+
+        // The first request sent by sendRequestAsync () gets its future
+        PendingRequest request = asyncRequest.get ();
+        if (request != null && request.subtype == subtype)
+            asyncRequest.set (null);
+        else
+            request = new PendingRequest (subtype, null);
+
+        synchronized (inFlight) {
+            inFlight.put (seq, request);
+        }
+        return seq;
+    }
+
+    // Forget a request which could not be sent
+    private void forgetRequest (int seq) {
+        synchronized (inFlight) {
+            inFlight.remove (seq);
+        }
+    }
+
+    private void forgetRequest (PendingRequest request) {
+        synchronized (inFlight) {
+            inFlight.values ().remove (request);
+        }
+    }
+
+    /**
+     * Remove the request answered by the given reply from the in-flight
+     * requests. The reply carries the sequence number of its request if the
+     * server echoes it; otherwise the server answers the requests of a
+     * device in order, and the oldest request of the same subtype is taken.
+     * @return the request, or null if it is unknown
+     */
+    private PendingRequest takeRequest (PlayerMsgHdr header) {
+        int seq     = header.getSeq ();
+        int subtype = header.getSubtype ();
+        synchronized (inFlight) {
+            if (seq != 0) {
+                PendingRequest request = inFlight.get (seq);
+                if (request == null || request.subtype != subtype)
+                    return null;
+                return inFlight.remove (seq);
+            }
+            Iterator<PendingRequest> it = inFlight.values ().iterator ();
+            while (it.hasNext ()) {
+                PendingRequest request = it.next ();
+                if (request.subtype == subtype) {
+                    it.remove ();
+                    return request;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the next <b>length</b> bytes of the current message payload and
+     * returns a decoder over them, able to decode whole numeric arrays in
+     * bulk. The decoder is shared by all the devices of the connection and
+     * is only valid until the next call.
+     * @param length number of payload bytes to decode (multiple of four)
+     * @return a decoder positioned at the first byte
+     */
+    protected XdrByteBufferDecodingStream readXdr (int length)
+            throws IOException {
+        return pc.readXdr (length);
+    }
+
     /**
      * Read the data.
      */
     public synchronized void readData (PlayerMsgHdr header) { }
 
+    /**
+     * Registers a listener which is called with every newly decoded data
+     * structure of the given type (for example PlayerPosition2dData or
+     * PlayerLaserGeom). The listener runs on the thread reading from the
+     * Player server, so it should return quickly; use
+     * {@link #addDataListener(Class, Consumer, Executor)} otherwise.
+     * <br><br>
+     * The structure passed to the listener is the one returned afterwards by
+     * the corresponding getter of the interface. Listeners are called once
+     * the interface has finished handling the message, without holding its
+     * monitor, so they may call back into the interface.
+     * @param type the class of the data structures to listen for
+     * @param listener the listener
+     */
+    public <T> void addDataListener (Class<T> type,
+                                     Consumer<? super T> listener) {
+        addDataListener (type, listener, null);
+    }
+
+    /**
+     * Registers a listener which is called with every newly decoded data
+     * structure of the given type. The listener is run through the given
+     * executor, so it does not hold up the thread reading from the server.
+     * <br><br>
+     * The listener gets the structure itself, not a copy. Several interfaces
+     * reuse their structures and arrays for later messages (e.g. the laser
+     * scans, ranger readings or localize particle sets, which alternate
+     * between two buffers, and the pooled camera frames), so by the time the
+     * listener runs the structure may already hold newer data, or be in the
+     * middle of being overwritten. Such listeners must copy what they need
+     * quickly, or be registered without an executor.
+     * @param type the class of the data structures to listen for
+     * @param listener the listener
+     * @param executor the executor running the listener, or null to run it
+     * directly on the reading thread
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void addDataListener (Class<T> type,
+                                     Consumer<? super T> listener,
+                                     Executor executor) {
+        if (type == null || listener == null)
+            throw new NullPointerException ();
+        dataListeners.add (new DataListener
+                (type, (Consumer<Object>)listener, executor));
+    }
+
+    /**
+     * Unregisters a listener added with addDataListener ().
+     * @param listener the listener
+     * @return true if the listener was registered
+     */
+    public boolean removeDataListener (Consumer<?> listener) {
+        for (DataListener dl : dataListeners)
+            if (dl.consumer == listener)
+                return dataListeners.remove (dl);
+        return false;
+    }
+
+    /**
+     * Called by the interfaces each time a new data structure has been
+     * decoded, right after the corresponding ready flag has been set. The
+     * structure is handed to all the listeners registered for its type; when
+     * called while the reading thread handles a message (from readData () or
+     * handleResponse ()), once the interface is done with the message.
+     * Only data messages advance the data sequence number; replies to
+     * requests (geometry, configuration, ...) are not samples to wait for.
+     * @param data the newly decoded data structure
+     */
+    protected void publishData (final Object data) {
+        if (data == null)
+            return;
+        // handlingReply is only ever written by the handling thread
+        if (Thread.currentThread () != handlingThread || !handlingReply)
+            synchronized (dataLock) {
+                dataSequence++;
+                dataLock.notifyAll ();
+            }
+        if (dataListeners.isEmpty ())
+            return;
+        if (Thread.currentThread () == handlingThread)
+            published.add (data);
+        else
+            notifyListeners (data);
+    }
+
+    /**
+     * Read a data message (see readData ()), then call the listeners for the
+     * data it published. Called by the PlayerClient.
+     * @param header a PlayerMsgHdr structure containing the Player header
+     */
+    void handleData (PlayerMsgHdr header) {
+        handlingThread = Thread.currentThread ();
+        try {
+            readData (header);
+        } finally {
+            dispatchPublished ();
+        }
+    }
+
+    // Call the listeners for the data published while handling a message
+    private void dispatchPublished () {
+        handlingThread = null;
+        if (published.isEmpty ())
+            return;
+        // A listener may read the next messages (readAll ()) itself
+        Object[] data = published.toArray ();
+        published.clear ();
+        for (Object d : data)
+            notifyListeners (d);
+    }
+
+    private void notifyListeners (final Object data) {
+        for (final DataListener dl : dataListeners) {
+            if (!dl.type.isInstance (data))
+                continue;
+            if (dl.executor == null)
+                notifyListener (dl, data);
+            else
+                dl.executor.execute (new Runnable () {
+                    public void run () { notifyListener (dl, data); }
+                });
+        }
+    }
+
+    /**
+     * Return the number of data structures (of any kind) published by this
+     * device so far, replies to requests excluded. The value can be passed to
+     * {@link #awaitData(long, long, TimeUnit)} to wait for the next one.
+     * @return the current data sequence number
+     */
+    public long getDataSequence () {
+        synchronized (dataLock) {
+            return dataSequence;
+        }
+    }
+
+    /**
+     * Block until the device publishes data newer than sequence number
+     * <b>seq</b>, or until the timeout expires. If newer data was already
+     * published the call returns immediately, so no sample is missed when the
+     * returned value is passed back in on the next call; the difference
+     * between two returned values tells how many samples were published in
+     * between.
+     * @param seq the last sequence number seen by the caller
+     * @param timeout maximum time to wait
+     * @param unit unit of the timeout
+     * @return the current sequence number, equal to <b>seq</b> if the
+     * timeout expired
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public long awaitData (long seq, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long deadline = System.nanoTime () + unit.toNanos (timeout);
+        synchronized (dataLock) {
+            while (dataSequence <= seq) {
+                long left = deadline - System.nanoTime ();
+                if (left <= 0)
+                    break;
+                TimeUnit.NANOSECONDS.timedWait (dataLock, left);
+            }
+            return dataSequence;
+        }
+    }
+
+    /**
+     * Block until the device publishes new data, or until the timeout
+     * expires. Only data published after the call is taken into account.
+     * Can be used instead of polling isDataReady () when the client runs in
+     * threaded mode.
+     * @param timeout maximum time to wait
+     * @param unit unit of the timeout
+     * @return true if new data arrived, false if the timeout expired
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public boolean waitForData (long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long seq = getDataSequence ();
+        return awaitData (seq, timeout, unit) != seq;
+    }
+
+    /**
+     * Block until the device publishes new data.
+     * @return the sequence number of the new data
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public long awaitNext () throws InterruptedException {
+        return awaitData (getDataSequence (), Long.MAX_VALUE,
+                TimeUnit.NANOSECONDS);
+    }
+
+    private void notifyListener (DataListener dl, Object data) {
+        try {
+            dl.consumer.accept (data);
+        } catch (RuntimeException e) {
+            logger.log (Level.WARNING,
+                    "[PlayerDevice] : Data listener failed: " + e.toString (),
+                    e);
+        }
+    }
+
+    /**
+     * Sends a configuration request whose reply is delivered through the
+     * returned future, for the asynchronous variants of the requests (e.g.
+     * LaserInterface.queryGeometryAsync ()). The future is completed by the
+     * interface's handleResponse () with {@link #completeReply(int, Object)}
+     * when the acknowledgement arrives, or completed exceptionally with a
+     * PlayerException if the server refuses the request, with a
+     * TimeoutException if no reply arrives in time, or with the exception
+     * thrown while sending the request.
+     * <br><br>
+     * Each request carries its own sequence number, so any number of
+     * requests can be outstanding at the same time, on one device or on
+     * several. The replies are read by the PlayerClient thread in threaded
+     * mode; otherwise the futures are only completed while readAll () is
+     * called.
+     * @param subtype subtype of the request
+     * @param timeout maximum time to wait for the reply
+     * @param unit unit of the timeout
+     * @param request sends the request, e.g. queryGeometry ()
+     * @return the future receiving the reply
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> CompletableFuture<T> sendRequestAsync (final int subtype,
+            long timeout, TimeUnit unit, Runnable request) {
+        final CompletableFuture<Object> reply =
+            new CompletableFuture<Object> ();
+        // The future is recorded with the request as it is sent, before the
+        // reply can be read
+        PendingRequest pending = new PendingRequest (subtype, reply);
+        asyncRequest.set (pending);
+        try {
+            request.run ();
+            if (asyncRequest.get () == pending)
+                throw new IllegalStateException
+                    ("[PlayerDevice] : No request " + subtype + " was sent");
+        } catch (RuntimeException e) {
+            forgetRequest (pending);
+            reply.completeExceptionally (e);
+            return (CompletableFuture<T>)reply;
+        } finally {
+            asyncRequest.remove ();
+        }
+
+        // A request which timed out stays in flight, so that its late reply
+        // is not mistaken for the reply to another request
+        final ScheduledFuture<?> timer = ReplyTimer.TIMER.schedule
+            (new Runnable () {
+                public void run () {
+                    reply.completeExceptionally (new TimeoutException
+                            ("[PlayerDevice] : No reply to request " +
+                             subtype + " of interface " +
+                             deviceAddress.getInterf () + ":" +
+                             deviceAddress.getIndex ()));
+                }
+            }, timeout, unit);
+        reply.whenComplete (new BiConsumer<Object, Throwable> () {
+            public void accept (Object value, Throwable error) {
+                timer.cancel (false);
+            }
+        });
+        return (CompletableFuture<T>)reply;
+    }
+
+    /**
+     * Complete the asynchronous request answered by the reply being handled
+     * (see {@link #sendRequestAsync(int, long, TimeUnit, Runnable)}) with
+     * the given value. Called by the interfaces from handleResponse () once
+     * the reply is decoded; the future is completed after handleResponse ()
+     * returns. Does nothing if the reply answers a synchronous request.
+     * @param subtype subtype of the reply
+     * @param value the decoded reply, e.g. the structure returned afterwards
+     * by the corresponding getter
+     */
+    protected void completeReply (int subtype, Object value) {
+        PendingRequest request = answered;
+        if (request != null && request.subtype == subtype)
+            answer = value;
+    }
+
+    /**
+     * Check whether the reply being handled answers an asynchronous request,
+     * e.g. to avoid copying a reused structure for completeReply () when no
+     * future receives it.
+     * @return true if the reply is awaited by a future
+     */
+    protected boolean isReplyAwaited () {
+        PendingRequest request = answered;
+        return request != null && request.reply != null;
+    }
+
+    /**
+     * Handle an acknowledgement of one of this device's requests: match it
+     * to its request and call handleResponse (). Called by the PlayerClient.
+     * The future of an asynchronous request is completed once
+     * handleResponse () has returned, with null if it did not call
+     * completeReply () (e.g. for a set request).
+     * @param header a PlayerMsgHdr structure containing the Player header
+     */
+    void handleAck (PlayerMsgHdr header) {
+        PendingRequest request = takeRequest (header);
+        answered = request;
+        answer   = null;
+        handlingThread = Thread.currentThread ();
+        handlingReply  = true;
+        Object value;
+        try {
+            handleResponse (header);
+        } catch (RuntimeException e) {
+            if (request != null && request.reply != null)
+                request.reply.completeExceptionally (e);
+            throw e;
+        } finally {
+            value    = answer;
+            answered = null;
+            answer   = null;
+            handlingReply = false;
+            dispatchPublished ();
+        }
+        if (request != null && request.reply != null)
+            request.reply.complete (value);
+    }
+
+    /**
+     * Handle a negative acknowledgement of one of this device's requests:
+     * fail its future if it was sent asynchronously, and call
+     * handleNARMessage (). Called by the PlayerClient.
+     * @param header a PlayerMsgHdr structure containing the Player header
+     */
+    void handleNack (PlayerMsgHdr header) {
+        PendingRequest request = takeRequest (header);
+        if (request != null && request.reply != null)
+            request.reply.completeExceptionally (new PlayerException
+                    ("[PlayerDevice] : Request " + header.getSubtype () +
+                     " refused by the server"));
+        handleNARMessage (header);
+    }
+
     /**
      * Abstract handleNARMessage method.
      */
@@ -127,11 +654,21 @@ public abstract class PlayerDevice implements PlayerConstants {
         logger.log (Level.FINEST, "[PlayerDevice] : Need to handle a NAR message.");
     }
 
+    /**
+     * Handle a negative acknowledgement of one of this device's requests.
+     * Called by the PlayerClient; the default implementation calls
+     * handleNARMessage ().
+     * @param header a PlayerMsgHdr structure containing the Player header
+     */
+    protected void handleNARMessage (PlayerMsgHdr header) {
+        handleNARMessage ();
+    }
+
     /**
      * Abstract handleResponse method.
      * @param header a PlayerMsgHdr structure containing the Player header
      */
-    protected void handleResponse (PlayerMsgHdr header) {
+    protected synchronized void handleResponse (PlayerMsgHdr header) {
         logger.log (Level.FINEST, "[PlayerDevice] : General handle response was triggered.");
     }
 
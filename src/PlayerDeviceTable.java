@@ -0,0 +1,182 @@
+/*
+ *  Player Java Client 3 - PlayerDeviceTable.java
+ *  Copyright (C) 2002-2006 Radu Bogdan Rusu, Maxim Batalin
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * $Id$
+ *
+ */
+package javaclient3;
+
+import javaclient3.structures.PlayerDevAddr;
+
+/**
+ * Dispatch table holding the devices subscribed through a PlayerClient,
+ * indexed by their full (host, robot, interf, index) address.
+ * <br><br>
+ * The table uses open addressing over primitive arrays: the host and robot
+ * are packed in a long, the interface code and index in an int. Lookups are
+ * lock-free and allocation-free; subscriptions (which are rare) rebuild the
+ * table and publish it atomically.
+ * @version
+ * <ul>
+ *      <li>v3.0 - Player 3.0 supported
+ * </ul>
+ */
+public class PlayerDeviceTable {
+
+    // Immutable snapshot of the table
+    private static final class Table {
+        final long[]         hostRobot;
+        final int[]          interfIndex;
+        final PlayerDevice[] devices;
+        final int            size;
+
+        Table (int capacity, int size) {
+            hostRobot   = new long[capacity];
+            interfIndex = new int[capacity];
+            devices     = new PlayerDevice[capacity];
+            this.size   = size;
+        }
+    }
+
+    private volatile Table table = new Table (16, 0);
+
+    private static long packHostRobot (int host, int robot) {
+        return ((long)host << 32) | (robot & 0xFFFFFFFFL);
+    }
+
+    private static int packInterfIndex (int interf, int index) {
+        return (interf << 16) | (index & 0xFFFF);
+    }
+
+    private static int slot (long hostRobot, int interfIndex, int mask) {
+        long h = (hostRobot ^ ((long)interfIndex << 16)) * 0x9E3779B97F4A7C15L;
+        return (int)(h >>> 40) & mask;
+    }
+
+    /**
+     * Return the device registered for the given address.
+     * @param host the "host" on which the device resides
+     * @param robot the "robot" or device collection in which the device resides
+     * @param interf the interface code
+     * @param index the device index
+     * @return the device, or null if no such device has been subscribed to
+     */
+    public PlayerDevice get (int host, int robot, int interf, int index) {
+        Table t  = table;
+        long  hr = packHostRobot   (host, robot);
+        int   ii = packInterfIndex (interf, index);
+        int mask = t.devices.length - 1;
+        for (int i = slot (hr, ii, mask); ; i = (i + 1) & mask) {
+            PlayerDevice pd = t.devices[i];
+            if (pd == null)
+                return null;
+            if (t.hostRobot[i] == hr && t.interfIndex[i] == ii)
+                return pd;
+        }
+    }
+
+    /**
+     * Return the device registered for the given address.
+     * @param addr the device address
+     * @return the device, or null if no such device has been subscribed to
+     */
+    public PlayerDevice get (PlayerDevAddr addr) {
+        return get (addr.getHost (), addr.getRobot (), addr.getInterf (),
+                addr.getIndex ());
+    }
+
+    /**
+     * Register a device under its current address. As with the device list
+     * this table replaces, the first device registered for an address keeps
+     * receiving its messages: a later device with the same address is not
+     * added.
+     * @param device the device to add
+     * @return true if the device was added, false if another device was
+     * already registered for its address
+     */
+    public synchronized boolean put (PlayerDevice device) {
+        if (get (device.getDeviceAddress ()) != null)
+            return false;
+        PlayerDevice[] current = toArray ();
+        PlayerDevice[] devices = new PlayerDevice[current.length + 1];
+        System.arraycopy (current, 0, devices, 0, current.length);
+        devices[current.length] = device;
+        rebuild (devices, devices.length);
+        return true;
+    }
+
+    /**
+     * Remove the device registered for the given address.
+     * @param addr the device address
+     * @return the removed device, or null if there was none
+     */
+    public synchronized PlayerDevice remove (PlayerDevAddr addr) {
+        PlayerDevice removed = get (addr);
+        if (removed == null)
+            return null;
+        PlayerDevice[] current = toArray ();
+        int n = 0;
+        for (int i = 0; i < current.length; i++)
+            if (current[i] != removed)
+                current[n++] = current[i];
+        rebuild (current, n);
+        return removed;
+    }
+
+    /**
+     * Return the number of registered devices.
+     * @return the number of registered devices
+     */
+    public int size () {
+        return table.size;
+    }
+
+    /**
+     * Return all the registered devices.
+     * @return a new array holding the registered devices
+     */
+    public PlayerDevice[] toArray () {
+        Table t = table;
+        PlayerDevice[] result = new PlayerDevice[t.size];
+        int n = 0;
+        for (int i = 0; i < t.devices.length; i++)
+            if (t.devices[i] != null)
+                result[n++] = t.devices[i];
+        return result;
+    }
+
+    private void rebuild (PlayerDevice[] devices, int count) {
+        int capacity = 16;
+        while (capacity < count * 2)
+            capacity <<= 1;
+        Table t = new Table (capacity, count);
+        int mask = capacity - 1;
+        for (int j = 0; j < count; j++) {
+            PlayerDevAddr addr = devices[j].getDeviceAddress ();
+            long hr = packHostRobot   (addr.getHost (), addr.getRobot ());
+            int  ii = packInterfIndex (addr.getInterf (), addr.getIndex ());
+            int i = slot (hr, ii, mask);
+            while (t.devices[i] != null)
+                i = (i + 1) & mask;
+            t.hostRobot[i]   = hr;
+            t.interfIndex[i] = ii;
+            t.devices[i]     = devices[j];
+        }
+        table = t;
+    }
+}
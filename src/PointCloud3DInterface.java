@@ -25,14 +25,10 @@ import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javaclient3.structures.PlayerColor;
 import javaclient3.structures.PlayerMsgHdr;
-import javaclient3.structures.PlayerPoint3d;
 import javaclient3.structures.pointcloud3d.PlayerPointCloud3DData;
-import javaclient3.structures.pointcloud3d.PlayerPointCloud3DElement;
-import javaclient3.structures.rfid.PlayerRfidTag;
 import javaclient3.xdr.OncRpcException;
-import javaclient3.xdr.XdrBufferDecodingStream;
+import javaclient3.xdr.XdrByteBufferDecodingStream;
 
 /**
  * The pointcloud3d interface is used to transmit 3-D point cloud data (e.g.,
@@ -54,6 +50,14 @@ public class PointCloud3DInterface extends PlayerDevice {
     private PlayerPointCloud3DData  ppc3data;
     private boolean                 readyPpc3data = false;
 
+    // Two sets of reusable point buffers, used in turn
+    private final PlayerPointCloud3DData[] clouds = new PlayerPointCloud3DData[2];
+    private final double[][]        x    = new double[2][];
+    private final double[][]        y    = new double[2][];
+    private final double[][]        z    = new double[2][];
+    private final int[][]           argb = new int[2][];
+    private int                     current;
+
 
     /**
      * Constructor for PointCloud3DInterface.
@@ -72,54 +76,41 @@ public class PointCloud3DInterface extends PlayerDevice {
                 case PLAYER_POINTCLOUD3D_DATA_STATE: {
                     this.timestamp = header.getTimestamp();
 
-                    ppc3data = new PlayerPointCloud3DData ();
-
-                    // Buffer for points_count, array_count
-                    byte[] buffer = new byte[8];
-                    // Read points_count, array_count
-                    is.readFully (buffer, 0, 8);
-
-                    // Begin decoding the XDR buffer
-                    XdrBufferDecodingStream xdr = new XdrBufferDecodingStream (buffer);
-                    xdr.beginDecoding ();
+                    // Decode the whole cloud in one go (points_count,
+                    // array_count, then 40 bytes per point: x, y, z, a, r,
+                    // g, b) into the buffers not handed out last time
+                    XdrByteBufferDecodingStream xdr = readXdr (header.getSize ());
                     int pointsCount = xdr.xdrDecodeInt (); // points_count
-                    xdr.endDecoding ();
-                    xdr.close ();
-
-                    PlayerPointCloud3DElement[] points = new PlayerPointCloud3DElement[pointsCount];
+                    xdr.xdrDecodeInt ();                   // array_count
+
+                    current = 1 - current;
+                    if (x[current] == null || x[current].length < pointsCount) {
+                        x[current]    = new double[pointsCount];
+                        y[current]    = new double[pointsCount];
+                        z[current]    = new double[pointsCount];
+                        argb[current] = new int[pointsCount];
+                    }
+                    double[] px = x[current];
+                    double[] py = y[current];
+                    double[] pz = z[current];
+                    int[]    pc = argb[current];
                     for (int i = 0; i < pointsCount; i++) {
-                        PlayerPointCloud3DElement pt = new PlayerPointCloud3DElement ();
-
-                        PlayerPoint3d point = new PlayerPoint3d ();
-                        PlayerColor color = new PlayerColor ();
-
-                        // Buffer for reading point, color (24 + 16)
-                        buffer = new byte[40];
-                        // Read point, color
-                        is.readFully (buffer, 0, 40);
-
-                        xdr = new XdrBufferDecodingStream (buffer);
-                        xdr.beginDecoding ();
-                        point.setPx    (xdr.xdrDecodeDouble ());
-                        point.setPy    (xdr.xdrDecodeDouble ());
-                        point.setPz    (xdr.xdrDecodeDouble ());
-                        color.setAlpha (xdr.xdrDecodeByte ());
-                        color.setRed   (xdr.xdrDecodeByte ());
-                        color.setGreen (xdr.xdrDecodeByte ());
-                        color.setBlue  (xdr.xdrDecodeByte ());
-                        xdr.endDecoding ();
-                        xdr.close ();
-
-                        pt.setPoint (point);
-                        pt.setColor (color);
-
-                        points[i] = pt;
-
+                        px[i] = xdr.xdrDecodeDouble ();
+                        py[i] = xdr.xdrDecodeDouble ();
+                        pz[i] = xdr.xdrDecodeDouble ();
+                        pc[i] = ((xdr.xdrDecodeInt () & 0xFF) << 24) |
+                                ((xdr.xdrDecodeInt () & 0xFF) << 16) |
+                                ((xdr.xdrDecodeInt () & 0xFF) <<  8) |
+                                 (xdr.xdrDecodeInt () & 0xFF);
                     }
 
-                    ppc3data.setPoints (points);
+                    if (clouds[current] == null)
+                        clouds[current] = new PlayerPointCloud3DData ();
+                    ppc3data = clouds[current];
+                    ppc3data.setPoints (pointsCount, px, py, pz, pc);
 
                     readyPpc3data = true;
+                    publishData (ppc3data);
                     break;
                 }
             }
@@ -135,7 +126,13 @@ public class PointCloud3DInterface extends PlayerDevice {
     }
 
     /**
-     * Get the state data.
+     * Get the state data. The points are held in primitive arrays (see
+     * PlayerPointCloud3DData.getX () and friends); the object-per-point view
+     * returned by getPoints () is only built when asked for.
+     * <br><br>
+     * The arrays are reused: the returned cloud stays valid while the next
+     * scan is decoded, and is overwritten by the one after. Copy the data if
+     * it has to be kept longer.
      *
      * @return an object of type PlayerPointCloud3DData containing the required
      *         state data
@@ -149,7 +146,7 @@ public class PointCloud3DInterface extends PlayerDevice {
      *
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPpc3data) {
             readyPpc3data = false;
             return true;
@@ -90,6 +90,7 @@ public class Position1DInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPp1ddata = true;
+                    publishData (pp1ddata);
                     break;
                 }
                 case PLAYER_POSITION1D_DATA_GEOM: {
@@ -97,6 +98,7 @@ public class Position1DInterface extends PlayerDevice {
 
                     readGeom ();
                     readyPp1dgeom = true;
+                    publishData (pp1dgeom);
                     break;
                 }
             }
@@ -123,16 +125,13 @@ public class Position1DInterface extends PlayerDevice {
      */
     public void setPosition (float pos, float vel, int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_POSITION1D_CMD_POS, 12);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (12);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_POSITION1D_CMD_POS, 12);
             xdr.xdrEncodeFloat (pos);
             xdr.xdrEncodeFloat (vel);
             xdr.xdrEncodeByte  ((byte)state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position1D] : Couldn't send position command: " +
@@ -154,16 +153,13 @@ public class Position1DInterface extends PlayerDevice {
      */
     public void setPosition (PlayerPosition1dCmdPos pp1dcp) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_POSITION1D_CMD_POS, 12);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (12);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_POSITION1D_CMD_POS, 12);
             xdr.xdrEncodeFloat (pp1dcp.getPos   ());
             xdr.xdrEncodeFloat (pp1dcp.getVel   ());
             xdr.xdrEncodeByte  (pp1dcp.getState ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position1D] : Couldn't send position command: " +
@@ -186,15 +182,12 @@ public class Position1DInterface extends PlayerDevice {
      */
     public void setVelocity (float vel, int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_POSITION1D_CMD_VEL, 8);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_POSITION1D_CMD_VEL, 8);
             xdr.xdrEncodeFloat (vel);
             xdr.xdrEncodeByte  ((byte)state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position1D] : Couldn't send velocity command: " +
@@ -216,15 +209,12 @@ public class Position1DInterface extends PlayerDevice {
      */
     public void setVelocity (PlayerPosition1dCmdVel pp1dcv) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_POSITION1D_CMD_VEL, 8);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_POSITION1D_CMD_VEL, 8);
             xdr.xdrEncodeFloat (pp1dcv.getVel   ());
             xdr.xdrEncodeByte  (pp1dcv.getState ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position1D] : Couldn't send velocity command: " +
@@ -242,14 +232,7 @@ public class Position1DInterface extends PlayerDevice {
      * To request robot geometry, send a null PLAYER_POSITION1D_GET_GEOM.
      */
     public void queryGeometry () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION1D_REQ_GET_GEOM, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Position1D] : Couldn't request GET_GEOM: "
-                        + e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION1D_REQ_GET_GEOM, 0);
     }
 
     /**
@@ -267,15 +250,11 @@ public class Position1DInterface extends PlayerDevice {
      */
     public void setMotorPower (int state) {
         try {
-            sendHeader
+            XdrBufferEncodingStream xdr = beginMessage
                 (PLAYER_MSGTYPE_REQ, PLAYER_POSITION1D_REQ_MOTOR_POWER, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
             xdr.xdrEncodeByte ((byte)state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position1D] : Couldn't request MOTOR_POWER: " +
@@ -299,15 +278,11 @@ public class Position1DInterface extends PlayerDevice {
      */
     public void setVelocityControl (int mode) {
         try {
-            sendHeader
+            XdrBufferEncodingStream xdr = beginMessage
                 (PLAYER_MSGTYPE_REQ, PLAYER_POSITION1D_REQ_VELOCITY_MODE, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
             xdr.xdrEncodeInt (mode);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position1D] : Couldn't request VELOCITY_MODE: " +
@@ -326,15 +301,7 @@ public class Position1DInterface extends PlayerDevice {
      * PLAYER_POSITION1D_RESET_ODOM request. Null response.
      */
     public void resetOdometry () {
-        try {
-            sendHeader
-                (PLAYER_MSGTYPE_REQ, PLAYER_POSITION1D_REQ_RESET_ODOM, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Position1D] : Couldn't request RESET_ODOM: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION1D_REQ_RESET_ODOM, 0);
     }
 
     /**
@@ -346,15 +313,11 @@ public class Position1DInterface extends PlayerDevice {
      */
     public void setControlMode (int state) {
         try {
-            sendHeader
+            XdrBufferEncodingStream xdr = beginMessage
                 (PLAYER_MSGTYPE_REQ, PLAYER_POSITION1D_REQ_POSITION_MODE, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
             xdr.xdrEncodeInt (state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position1D] : Couldn't request POSITION_MODE: " +
@@ -375,15 +338,11 @@ public class Position1DInterface extends PlayerDevice {
      */
     public void setOdometry (float pos) {
         try {
-            sendHeader
+            XdrBufferEncodingStream xdr = beginMessage
                 (PLAYER_MSGTYPE_REQ, PLAYER_POSITION1D_REQ_SET_ODOM, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
             xdr.xdrEncodeFloat (pos);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position1D] : Couldn't request SET_ODOM: " +
@@ -404,15 +363,11 @@ public class Position1DInterface extends PlayerDevice {
      */
     public void resetOdometry (int value) {
         try {
-            sendHeader
+            XdrBufferEncodingStream xdr = beginMessage
                 (PLAYER_MSGTYPE_REQ, PLAYER_POSITION1D_REQ_SET_ODOM, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
             xdr.xdrEncodeInt (value);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position1D] : Couldn't request RESET_ODOM: " +
@@ -435,17 +390,13 @@ public class Position1DInterface extends PlayerDevice {
      */
     public void setVelocityPIDParams (float kp, float ki, float kd) {
         try {
-            sendHeader
+            XdrBufferEncodingStream xdr = beginMessage
                 (PLAYER_MSGTYPE_REQ, PLAYER_POSITION1D_REQ_SPEED_PID, 12);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (12);
-            xdr.beginEncoding (null, 0);
             xdr.xdrEncodeFloat (kp);
             xdr.xdrEncodeFloat (ki);
             xdr.xdrEncodeFloat (kd);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position1D] : Couldn't request SPEED_PID: " +
@@ -468,17 +419,13 @@ public class Position1DInterface extends PlayerDevice {
      */
     public void setPositionPIDParams (float kp, float ki, float kd) {
         try {
-            sendHeader
+            XdrBufferEncodingStream xdr = beginMessage
                 (PLAYER_MSGTYPE_REQ, PLAYER_POSITION1D_REQ_POSITION_PID, 12);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (12);
-            xdr.beginEncoding (null, 0);
             xdr.xdrEncodeFloat (kp);
             xdr.xdrEncodeFloat (ki);
             xdr.xdrEncodeFloat (kd);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position1D] : Couldn't request POSITION_PID: " +
@@ -500,16 +447,12 @@ public class Position1DInterface extends PlayerDevice {
      */
     public void setSpeedProfileParams (float speed, float acc) {
         try {
-            sendHeader
+            XdrBufferEncodingStream xdr = beginMessage
                 (PLAYER_MSGTYPE_REQ, PLAYER_POSITION1D_REQ_SPEED_PROF, 8);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8);
-            xdr.beginEncoding (null, 0);
             xdr.xdrEncodeFloat (speed);
             xdr.xdrEncodeFloat (acc);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position1D] : Couldn't request SPEED_PROF: " +
@@ -569,11 +512,12 @@ public class Position1DInterface extends PlayerDevice {
      * Handle acknowledgement response messages.
      * @param header Player header
      */
-    protected void handleResponse (PlayerMsgHdr header) {
+    protected synchronized void handleResponse (PlayerMsgHdr header) {
         switch (header.getSubtype ()) {
             case PLAYER_POSITION1D_REQ_GET_GEOM: {
                 readGeom ();
                 readyPp1dgeom = true;
+                publishData (pp1dgeom);
                 break;
             }
             case PLAYER_POSITION1D_REQ_MOTOR_POWER: {
@@ -636,7 +580,7 @@ public class Position1DInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPp1ddata) {
             readyPp1ddata = false;
             return true;
@@ -648,7 +592,7 @@ public class Position1DInterface extends PlayerDevice {
      * Check if geometry data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isGeomReady () {
+    public synchronized boolean isGeomReady () {
         if (readyPp1dgeom) {
             readyPp1dgeom = false;
             return true;
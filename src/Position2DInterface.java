@@ -102,12 +102,14 @@ public class Position2DInterface extends AbstractPositionDevice {
                 xdr.close();
 
                 readyPp2ddata = true;
+                publishData (pp2ddata);
                 break;
             case PLAYER_POSITION2D_DATA_GEOM:
                 this.timestamp = header.getTimestamp();
 
                 readGeom();
                 readyPp2dgeom = true;
+                publishData (pp2dgeom);
                 break;
             }
         } catch (IOException e) {
@@ -134,9 +136,8 @@ public class Position2DInterface extends AbstractPositionDevice {
      */
     public void setPosition (PlayerPose2d pos, PlayerPose2d vel, int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_POSITION2D_CMD_POS, 48 + 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (48 + 4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_POSITION2D_CMD_POS, 48 + 4);
             xdr.xdrEncodeDouble (pos.getPx ());
             xdr.xdrEncodeDouble (pos.getPy ());
             xdr.xdrEncodeDouble (pos.getPa ());
@@ -145,9 +146,7 @@ public class Position2DInterface extends AbstractPositionDevice {
             xdr.xdrEncodeDouble (vel.getPa ());
             xdr.xdrEncodeByte ((byte)state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position2D] : Couldn't send position command: " +
@@ -168,9 +167,8 @@ public class Position2DInterface extends AbstractPositionDevice {
      */
     public void setPosition (PlayerPosition2dCmdPos pp2dcp) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_POSITION2D_CMD_POS, 48 + 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (48 + 4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_POSITION2D_CMD_POS, 48 + 4);
             xdr.xdrEncodeDouble (pp2dcp.getPos ().getPx ());
             xdr.xdrEncodeDouble (pp2dcp.getPos ().getPy ());
             xdr.xdrEncodeDouble (pp2dcp.getPos ().getPa ());
@@ -179,9 +177,7 @@ public class Position2DInterface extends AbstractPositionDevice {
             xdr.xdrEncodeDouble (pp2dcp.getVel ().getPa ());
             xdr.xdrEncodeByte ((byte)pp2dcp.getState ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position2D] : Couldn't send position command: " +
@@ -204,17 +200,14 @@ public class Position2DInterface extends AbstractPositionDevice {
      */
     public void setVelocity (PlayerPose2d vel, int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_POSITION2D_CMD_VEL, 24 + 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (24 + 4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_POSITION2D_CMD_VEL, 24 + 4);
             xdr.xdrEncodeDouble ((double)vel.getPx ());
             xdr.xdrEncodeDouble ((double)vel.getPy ());
             xdr.xdrEncodeDouble ((double)vel.getPa ());
             xdr.xdrEncodeByte ((byte)state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position2D] : Couldn't send velocity command: " +
@@ -235,17 +228,14 @@ public class Position2DInterface extends AbstractPositionDevice {
      */
     public void setVelocity (PlayerPosition2dCmdVel pp2dcv) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_POSITION2D_CMD_VEL, 24 + 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (24 + 4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_POSITION2D_CMD_VEL, 24 + 4);
             xdr.xdrEncodeDouble (pp2dcv.getVel ().getPx ());
             xdr.xdrEncodeDouble (pp2dcv.getVel ().getPy ());
             xdr.xdrEncodeDouble (pp2dcv.getVel ().getPa ());
             xdr.xdrEncodeByte ((byte)pp2dcv.getState ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position2D] : Couldn't send velocity command: " +
@@ -267,15 +257,12 @@ public class Position2DInterface extends AbstractPositionDevice {
      */
     public void setCarCMD (double velocity, double angle) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_POSITION2D_CMD_CAR, 16);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (16);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_POSITION2D_CMD_CAR, 16);
             xdr.xdrEncodeDouble (velocity);
             xdr.xdrEncodeDouble (angle);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position2D] : Couldn't send carlike command: " +
@@ -297,15 +284,12 @@ public class Position2DInterface extends AbstractPositionDevice {
      */
     public void setVelHead (double velocity, double angle) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_POSITION2D_CMD_VEL_HEAD, 16);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (16);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_POSITION2D_CMD_VEL_HEAD, 16);
             xdr.xdrEncodeDouble (velocity);
             xdr.xdrEncodeDouble (angle);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position2D] : Couldn't send velocity/head command: " +
@@ -365,15 +349,7 @@ public class Position2DInterface extends AbstractPositionDevice {
      * Request/reply: Query geometry.
      */
     public void queryGeometry () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION2D_REQ_GET_GEOM, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Position2D] : Couldn't request " +
-                        "PLAYER_POSITION2D_REQ_GET_GEOM: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION2D_REQ_GET_GEOM, 0);
     }
 
     /**
@@ -387,14 +363,11 @@ public class Position2DInterface extends AbstractPositionDevice {
      */
     public void setMotorPower (int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION2D_REQ_MOTOR_POWER, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_POSITION2D_REQ_MOTOR_POWER, 4);
             xdr.xdrEncodeByte ((byte)state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position2D] : Couldn't request " +
@@ -428,14 +401,11 @@ public class Position2DInterface extends AbstractPositionDevice {
      */
     public void setVelocityControl (int mode) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION2D_REQ_VELOCITY_MODE, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_POSITION2D_REQ_VELOCITY_MODE, 4);
             xdr.xdrEncodeByte ((byte)mode);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position2D] : Couldn't request " +
@@ -454,15 +424,7 @@ public class Position2DInterface extends AbstractPositionDevice {
      * Resets the robot's odometry to (x,y,theta) = (0,0,0).
      */
     public void resetOdometry () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION2D_REQ_RESET_ODOM, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Position2D] : Couldn't request " +
-                        "PLAYER_POSITION2D_RESET_ODOM_REQ: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION2D_REQ_RESET_ODOM, 0);
     }
 
     /**
@@ -471,14 +433,11 @@ public class Position2DInterface extends AbstractPositionDevice {
      */
     public void setControlMode (int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION2D_REQ_POSITION_MODE, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_POSITION2D_REQ_POSITION_MODE, 4);
             xdr.xdrEncodeInt (state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position2D] : Couldn't request " +
@@ -497,16 +456,13 @@ public class Position2DInterface extends AbstractPositionDevice {
      */
     public void setOdometry (PlayerPose2d pose) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION2D_REQ_SET_ODOM, 24);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (24);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_POSITION2D_REQ_SET_ODOM, 24);
             xdr.xdrEncodeDouble (pose.getPx ());
             xdr.xdrEncodeDouble (pose.getPy ());
             xdr.xdrEncodeDouble (pose.getPa ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position2D] : Couldn't request " +
@@ -527,16 +483,13 @@ public class Position2DInterface extends AbstractPositionDevice {
      */
     public void setVelocityPIDParams (float kp, float ki, float kd) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION2D_REQ_SPEED_PID, 24);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (24);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_POSITION2D_REQ_SPEED_PID, 24);
             xdr.xdrEncodeDouble (kp);
             xdr.xdrEncodeDouble (ki);
             xdr.xdrEncodeDouble (kd);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position2D] : Couldn't request " +
@@ -557,16 +510,13 @@ public class Position2DInterface extends AbstractPositionDevice {
      */
     public void setPositionPIDParams (float kp, float ki, float kd) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION2D_REQ_POSITION_PID, 12);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (12);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_POSITION2D_REQ_POSITION_PID, 12);
             xdr.xdrEncodeFloat (kp);
             xdr.xdrEncodeFloat (ki);
             xdr.xdrEncodeFloat (kd);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position2D] : Couldn't request " +
@@ -586,15 +536,12 @@ public class Position2DInterface extends AbstractPositionDevice {
      */
     public void setSpeedProfileParams (float speed, float acc) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION2D_REQ_SPEED_PROF, 8);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_POSITION2D_REQ_SPEED_PROF, 8);
             xdr.xdrEncodeFloat (speed);
             xdr.xdrEncodeFloat (acc);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position2D] : Couldn't request " +
@@ -612,11 +559,12 @@ public class Position2DInterface extends AbstractPositionDevice {
      * Handle acknowledgement response messages.
      * @param header Player header
      */
-    protected void handleResponse (PlayerMsgHdr header) {
+    protected synchronized void handleResponse (PlayerMsgHdr header) {
         switch (header.getSubtype ()) {
             case PLAYER_POSITION2D_REQ_GET_GEOM: {
                 readGeom ();
                 readyPp2dgeom = true;
+                publishData (pp2dgeom);
                 break;
             }
             case PLAYER_POSITION2D_REQ_MOTOR_POWER: {
@@ -677,7 +625,7 @@ public class Position2DInterface extends AbstractPositionDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPp2ddata) {
             readyPp2ddata = false;
             return true;
@@ -689,7 +637,7 @@ public class Position2DInterface extends AbstractPositionDevice {
      * Check if geometry data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isGeomReady () {
+    public synchronized boolean isGeomReady () {
         if (readyPp2dgeom) {
             readyPp2dgeom = false;
             return true;
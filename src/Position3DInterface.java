@@ -110,6 +110,7 @@ public class Position3DInterface extends AbstractPositionDevice {
                     xdr.close ();
 
                     readyPp3ddata = true;
+                    publishData (pp3ddata);
                     break;
                 }
                 case PLAYER_POSITION3D_DATA_GEOMETRY: {
@@ -117,6 +118,7 @@ public class Position3DInterface extends AbstractPositionDevice {
 
                readGeom ();
                     readyPp3ddata = true;
+                    publishData (pp3ddata);
                     break;
                 }
             }
@@ -187,9 +189,8 @@ public class Position3DInterface extends AbstractPositionDevice {
      */
     public void setPosition (PlayerPose3d pos, PlayerPose3d vel, int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_POSITION3D_CMD_SET_POS, 96+4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (96+4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_POSITION3D_CMD_SET_POS, 96+4);
             xdr.xdrEncodeDouble (pos.getPx     ());
             xdr.xdrEncodeDouble (pos.getPy     ());
             xdr.xdrEncodeDouble (pos.getPz     ());
@@ -204,9 +205,7 @@ public class Position3DInterface extends AbstractPositionDevice {
             xdr.xdrEncodeDouble (vel.getPyaw   ());
             xdr.xdrEncodeByte ((byte)state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position3D] : Couldn't send position commands: " +
@@ -243,9 +242,8 @@ public class Position3DInterface extends AbstractPositionDevice {
      */
     public void setVelocity (PlayerPose3d vel, int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_POSITION3D_CMD_SET_VEL, 48+4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (48+4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_POSITION3D_CMD_SET_VEL, 48+4);
             xdr.xdrEncodeDouble (vel.getPx     ());
             xdr.xdrEncodeDouble (vel.getPy     ());
             xdr.xdrEncodeDouble (vel.getPz     ());
@@ -254,9 +252,7 @@ public class Position3DInterface extends AbstractPositionDevice {
             xdr.xdrEncodeDouble (vel.getPyaw   ());
             xdr.xdrEncodeByte ((byte)state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position3D] : Couldn't send velocity commands: " +
@@ -288,14 +284,7 @@ public class Position3DInterface extends AbstractPositionDevice {
      * request.
      */
     public void queryGeometry () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION3D_GET_GEOM, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Position3D] : Couldn't send " +
-                        "PLAYER_POSITION3D_GET_GEOM_REQ: " + e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION3D_GET_GEOM, 0);
     }
 
     /**
@@ -312,14 +301,11 @@ public class Position3DInterface extends AbstractPositionDevice {
      */
     public void setMotorPower (int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION3D_MOTOR_POWER, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_POSITION3D_MOTOR_POWER, 4);
             xdr.xdrEncodeByte ((byte)state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position3D] : Couldn't request " +
@@ -340,14 +326,11 @@ public class Position3DInterface extends AbstractPositionDevice {
      */
     public void setControlMode (int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION3D_POSITION_MODE, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_POSITION3D_POSITION_MODE, 4);
             xdr.xdrEncodeInt(state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position3D] : Couldn't request " +
@@ -371,14 +354,11 @@ public class Position3DInterface extends AbstractPositionDevice {
      */
     public void setVelocityControl (int value) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION3D_VELOCITY_MODE, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_POSITION3D_VELOCITY_MODE, 4);
             xdr.xdrEncodeInt (value);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position3D] : Couldn't request " +
@@ -399,9 +379,8 @@ public class Position3DInterface extends AbstractPositionDevice {
      */
     public void setOdometry (PlayerPose3d pose) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION3D_SET_ODOM, 48);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (48);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_POSITION3D_SET_ODOM, 48);
             xdr.xdrEncodeDouble (pose.getPx     ());
             xdr.xdrEncodeDouble (pose.getPy     ());
             xdr.xdrEncodeDouble (pose.getPz     ());
@@ -409,9 +388,7 @@ public class Position3DInterface extends AbstractPositionDevice {
             xdr.xdrEncodeDouble (pose.getPpitch ());
             xdr.xdrEncodeDouble (pose.getPyaw   ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position3D] : Couldn't request " +
@@ -430,14 +407,7 @@ public class Position3DInterface extends AbstractPositionDevice {
      * PLAYER_POSITION3D_RESET_ODOM request. Null response.
      */
     public void resetOdometry () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION3D_RESET_ODOM, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Position3D] : Couldn't request " +
-                        "PLAYER_POSITION3D_RESET_ODOM: " + e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION3D_RESET_ODOM, 0);
     }
 
     /**
@@ -448,16 +418,13 @@ public class Position3DInterface extends AbstractPositionDevice {
      */
     public void setVelocityPIDParams (float kp, float ki, float kd) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION3D_SPEED_PID, 12);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (12);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_POSITION3D_SPEED_PID, 12);
             xdr.xdrEncodeFloat (kp);
             xdr.xdrEncodeFloat (ki);
             xdr.xdrEncodeFloat (kd);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position3D] : Couldn't request " +
@@ -477,16 +444,13 @@ public class Position3DInterface extends AbstractPositionDevice {
      */
     public void setPositionPIDParams (float kp, float ki, float kd) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION3D_POSITION_PID, 12);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (12);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_POSITION3D_POSITION_PID, 12);
             xdr.xdrEncodeFloat (kp);
             xdr.xdrEncodeFloat (ki);
             xdr.xdrEncodeFloat (kd);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position3D] : Couldn't request " +
@@ -505,15 +469,12 @@ public class Position3DInterface extends AbstractPositionDevice {
      */
     public void setSpeedProfileParams (float speed, float accel) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POSITION3D_SPEED_PROF, 8);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_POSITION3D_SPEED_PROF, 8);
             xdr.xdrEncodeFloat (speed);
             xdr.xdrEncodeFloat (accel);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Position3D] : Couldn't request " +
@@ -529,11 +490,12 @@ public class Position3DInterface extends AbstractPositionDevice {
      * Handle acknowledgement response messages.
      * @param header Player message header.
      */
-    protected void handleResponse (PlayerMsgHdr header) {
+    protected synchronized void handleResponse (PlayerMsgHdr header) {
         switch (header.getSubtype ()) {
             case PLAYER_POSITION3D_GET_GEOM: {
                 readGeom ();
                 readyPp3dgeom = true;
+                publishData (pp3dgeom);
                 break;
             }
             case PLAYER_POSITION3D_MOTOR_POWER: {
@@ -594,7 +556,7 @@ public class Position3DInterface extends AbstractPositionDevice {
      * Check if data is available.
      * @return True if ready, false if not ready.
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPp3ddata) {
             readyPp3ddata = false;
             return true;
@@ -606,7 +568,7 @@ public class Position3DInterface extends AbstractPositionDevice {
      * Check if geometry data is available.
      * @return True if ready, false if not ready.
      */
-    public boolean isGeomReady () {
+    public synchronized boolean isGeomReady () {
         if (readyPp3dgeom) {
             readyPp3dgeom = false;
             return true;
@@ -86,6 +86,7 @@ public class PowerInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPwdata = true;
+                    publishData (pwdata);
                     break;
                 }
             }
@@ -110,7 +111,7 @@ public class PowerInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPwdata) {
             readyPwdata = false;
             return true;
@@ -125,15 +126,12 @@ public class PowerInterface extends PlayerDevice {
      */
     public void requestCharge (int enable_input, int enable_output) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_POWER_SET_CHARGING_POLICY_REQ, 8);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_POWER_SET_CHARGING_POLICY_REQ, 8);
             xdr.xdrEncodeByte ((byte)enable_input);
             xdr.xdrEncodeByte ((byte)enable_output);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Power] : Couldn't request PLAYER_MAIN_POWER_REQ: "
@@ -149,7 +147,7 @@ public class PowerInterface extends PlayerDevice {
      * Handle acknowledgement response messages.
      * @param header Player header
      */
-    protected void handleResponse (PlayerMsgHdr header) {
+    protected synchronized void handleResponse (PlayerMsgHdr header) {
         switch (header.getSubtype ()) {
             case PLAYER_POWER_SET_CHARGING_POLICY_REQ: {
                 break;
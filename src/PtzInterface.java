@@ -92,6 +92,7 @@ public class PtzInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPpdata = true;
+                    publishData (ppdata);
                     break;
                 }
             }
@@ -127,7 +128,7 @@ public class PtzInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPpdata) {
             readyPpdata = false;
             return true;
@@ -139,7 +140,7 @@ public class PtzInterface extends PlayerDevice {
      * Check if geometry data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isGeomReady () {
+    public synchronized boolean isGeomReady () {
         if (readyPpgeom) {
             readyPpgeom = false;
             return true;
@@ -154,18 +155,15 @@ public class PtzInterface extends PlayerDevice {
      */
     public void setPTZ (PlayerPtzCmd ptc) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_PTZ_CMD_STATE, 20);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (20);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_PTZ_CMD_STATE, 20);
             xdr.xdrEncodeFloat (ptc.getPan       ());
             xdr.xdrEncodeFloat (ptc.getTilt      ());
             xdr.xdrEncodeFloat (ptc.getZoom      ());
             xdr.xdrEncodeFloat (ptc.getPanspeed  ());
             xdr.xdrEncodeFloat (ptc.getTiltspeed ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Ptz] : Couldn't send PTZ parameters command: " +
@@ -181,14 +179,7 @@ public class PtzInterface extends PlayerDevice {
      * Request/reply: Query geometry.
      */
     public void queryGeometry () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_PTZ_REQ_GEOM, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Ptz] : Couldn't request PLAYER_PTZ_REQ_GEOM: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_PTZ_REQ_GEOM, 0);
     }
 
     /**
@@ -205,16 +196,12 @@ public class PtzInterface extends PlayerDevice {
         if (configCount > PLAYER_PTZ_MAX_CONFIG_LEN)
             configCount = PLAYER_PTZ_MAX_CONFIG_LEN;
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_PTZ_REQ_GENERIC, configCount * 4 + 4);
-
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (configCount * 4 + 4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_PTZ_REQ_GENERIC, configCount * 4 + 4);
             xdr.xdrEncodeInt (configCount);
             xdr.xdrEncodeIntVector (config);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Ptz] : Couldn't request PLAYER_PTZ_GENERIC_CONFIG_REQ: " +
@@ -237,14 +224,11 @@ public class PtzInterface extends PlayerDevice {
      */
     public void controlRequest (int mode) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_PTZ_REQ_CONTROL_MODE, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_PTZ_REQ_CONTROL_MODE, 4);
             xdr.xdrEncodeInt (mode);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Ptz] : Couldn't request PLAYER_PTZ_REQ_CONTROL_MODE: " +
@@ -260,21 +244,14 @@ public class PtzInterface extends PlayerDevice {
      * Request/reply: Request PTZ camera status.
      */
     public void statusRequest () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_PTZ_REQ_STATUS, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Ptz] : Couldn't request PLAYER_PTZ_REQ_STATUS: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_PTZ_REQ_STATUS, 0);
     }
 
     /**
      * Handle acknowledgement response messages.
      * @param header Player header
      */
-    protected void handleResponse (PlayerMsgHdr header) {
+    protected synchronized void handleResponse (PlayerMsgHdr header) {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_PTZ_REQ_GEOM: {
@@ -311,6 +288,7 @@ public class PtzInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPpgeom = true;
+                    publishData (ppgeom);
                     break;
                 }
                 case PLAYER_PTZ_REQ_GENERIC: {
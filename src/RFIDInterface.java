@@ -113,6 +113,7 @@ public class RFIDInterface extends PlayerDevice {
                     prdata.setTags (prts);
 
                     readyPrdata = true;
+                    publishData (prdata);
                     break;
                 }
             }
@@ -138,7 +139,7 @@ public class RFIDInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPrdata) {
             readyPrdata = false;
             return true;
@@ -150,7 +151,7 @@ public class RFIDInterface extends PlayerDevice {
      * Handle acknowledgement response messages
      * @param header Player header
      */
-    public void handleResponse (PlayerMsgHdr header) {
+    public synchronized void handleResponse (PlayerMsgHdr header) {
         switch (header.getSubtype ()) {
             case PLAYER_RFID_REQ_POWER: {
                 // null response
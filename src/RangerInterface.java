@@ -33,6 +33,7 @@ import javaclient3.structures.ranger.PlayerRangerGeom;
 import javaclient3.xdr.OncRpcException;
 import javaclient3.xdr.XdrBufferDecodingStream;
 import javaclient3.xdr.XdrBufferEncodingStream;
+import javaclient3.xdr.XdrByteBufferDecodingStream;
 
 /**
  * The ranger interface provides access to a collection of range sensors,
@@ -52,14 +53,28 @@ public class RangerInterface extends PlayerDevice {
     // Logging support
     private Logger logger = Logger.getLogger (RangerInterface.class.getName ());
 
-    private PlayerRangerData        prdata;
-    private boolean                 readyPrdata = false;
-    private PlayerRangerDataIntns   printn;
-    private boolean                 readyPrintn = false;
-    private PlayerRangerGeom        prgeom;
-    private boolean                 readyPrgeom = false;
-    private PlayerRangerConf        prconf;
-    private boolean                 readyPrconf = false;
+    private volatile PlayerRangerData      prdata;
+    private boolean                        readyPrdata = false;
+    private volatile PlayerRangerDataIntns printn;
+    private boolean                        readyPrintn = false;
+    private PlayerRangerGeom               prgeom;
+    private boolean                        readyPrgeom = false;
+    private PlayerRangerConf               prconf;
+    private boolean                        readyPrconf = false;
+
+    // Decoding mode (see setDecodingMode ())
+    private boolean                        reuseBuffers    = false;
+    private boolean                        singlePrecision = false;
+
+    // Two sets of reusable data objects and arrays, used in turn
+    private final PlayerRangerData[]      rangeData    = new PlayerRangerData[2];
+    private final double[][]              rangesDouble = new double[2][];
+    private final float[][]               rangesFloat  = new float[2][];
+    private int                           currentRanges;
+    private final PlayerRangerDataIntns[] intnsData    = new PlayerRangerDataIntns[2];
+    private final double[][]              intnsDouble  = new double[2][];
+    private final float[][]               intnsFloat   = new float[2][];
+    private int                           currentIntns;
 
 
     /**
@@ -68,6 +83,28 @@ public class RangerInterface extends PlayerDevice {
      */
     public RangerInterface (PlayerClient pc) { super(pc); }
 
+    /**
+     * Select how range and intensity data are decoded.
+     * <br><br>
+     * By default every message is decoded into new data objects holding
+     * double precision arrays. With <b>reuseBuffers</b> set, the interface
+     * alternates between two data objects and keeps their arrays from one
+     * message to the next, so that decoding does not allocate; a data object
+     * returned by getData () or getDataIntns () then stays valid only until
+     * the next message but one of the same type. With
+     * <b>singlePrecision</b> set, the readings are stored as floats, which
+     * halves their memory footprint; use PlayerRangerData.getRangesFloat ()
+     * and PlayerRangerDataIntns.getIntensFloat () to read them without
+     * conversion.
+     * @param reuseBuffers true to reuse the data objects and their arrays
+     * @param singlePrecision true to store the readings as floats
+     */
+    public synchronized void setDecodingMode (boolean reuseBuffers,
+                                              boolean singlePrecision) {
+        this.reuseBuffers    = reuseBuffers;
+        this.singlePrecision = singlePrecision;
+    }
+
     /**
      * Read the ranger values.
      */
@@ -77,67 +114,85 @@ public class RangerInterface extends PlayerDevice {
                 case PLAYER_RANGER_DATA_RANGE: {
                     this.timestamp = header.getTimestamp();
 
-                    // Buffer for reading ranges_count
-                    byte[] buffer = new byte[4];
-
-                    // Read ranges_count
-                    is.readFully (buffer, 0, 4);
-
-                    // Begin decoding the XDR buffer
-                    XdrBufferDecodingStream xdr = new XdrBufferDecodingStream (buffer);
-                    xdr.beginDecoding ();
+                    XdrByteBufferDecodingStream xdr = readXdr (header.getSize ());
                     int rangesCount = xdr.xdrDecodeInt ();
-                    xdr.endDecoding   ();
-                    xdr.close ();
-
-                    // Buffer for reading range values
-                    buffer = new byte[rangesCount * 8 + 4];
-
-                    // Read range values
-                    is.readFully (buffer, 0, rangesCount * 8 + 4);
-                    xdr = new XdrBufferDecodingStream (buffer);
-                    xdr.beginDecoding ();
-                    double[] ranges = xdr.xdrDecodeDoubleVector ();
-                    xdr.endDecoding   ();
-                    xdr.close ();
-
-                    prdata = new PlayerRangerData ();
-                    prdata.setRanges (ranges);
+                    xdr.xdrDecodeInt ();                   // array count
+
+                    PlayerRangerData data;
+                    if (reuseBuffers) {
+                        currentRanges = 1 - currentRanges;
+                        if (rangeData[currentRanges] == null)
+                            rangeData[currentRanges] = new PlayerRangerData ();
+                        data = rangeData[currentRanges];
+                    } else
+                        data = new PlayerRangerData ();
+
+                    if (singlePrecision) {
+                        float[] values = rangesFloat[currentRanges];
+                        if (!reuseBuffers || values == null ||
+                                values.length != rangesCount)
+                            values = new float[rangesCount];
+                        xdr.xdrDecodeDoubleFixedVectorAsFloat
+                            (values, 0, rangesCount);
+                        data.setRangesFloat (values);
+                        if (reuseBuffers)
+                            rangesFloat[currentRanges] = values;
+                    } else {
+                        double[] values = rangesDouble[currentRanges];
+                        if (!reuseBuffers || values == null ||
+                                values.length != rangesCount)
+                            values = new double[rangesCount];
+                        xdr.xdrDecodeDoubleFixedVector (values, 0, rangesCount);
+                        data.setRanges (values);
+                        if (reuseBuffers)
+                            rangesDouble[currentRanges] = values;
+                    }
 
+                    prdata = data;
                     readyPrdata = true;
+                    publishData (prdata);
                     break;
                 }
                 case PLAYER_RANGER_DATA_INTNS: {
                     this.timestamp = header.getTimestamp();
 
-                    // Buffer for reading intens_count
-                    byte[] buffer = new byte[4];
-
-                    // Read intens_count
-                    is.readFully (buffer, 0, 4);
-
-                    // Begin decoding the XDR buffer
-                    XdrBufferDecodingStream xdr = new XdrBufferDecodingStream (buffer);
-                    xdr.beginDecoding ();
+                    XdrByteBufferDecodingStream xdr = readXdr (header.getSize ());
                     int intensCount = xdr.xdrDecodeInt ();
-                    xdr.endDecoding   ();
-                    xdr.close ();
-
-                    // Buffer for reading intensity values
-                    buffer = new byte[intensCount * 8 + 4];
-
-                    // Read intensity values
-                    is.readFully (buffer, 0, intensCount * 8 + 4);
-                    xdr = new XdrBufferDecodingStream (buffer);
-                    xdr.beginDecoding ();
-                    double[] intens = xdr.xdrDecodeDoubleVector ();
-                    xdr.endDecoding   ();
-                    xdr.close ();
-
-                    printn = new PlayerRangerDataIntns ();
-                    printn.setIntns (intens);
+                    xdr.xdrDecodeInt ();                   // array count
+
+                    PlayerRangerDataIntns data;
+                    if (reuseBuffers) {
+                        currentIntns = 1 - currentIntns;
+                        if (intnsData[currentIntns] == null)
+                            intnsData[currentIntns] = new PlayerRangerDataIntns ();
+                        data = intnsData[currentIntns];
+                    } else
+                        data = new PlayerRangerDataIntns ();
+
+                    if (singlePrecision) {
+                        float[] values = intnsFloat[currentIntns];
+                        if (!reuseBuffers || values == null ||
+                                values.length != intensCount)
+                            values = new float[intensCount];
+                        xdr.xdrDecodeDoubleFixedVectorAsFloat
+                            (values, 0, intensCount);
+                        data.setIntnsFloat (values);
+                        if (reuseBuffers)
+                            intnsFloat[currentIntns] = values;
+                    } else {
+                        double[] values = intnsDouble[currentIntns];
+                        if (!reuseBuffers || values == null ||
+                                values.length != intensCount)
+                            values = new double[intensCount];
+                        xdr.xdrDecodeDoubleFixedVector (values, 0, intensCount);
+                        data.setIntns (values);
+                        if (reuseBuffers)
+                            intnsDouble[currentIntns] = values;
+                    }
 
+                    printn = data;
                     readyPrintn = true;
+                    publishData (printn);
                     break;
                 }
 
@@ -181,7 +236,7 @@ public class RangerInterface extends PlayerDevice {
      * Check if range data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPrdata) {
             readyPrdata = false;
             return true;
@@ -193,7 +248,7 @@ public class RangerInterface extends PlayerDevice {
      * Check if intensity data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataIntnsReady () {
+    public synchronized boolean isDataIntnsReady () {
         if (readyPrintn) {
             readyPrintn = false;
             return true;
@@ -205,7 +260,7 @@ public class RangerInterface extends PlayerDevice {
      * Check if geometry data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isGeomReady () {
+    public synchronized boolean isGeomReady () {
         if (readyPrgeom) {
             readyPrgeom = false;
             return true;
@@ -217,7 +272,7 @@ public class RangerInterface extends PlayerDevice {
      * Check if configuration data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isConfReady () {
+    public synchronized boolean isConfReady () {
         if (readyPrconf) {
             readyPrconf = false;
             return true;
@@ -231,14 +286,7 @@ public class RangerInterface extends PlayerDevice {
      * See the player_ranger_geom structure from player.h
      */
     public void queryGeometry () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_RANGER_REQ_GET_GEOM, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Ranger] : Couldn't request PLAYER_RANGER_REQ_GET_GEOM: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_RANGER_REQ_GET_GEOM, 0);
     }
 
     /**
@@ -247,14 +295,7 @@ public class RangerInterface extends PlayerDevice {
      * See the player_ranger_config structure from player.h
      */
     public void queryConfiguration () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_RANGER_REQ_GET_CONFIG, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Ranger] : Couldn't request PLAYER_RANGER_REQ_GET_CONFIG: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_RANGER_REQ_GET_CONFIG, 0);
     }
 
     /**
@@ -269,14 +310,11 @@ public class RangerInterface extends PlayerDevice {
      */
     public void setRangerPower (int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_RANGER_REQ_POWER, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_RANGER_REQ_POWER, 4);
             xdr.xdrEncodeByte ((byte)state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Ranger] : Couldn't request PLAYER_RANGER_REQ_POWER: " +
@@ -292,7 +330,7 @@ public class RangerInterface extends PlayerDevice {
      * Handle acknowledgement response messages
      * @param header Player header
      */
-    public void handleResponse (PlayerMsgHdr header) {
+    public synchronized void handleResponse (PlayerMsgHdr header) {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_RANGER_REQ_GET_GEOM: {
@@ -385,6 +423,7 @@ public class RangerInterface extends PlayerDevice {
                     prgeom.setSizes (pbr);
 
                     readyPrgeom = true;
+                    publishData (prgeom);
                     break;
                 }
                 case PLAYER_RANGER_REQ_GET_CONFIG: {
@@ -409,6 +448,7 @@ public class RangerInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPrconf = true;
+                    publishData (prconf);
                     break;
                 }
                 case PLAYER_RANGER_REQ_POWER: {
@@ -93,6 +93,7 @@ public class SimulationInterface extends PlayerDevice {
             xdr.close ();
 
             readyData = true;
+            publishData (data);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Simulation] : Error reading payload: " +
@@ -121,7 +122,7 @@ public class SimulationInterface extends PlayerDevice {
      * Check if 2D pose data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isPose2DReady () {
+    public synchronized boolean isPose2DReady () {
         if (readyPsp2dreq) {
             readyPsp2dreq = false;
             return true;
@@ -133,7 +134,7 @@ public class SimulationInterface extends PlayerDevice {
      * Check if 3D pose data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isPose3DReady () {
+    public synchronized boolean isPose3DReady () {
         if (readyPsp3dreq) {
             readyPsp3dreq = false;
             return true;
@@ -152,7 +153,7 @@ public class SimulationInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyData) {
             readyData = false;
             return true;
@@ -169,14 +170,11 @@ public class SimulationInterface extends PlayerDevice {
      */
     public void setPosition (byte cmd) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, 0, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, 0, 4);
             xdr.xdrEncodeByte ((byte)cmd);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Simulation] : Couldn't send command: " +
@@ -208,28 +206,16 @@ public class SimulationInterface extends PlayerDevice {
 
             int size = 8 + 24 + temp.length () + leftOvers;
 
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_SIMULATION_REQ_SET_POSE2D, size);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_SIMULATION_REQ_SET_POSE2D, size);
             xdr.xdrEncodeInt (temp.length () + 1);
             xdr.xdrEncodeInt (temp.length () + 1);
-            xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-
-            os.writeBytes (temp);
-            byte[] buf = new byte[leftOvers];
-            os.write (buf, 0, leftOvers);
-
-            xdr = new XdrBufferEncodingStream (24);
-            xdr.beginEncoding (null, 0);
+            xdr.xdrEncodeOpaque (temp.getBytes ());
             xdr.xdrEncodeDouble (pp.getPx ());
             xdr.xdrEncodeDouble (pp.getPy ());
             xdr.xdrEncodeDouble (pp.getPa ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Simulation] : Couldn't request " +
@@ -254,22 +240,16 @@ public class SimulationInterface extends PlayerDevice {
 
             int size = 8 + extraLen + temp.length () + leftOvers;
 
-            sendHeader (PLAYER_MSGTYPE_REQ, cmd, size);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (8);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, cmd, size);
             xdr.xdrEncodeInt (temp.length () + 1);    // name_count
             xdr.xdrEncodeInt (temp.length () + 1);    // array_count
+            xdr.xdrEncodeOpaque (temp.getBytes ());
+            // Empty pose, filled in by the server
+            for (int i = 0; i < extraLen; i += 4)
+                xdr.xdrEncodeInt (0);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-
-            os.writeBytes (temp);
-            byte[] buf = new byte[leftOvers];
-            os.write (buf, 0, leftOvers);
-
-            buf = new byte[extraLen];
-            os.write (buf, 0, extraLen);
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Simulation] : Couldn't request " +
@@ -346,6 +326,7 @@ public class SimulationInterface extends PlayerDevice {
         psp2dreq.setPose (pp);
 
         readyPsp2dreq  = true;
+        publishData (psp2dreq);
     }
 
     private void handleResponse3D() throws IOException, OncRpcException
@@ -395,13 +376,14 @@ public class SimulationInterface extends PlayerDevice {
         xdr.close ();
 
         readyPsp3dreq  = true;
+        publishData (psp3dreq);
     }
 
     /**
      * Handle acknowledgement response messages.
      * @param header Player header
      */
-    protected void handleResponse (PlayerMsgHdr header) {
+    protected synchronized void handleResponse (PlayerMsgHdr header) {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_SIMULATION_REQ_GET_POSE2D:
@@ -99,6 +99,7 @@ public class SonarInterface extends PlayerDevice {
                     psdata.setRanges (ranges);
 
                     readyPsdata = true;
+                    publishData (psdata);
                     break;
                 }
             }
@@ -129,7 +130,7 @@ public class SonarInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPsdata) {
             readyPsdata = false;
             return true;
@@ -141,7 +142,7 @@ public class SonarInterface extends PlayerDevice {
      * Check if geometry data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isGeomReady () {
+    public synchronized boolean isGeomReady () {
         if (readyPsgeom) {
             readyPsgeom = false;
             return true;
@@ -155,14 +156,7 @@ public class SonarInterface extends PlayerDevice {
      * See the player_sonar_geom structure from player.h
      */
     public void queryGeometry () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_SONAR_REQ_GET_GEOM, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Sonar] : Couldn't request PLAYER_SONAR_REQ_GET_GEOM: " +
-                        e.toString(), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_SONAR_REQ_GET_GEOM, 0);
     }
 
     /**
@@ -177,14 +171,11 @@ public class SonarInterface extends PlayerDevice {
      */
     public void setSonarPower (int state) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_SONAR_REQ_POWER, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_SONAR_REQ_POWER, 4);
             xdr.xdrEncodeByte ((byte)state);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Sonar] : Couldn't request PLAYER_SONAR_REQ_POWER: " +
@@ -200,7 +191,7 @@ public class SonarInterface extends PlayerDevice {
      * Handle acknowledgement response messages
      * @param header Player header
      */
-    public void handleResponse (PlayerMsgHdr header) {
+    public synchronized void handleResponse (PlayerMsgHdr header) {
         try {
             switch (header.getSubtype ()) {
                 case PLAYER_SONAR_REQ_GET_GEOM: {
@@ -243,6 +234,7 @@ public class SonarInterface extends PlayerDevice {
                     psgeom.setPoses (pps);
 
                     readyPsgeom = true;
+                    publishData (psgeom);
                     break;
                 }
                 case PLAYER_SONAR_REQ_POWER: {
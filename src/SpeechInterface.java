@@ -60,15 +60,12 @@ public class SpeechInterface extends PlayerDevice {
                 leftOvers = 4 - (temp.length () % 4);
             int size = 4 + 4 + temp.length () + leftOvers;
 
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_SPEECH_CMD_SAY, size);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (size);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_SPEECH_CMD_SAY, size);
             xdr.xdrEncodeInt  (temp.length ());  // count also the ending '\0'
             xdr.xdrEncodeString(temp);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[Speech] : Couldn't send speech command request: " +
@@ -81,6 +81,7 @@ public class SpeechRecognitionInterface extends PlayerDevice {
                         is.readFully (buffer, 0, 4 - (psrdata.getText_count () % 4));
 
                     readyPsrdata = true;
+                    publishData (psrdata);
                     break;
                 }
             }
@@ -105,7 +106,7 @@ public class SpeechRecognitionInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPsrdata) {
             readyPsrdata = false;
             return true;
@@ -29,7 +29,7 @@ import javaclient3.structures.camera.PlayerCameraData;
 import javaclient3.structures.stereo.PlayerStereoData;
 import javaclient3.structures.stereo.PlayerPointCloud3dStereoElement;
 import javaclient3.xdr.OncRpcException;
-import javaclient3.xdr.XdrBufferDecodingStream;
+import javaclient3.xdr.XdrByteBufferDecodingStream;
 
 /**
  * Stereo imagery (left-right channels, disparity and a 3-D stereo point cloud).
@@ -54,6 +54,14 @@ public class StereoInterface extends PlayerDevice {
     private PlayerStereoData psdata;
     private boolean          readyPsdata = false;
 
+    // Two sets of reusable frames and point buffers, used in turn
+    private final PlayerStereoData[] frames = new PlayerStereoData[2];
+    private final float[][]  x   = new float[2][];
+    private final float[][]  y   = new float[2][];
+    private final float[][]  z   = new float[2][];
+    private final byte[][]   rgb = new byte[2][];
+    private int              current;
+
 
     /**
      * Constructor for StereoInterface.
@@ -73,50 +81,50 @@ public class StereoInterface extends PlayerDevice {
                 case PLAYER_STEREO_DATA_STATE: {
                     this.timestamp = header.getTimestamp();
 
-                    psdata = new PlayerStereoData ();
-                    psdata.setLeftChannel  (readCameraData ());
-                    psdata.setRightChannel (readCameraData ());
-                    psdata.setDisparity    (readCameraData ());
-
-                    // Buffer for points_count, array_count
-                    byte[] buffer = new byte[8];
-                    // Read points_count, array_count
-                    is.readFully (buffer, 0, 8);
-
-                    // Begin decoding the XDR buffer
-                    XdrBufferDecodingStream xdr = new XdrBufferDecodingStream (buffer);
-                    xdr.beginDecoding ();
-                    int pointsCount = xdr.xdrDecodeInt (); // points_count
-                    xdr.endDecoding ();
-                    xdr.close ();
-
-                    // Buffer for reading point cloud and stereo mode (points_count*24 + 4)
-                    buffer = new byte[pointsCount*24 + 4];
-                    // Read points position and color and setero mode
-                    is.readFully (buffer, 0, pointsCount*24 + 4);
-
-                    PlayerPointCloud3dStereoElement[] points =
-                        new PlayerPointCloud3dStereoElement[pointsCount];
-                    for (int i = 0; i < pointsCount; i++) {
-                        points[i] = new PlayerPointCloud3dStereoElement ();
-
-                        xdr = new XdrBufferDecodingStream (buffer);
-                        xdr.beginDecoding ();
-                        points[i].setPx    (xdr.xdrDecodeFloat ());
-                        points[i].setPy    (xdr.xdrDecodeFloat ());
-                        points[i].setPz    (xdr.xdrDecodeFloat ());
-                        points[i].setRed   (xdr.xdrDecodeByte  ());
-                        points[i].setGreen (xdr.xdrDecodeByte  ());
-                        points[i].setBlue  (xdr.xdrDecodeByte  ());
-                        xdr.endDecoding ();
-                        xdr.close ();
+                    // Decode into the buffers not handed out last time
+                    current = 1 - current;
+                    if (frames[current] == null) {
+                        frames[current] = new PlayerStereoData ();
+                        frames[current].setLeftChannel  (new PlayerCameraData ());
+                        frames[current].setRightChannel (new PlayerCameraData ());
+                        frames[current].setDisparity    (new PlayerCameraData ());
                     }
-
+                    psdata = frames[current];
+                    readCameraData (psdata.getLeftChannel  ());
+                    readCameraData (psdata.getRightChannel ());
+                    readCameraData (psdata.getDisparity    ());
+
+                    // points_count, array_count
+                    XdrByteBufferDecodingStream xdr = readXdr (8);
+                    int pointsCount = xdr.xdrDecodeInt ();
+                    xdr.xdrDecodeInt ();
+
+                    // Points (3 floats and 3 bytes each, 24 bytes), then the
+                    // stereo mode, all decoded in a single pass
+                    xdr = readXdr (pointsCount * 24 + 4);
+                    if (x[current] == null || x[current].length < pointsCount) {
+                        x[current]   = new float[pointsCount];
+                        y[current]   = new float[pointsCount];
+                        z[current]   = new float[pointsCount];
+                        rgb[current] = new byte[3 * pointsCount];
+                    }
+                    float[] px = x[current];
+                    float[] py = y[current];
+                    float[] pz = z[current];
+                    byte[]  pc = rgb[current];
+                    for (int i = 0, j = 0; i < pointsCount; i++) {
+                        px[i]   = xdr.xdrDecodeFloat ();
+                        py[i]   = xdr.xdrDecodeFloat ();
+                        pz[i]   = xdr.xdrDecodeFloat ();
+                        pc[j++] = xdr.xdrDecodeByte  ();
+                        pc[j++] = xdr.xdrDecodeByte  ();
+                        pc[j++] = xdr.xdrDecodeByte  ();
+                    }
+                    psdata.setPoints (pointsCount, px, py, pz, pc);
                     psdata.setMode (xdr.xdrDecodeInt ());
 
-                    psdata.setPoints (points);
-
                     readyPsdata = true;
+                    publishData (psdata);
                     break;
                 }
             }
@@ -132,7 +140,9 @@ public class StereoInterface extends PlayerDevice {
     }
 
     /**
-     * Get the stereo data.
+     * Get the stereo data. The images and the point cloud arrays are reused:
+     * the returned data stays valid while the next frame is decoded, and is
+     * overwritten by the one after. Copy it if it has to be kept longer.
      * @return An object of type PlayerStereoData containing the requested data.
      */
     public PlayerStereoData getData () { return this.psdata; }
@@ -141,7 +151,7 @@ public class StereoInterface extends PlayerDevice {
      * Check if data is available.
      * @return True if ready, false if not ready.
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPsdata) {
             readyPsdata = false;
             return true;
@@ -150,62 +160,41 @@ public class StereoInterface extends PlayerDevice {
     }
 
     /**
-     * Read an image (PlayerCameraData structure) from the server.
+     * Read an image (PlayerCameraData structure) from the server into the
+     * given structure. The image array of the structure is reused when it
+     * has the right size.
+     * @param image the structure to fill in
      * @throws OncRpcException if an ONC/RPC error occurs.
      * @throws IOException if an I/O error occurs.
      */
-    private PlayerCameraData readCameraData () throws OncRpcException, IOException {
-
-        // Buffer for reading width, height, bpp, format, fdiv, compression, image_count
-        byte[] buffer = new byte[28];
-        // Read width, height, bpp, format, fdiv, compression, image_count
-        is.readFully (buffer, 0, 28);
-
-        PlayerCameraData image = new PlayerCameraData ();
-
-        // Begin decoding the XDR buffer
-        XdrBufferDecodingStream xdr = new XdrBufferDecodingStream (buffer);
-        xdr.beginDecoding ();
-
+    private void readCameraData (PlayerCameraData image)
+            throws OncRpcException, IOException {
+        // width, height, bpp, format, fdiv, compression, image_count, and
+        // the length of the image array as encoded by xdr_bytes
+        XdrByteBufferDecodingStream xdr = readXdr (32);
         image.setWidth       (xdr.xdrDecodeInt ());
         image.setHeight      (xdr.xdrDecodeInt ());
         image.setBpp         (xdr.xdrDecodeInt ());
         image.setFormat      (xdr.xdrDecodeInt ());
         image.setFdiv        (xdr.xdrDecodeInt ());
         image.setCompression (xdr.xdrDecodeInt ());
-        int imageCount      = xdr.xdrDecodeInt ();
-        xdr.endDecoding   ();
-        xdr.close ();
-
-        // Read the length of the image array as reported by
-        // the XDR encoded byte stream (xdr_bytes) - note that
-        // an XDR encoded byte stream is simply the byte stream
-        // itself prepended with its length. Check that
-        // this matches up with imageCount. We could also have
-        // used xdrDecodeByteVector for this but if we did we
-        // wouldn't be able to do this check (that plus we
-        // would have needed to allocate a suitably sized
-        // buffer to create the xdr object anyway).
-        is.readFully(buffer, 0, 4);
-        xdr = new XdrBufferDecodingStream(buffer);
-        xdr.beginDecoding();
-        int imageCountFromXDR = xdr.xdrDecodeInt();
-        xdr.endDecoding();
-        xdr.close();
+        int imageCount        = xdr.xdrDecodeInt ();
+        int imageCountFromXDR = xdr.xdrDecodeInt ();
 
         if (imageCountFromXDR != imageCount)
         {
             throw new PlayerException
-                ("[Camera] : Error reading image bytestream, header reports a length of " +
+                ("[Stereo] : Error reading image bytestream, header reports a length of " +
                  imageCount + " bytes, XDR reports a length of " + imageCountFromXDR + " bytes.");
         }
 
-        // Buffer for reading image
-        buffer = new byte[imageCount];
-
-        is.readFully (buffer, 0, imageCount);
-        image.setImage (buffer);
-
-        return image;
+        byte[] buffer = image.getImage ();
+        if (buffer == null || buffer.length != imageCount) {
+            buffer = new byte[imageCount];
+            image.setImage (buffer);
+        }
+        // The image bytes are padded to a multiple of four
+        xdr = readXdr ((imageCount + 3) & ~3);
+        xdr.xdrDecodeOpaque (buffer, 0, imageCount);
     }
 }
@@ -0,0 +1,424 @@
+/*
+ *  Player Java Client 3 - VectorMapIndex.java
+ *  Copyright (C) 2002-2006 Radu Bogdan Rusu, Maxim Batalin
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * $Id$
+ *
+ */
+package javaclient3;
+
+import java.util.Arrays;
+
+import javaclient3.structures.PlayerSegment;
+import javaclient3.structures.map.PlayerMapDataVector;
+
+/**
+ * A spatial index over the line segments of a vector map (see
+ * MapInterface.requestMapDataVector ()), answering ray casting, range and
+ * nearest segment queries in logarithmic time instead of scanning every
+ * segment.
+ * <br><br>
+ * The segments are packed into a double array and organized in a bounding
+ * volume hierarchy (median split along the longest axis, a few segments
+ * per leaf). Segments are identified by their index in the original array.
+ * The index is immutable once built, and all queries are thread-safe.
+ * @version
+ * <ul>
+ *      <li>v3.0 - Player 3.0 supported
+ * </ul>
+ */
+public class VectorMapIndex {
+
+    // Maximum number of segments in a leaf
+    private static final int LEAF_SIZE = 4;
+
+    // Maximum depth of the tree (median splits keep it near log2 (n))
+    private static final int MAX_DEPTH = 64;
+
+    private final int      count;
+    // x0, y0, x1, y1 of each segment, in tree order
+    private final double[] seg;
+    // Original index of each segment in tree order
+    private final int[]    ids;
+    // Tree position of each original segment
+    private final int[]    pos;
+
+    // Nodes: bounding box (minx, miny, maxx, maxy), then for a leaf the
+    // first segment and the number of segments, for an inner node the
+    // index of the first of its two consecutive children and 0
+    private double[] box;
+    private int[]    first;
+    private int[]    size;
+    private int      nodes;
+
+    /**
+     * Build an index over the segments of a vector map.
+     * @param map the vector map
+     */
+    public VectorMapIndex (PlayerMapDataVector map) {
+        this (map.getSegments ());
+    }
+
+    /**
+     * Build an index over the given segments.
+     * @param segments the segments
+     */
+    public VectorMapIndex (PlayerSegment[] segments) {
+        this (pack (segments), (segments == null) ? 0 : segments.length);
+    }
+
+    /**
+     * Build an index over packed segments.
+     * @param coords x0, y0, x1, y1 of each segment, which are copied
+     * @param count number of segments
+     */
+    public VectorMapIndex (double[] coords, int count) {
+        this.count = count;
+        this.seg   = new double[4 * count];
+        this.ids   = new int[count];
+        this.pos   = new int[count];
+
+        int maxNodes = Math.max (1, 2 * count);
+        box   = new double[4 * maxNodes];
+        first = new int[maxNodes];
+        size  = new int[maxNodes];
+
+        double[] centers = new double[2 * count];
+        int[]    order   = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i]           = i;
+            centers[2 * i]     = (coords[4 * i]     + coords[4 * i + 2]) / 2;
+            centers[2 * i + 1] = (coords[4 * i + 1] + coords[4 * i + 3]) / 2;
+        }
+        nodes = 1;
+        build (0, 0, count, coords, centers, order);
+
+        for (int i = 0; i < count; i++) {
+            System.arraycopy (coords, 4 * order[i], seg, 4 * i, 4);
+            ids[i]        = order[i];
+            pos[order[i]] = i;
+        }
+        box   = Arrays.copyOf (box, 4 * nodes);
+        first = Arrays.copyOf (first, nodes);
+        size  = Arrays.copyOf (size, nodes);
+    }
+
+    private static double[] pack (PlayerSegment[] segments) {
+        if (segments == null)
+            return new double[0];
+        double[] coords = new double[4 * segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            coords[4 * i]     = segments[i].getX0 ();
+            coords[4 * i + 1] = segments[i].getY0 ();
+            coords[4 * i + 2] = segments[i].getX1 ();
+            coords[4 * i + 3] = segments[i].getY1 ();
+        }
+        return coords;
+    }
+
+    // Build the subtree of node over order[lo..hi)
+    private void build (int node, int lo, int hi, double[] coords,
+                        double[] centers, int[] order) {
+        double minx = Double.POSITIVE_INFINITY, miny = Double.POSITIVE_INFINITY;
+        double maxx = Double.NEGATIVE_INFINITY, maxy = Double.NEGATIVE_INFINITY;
+        for (int i = lo; i < hi; i++) {
+            int s = 4 * order[i];
+            minx = Math.min (minx, Math.min (coords[s],     coords[s + 2]));
+            miny = Math.min (miny, Math.min (coords[s + 1], coords[s + 3]));
+            maxx = Math.max (maxx, Math.max (coords[s],     coords[s + 2]));
+            maxy = Math.max (maxy, Math.max (coords[s + 1], coords[s + 3]));
+        }
+        box[4 * node]     = minx;
+        box[4 * node + 1] = miny;
+        box[4 * node + 2] = maxx;
+        box[4 * node + 3] = maxy;
+
+        if (hi - lo <= LEAF_SIZE) {
+            first[node] = lo;
+            size[node]  = hi - lo;
+            return;
+        }
+
+        // Split at the median along the longest axis
+        int axis = (maxx - minx >= maxy - miny) ? 0 : 1;
+        int mid  = (lo + hi) >>> 1;
+        select (order, centers, axis, lo, hi - 1, mid);
+
+        int child = nodes;
+        nodes += 2;
+        first[node] = child;
+        size[node]  = 0;
+        build (child,     lo,  mid, coords, centers, order);
+        build (child + 1, mid, hi,  coords, centers, order);
+    }
+
+    // Partially sort order[lo..hi] so that order[k] has the median key
+    private static void select (int[] order, double[] centers, int axis,
+                                int lo, int hi, int k) {
+        while (hi > lo) {
+            double pivot = centers[2 * order[(lo + hi) >>> 1] + axis];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (centers[2 * order[i] + axis] < pivot) i++;
+                while (centers[2 * order[j] + axis] > pivot) j--;
+                if (i <= j) {
+                    int t = order[i]; order[i] = order[j]; order[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j)
+                hi = j;
+            else if (k >= i)
+                lo = i;
+            else
+                return;
+        }
+    }
+
+    /**
+     * @return the number of segments
+     */
+    public int getSegmentCount () {
+        return count;
+    }
+
+    /**
+     * Get the coordinates of a segment.
+     * @param index index of the segment in the original array
+     * @param coords array receiving x0, y0, x1, y1 [m]
+     */
+    public void getSegment (int index, double[] coords) {
+        System.arraycopy (seg, 4 * pos[index], coords, 0, 4);
+    }
+
+    /**
+     * Cast a ray and return the distance to the first segment it crosses.
+     * @param x X coordinate of the ray origin [m]
+     * @param y Y coordinate of the ray origin [m]
+     * @param angle direction of the ray [rad]
+     * @param maxRange maximum range [m]
+     * @return distance to the nearest intersection [m], or maxRange if
+     * there is none within range
+     */
+    public double raycast (double x, double y, double angle, double maxRange) {
+        double[] hit = { maxRange };
+        raycast (x, y, angle, hit);
+        return hit[0];
+    }
+
+    /**
+     * Cast a ray and find the first segment it crosses.
+     * @param x X coordinate of the ray origin [m]
+     * @param y Y coordinate of the ray origin [m]
+     * @param angle direction of the ray [rad]
+     * @param range on input, the maximum range [m]; on output, the distance
+     * to the intersection, if any (first element of the array)
+     * @return the index of the segment hit, or -1 if there is none within
+     * range
+     */
+    public int raycast (double x, double y, double angle, double[] range) {
+        if (count == 0)
+            return -1;
+        double dx   = Math.cos (angle);
+        double dy   = Math.sin (angle);
+        double invx = 1.0 / dx;
+        double invy = 1.0 / dy;
+        double best = range[0];
+        int    hit  = -1;
+
+        int[] stack = new int[MAX_DEPTH];
+        int   top   = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (rayBox (node, x, y, invx, invy) > best)
+                continue;
+            if (size[node] == 0) {
+                // Visit the child the ray enters first first
+                int a = first[node], b = a + 1;
+                if (rayBox (a, x, y, invx, invy) < rayBox (b, x, y, invx, invy)) {
+                    stack[top++] = b;
+                    stack[top++] = a;
+                } else {
+                    stack[top++] = a;
+                    stack[top++] = b;
+                }
+                continue;
+            }
+            for (int i = first[node], end = i + size[node]; i < end; i++) {
+                int    s  = 4 * i;
+                double ex = seg[s + 2] - seg[s];
+                double ey = seg[s + 3] - seg[s + 1];
+                double denom = dx * ey - dy * ex;
+                if (denom == 0)
+                    continue;
+                double ax = seg[s]     - x;
+                double ay = seg[s + 1] - y;
+                double t  = (ax * ey - ay * ex) / denom;
+                double u  = (ax * dy - ay * dx) / denom;
+                if (t >= 0 && t < best && u >= 0 && u <= 1) {
+                    best = t;
+                    hit  = ids[i];
+                }
+            }
+        }
+        range[0] = best;
+        return hit;
+    }
+
+    // Entry distance of a ray into the box of a node (slab test), or +inf
+    private double rayBox (int node, double x, double y, double invx,
+                           double invy) {
+        int    b    = 4 * node;
+        double tx0  = (box[b]     - x) * invx;
+        double tx1  = (box[b + 2] - x) * invx;
+        double ty0  = (box[b + 1] - y) * invy;
+        double ty1  = (box[b + 3] - y) * invy;
+        double tmin = Math.max (Math.min (tx0, tx1), Math.min (ty0, ty1));
+        double tmax = Math.min (Math.max (tx0, tx1), Math.max (ty0, ty1));
+        // NaN (ray parallel to and on a slab boundary) counts as a hit
+        if (tmax < 0 || tmin > tmax)
+            return Double.POSITIVE_INFINITY;
+        return Math.max (tmin, 0);
+    }
+
+    /**
+     * Find the segments crossing a rectangle.
+     * @param minx left edge of the rectangle [m]
+     * @param miny bottom edge of the rectangle [m]
+     * @param maxx right edge of the rectangle [m]
+     * @param maxy top edge of the rectangle [m]
+     * @param result array receiving the indices of the segments found;
+     * only its first result.length entries are filled in
+     * @return the number of segments found, which may be larger than
+     * result.length
+     */
+    public int query (double minx, double miny, double maxx, double maxy,
+                      int[] result) {
+        if (count == 0)
+            return 0;
+        int found = 0;
+        int[] stack = new int[MAX_DEPTH];
+        int   top   = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int b    = 4 * node;
+            if (box[b] > maxx || box[b + 2] < minx ||
+                    box[b + 1] > maxy || box[b + 3] < miny)
+                continue;
+            if (size[node] == 0) {
+                stack[top++] = first[node];
+                stack[top++] = first[node] + 1;
+                continue;
+            }
+            for (int i = first[node], end = i + size[node]; i < end; i++)
+                if (crosses (4 * i, minx, miny, maxx, maxy)) {
+                    if (found < result.length)
+                        result[found] = ids[i];
+                    found++;
+                }
+        }
+        return found;
+    }
+
+    // Separating axis test of a segment against a rectangle
+    private boolean crosses (int s, double minx, double miny, double maxx,
+                             double maxy) {
+        double x0 = seg[s],     y0 = seg[s + 1];
+        double x1 = seg[s + 2], y1 = seg[s + 3];
+        if (Math.max (x0, x1) < minx || Math.min (x0, x1) > maxx ||
+                Math.max (y0, y1) < miny || Math.min (y0, y1) > maxy)
+            return false;
+        // The rectangle must not lie entirely on one side of the line
+        double nx = y0 - y1, ny = x1 - x0;
+        double c  = nx * x0 + ny * y0;
+        double a  = nx * minx + ny * miny - c;
+        double b  = nx * maxx + ny * miny - c;
+        double d  = nx * minx + ny * maxy - c;
+        double e  = nx * maxx + ny * maxy - c;
+        return !((a > 0 && b > 0 && d > 0 && e > 0) ||
+                 (a < 0 && b < 0 && d < 0 && e < 0));
+    }
+
+    /**
+     * Find the segment nearest to a point.
+     * @param x X coordinate of the point [m]
+     * @param y Y coordinate of the point [m]
+     * @param distance if not null, receives the distance to the segment [m]
+     * (first element of the array)
+     * @return the index of the nearest segment, or -1 if the index is empty
+     */
+    public int nearest (double x, double y, double[] distance) {
+        if (count == 0)
+            return -1;
+        double best = Double.POSITIVE_INFINITY;
+        int    hit  = -1;
+
+        int[] stack = new int[MAX_DEPTH];
+        int   top   = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (boxDistance2 (node, x, y) >= best)
+                continue;
+            if (size[node] == 0) {
+                // Visit the closer child first
+                int a = first[node], b = a + 1;
+                if (boxDistance2 (a, x, y) < boxDistance2 (b, x, y)) {
+                    stack[top++] = b;
+                    stack[top++] = a;
+                } else {
+                    stack[top++] = a;
+                    stack[top++] = b;
+                }
+                continue;
+            }
+            for (int i = first[node], end = i + size[node]; i < end; i++) {
+                double d = segmentDistance2 (4 * i, x, y);
+                if (d < best) {
+                    best = d;
+                    hit  = ids[i];
+                }
+            }
+        }
+        if (distance != null)
+            distance[0] = Math.sqrt (best);
+        return hit;
+    }
+
+    // Squared distance from a point to the box of a node
+    private double boxDistance2 (int node, double x, double y) {
+        int    b  = 4 * node;
+        double dx = Math.max (0, Math.max (box[b] - x, x - box[b + 2]));
+        double dy = Math.max (0, Math.max (box[b + 1] - y, y - box[b + 3]));
+        return dx * dx + dy * dy;
+    }
+
+    // Squared distance from a point to a segment
+    private double segmentDistance2 (int s, double x, double y) {
+        double x0 = seg[s], y0 = seg[s + 1];
+        double dx = seg[s + 2] - x0, dy = seg[s + 3] - y0;
+        double len2 = dx * dx + dy * dy;
+        double t = (len2 == 0) ? 0 :
+            Math.max (0, Math.min (1, ((x - x0) * dx + (y - y0) * dy) / len2));
+        double ex = x0 + t * dx - x;
+        double ey = y0 + t * dy - y;
+        return ex * ex + ey * ey;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ *  Player Java Client 3 - VirtualThreads.java
+ *  Copyright (C) 2002-2006 Radu Bogdan Rusu, Maxim Batalin
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * $Id$
+ *
+ */
+package javaclient3;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads (Java 21 and later) without requiring them at
+ * compile time. On older runtimes every method falls back to ordinary
+ * daemon threads, so code using this class runs everywhere and simply
+ * scales better on a recent JVM.
+ * <br><br>
+ * Virtual threads suit the blocking decode style of the interfaces: a
+ * PlayerClient started with {@link PlayerClient#runThreadedVirtual()} blocks
+ * on its socket without tying up an operating system thread, and data
+ * listeners registered with {@link #executor()} may block (e.g. to command
+ * another device and wait for its reply) just as cheaply. The reader
+ * thread only benefits from this on Java 24 and later, though: it blocks
+ * while holding monitors, which pins it to its carrier thread on earlier
+ * runtimes (see {@link PlayerClient#runThreadedVirtual()}).
+ * @version
+ * <ul>
+ *      <li>v3.0 - Player 3.0 supported
+ * </ul>
+ */
+public final class VirtualThreads {
+
+    // Thread.ofVirtual ().factory (), or null if unsupported
+    private static final ThreadFactory VIRTUAL_FACTORY = createFactory ();
+
+    // Executor used for callbacks (see executor ())
+    private static final Executor EXECUTOR = createExecutor ();
+
+    private VirtualThreads () { }
+
+    private static ThreadFactory createFactory () {
+        try {
+            Method ofVirtual = Thread.class.getMethod ("ofVirtual");
+            Object builder   = ofVirtual.invoke (null);
+            Class<?> type    = Class.forName ("java.lang.Thread$Builder");
+            return (ThreadFactory)type.getMethod ("factory").invoke (builder);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static Executor createExecutor () {
+        if (VIRTUAL_FACTORY != null)
+            // Virtual threads are cheap: one per task, no pooling
+            return new Executor () {
+                public void execute (Runnable task) {
+                    newThread (task, "javaclient-callback").start ();
+                }
+            };
+        return Executors.newCachedThreadPool (new ThreadFactory () {
+            public Thread newThread (Runnable task) {
+                return VirtualThreads.newThread (task, "javaclient-callback");
+            }
+        });
+    }
+
+    /**
+     * Check whether the running JVM supports virtual threads.
+     * @return true if virtual threads are used, false if the methods of
+     * this class fall back to platform threads
+     */
+    public static boolean isSupported () {
+        return VIRTUAL_FACTORY != null;
+    }
+
+    /**
+     * Create an unstarted thread running the given task: a virtual thread
+     * if supported, a daemon platform thread otherwise.
+     * @param task the task to run
+     * @param name the thread name
+     * @return the new thread
+     */
+    public static Thread newThread (Runnable task, String name) {
+        Thread thread;
+        if (VIRTUAL_FACTORY != null)
+            thread = VIRTUAL_FACTORY.newThread (task);
+        else {
+            thread = new Thread (task);
+            thread.setDaemon (true);
+        }
+        thread.setName (name);
+        return thread;
+    }
+
+    /**
+     * Return a shared executor starting a new virtual thread for every
+     * task (using a cached pool of daemon threads if virtual threads are not
+     * supported). Meant to be passed to
+     * {@link PlayerDevice#addDataListener(Class, java.util.function.Consumer,
+     * Executor)}. Note that listeners run this way may see samples out of
+     * order.
+     * @return the executor
+     */
+    public static Executor executor () {
+        return EXECUTOR;
+    }
+}
@@ -103,6 +103,7 @@ public class WSNInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPwdata = true;
+                    publishData (pwdata);
                     break;
                 }
             }
@@ -128,7 +129,7 @@ public class WSNInterface extends PlayerDevice {
      * Check if data is available.
      * @return True if ready, false if not ready.
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPwdata) {
             readyPwdata = false;
             return true;
@@ -145,17 +146,14 @@ public class WSNInterface extends PlayerDevice {
      */
     public void setDeviceState (PlayerWsnCmd pwc) {
         try {
-            sendHeader (PLAYER_MSGTYPE_CMD, PLAYER_WSN_CMD_DEVSTATE, 16);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (16);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_CMD, PLAYER_WSN_CMD_DEVSTATE, 16);
             xdr.xdrEncodeInt  (pwc.getNode_id  ());
             xdr.xdrEncodeInt  (pwc.getGroup_id ());
             xdr.xdrEncodeInt  (pwc.getDevice   ());
             xdr.xdrEncodeByte (pwc.getState    ());
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[WSN] : Couldn't send set LED command: " +
@@ -178,16 +176,13 @@ public class WSNInterface extends PlayerDevice {
      */
     public void setPower (int nodeID, int groupID, int value) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_WSN_REQ_POWER, 12);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (12);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_WSN_REQ_POWER, 12);
             xdr.xdrEncodeInt  (nodeID);
             xdr.xdrEncodeInt  (groupID);
             xdr.xdrEncodeByte ((byte)value);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[WSN] : Couldn't request PLAYER_WSN_POWER_REQ" +
@@ -209,14 +204,11 @@ public class WSNInterface extends PlayerDevice {
      */
     public void setDataType (int value) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_WSN_REQ_DATATYPE, 4);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (4);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_WSN_REQ_DATATYPE, 4);
             xdr.xdrEncodeByte ((byte)value);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[WSN] : Couldn't request PLAYER_WSN_REQ_DATATYPE" +
@@ -240,16 +232,13 @@ public class WSNInterface extends PlayerDevice {
      */
     public void setDataFreq (int nodeID, int groupID, double frequency) {
         try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_WSN_REQ_DATAFREQ, 16);
-            XdrBufferEncodingStream xdr = new XdrBufferEncodingStream (16);
-            xdr.beginEncoding (null, 0);
+            XdrBufferEncodingStream xdr = beginMessage
+                (PLAYER_MSGTYPE_REQ, PLAYER_WSN_REQ_DATAFREQ, 16);
             xdr.xdrEncodeInt  (nodeID);
             xdr.xdrEncodeInt  (groupID);
             xdr.xdrEncodeDouble (frequency);
             xdr.endEncoding ();
-            os.write (xdr.getXdrData (), 0, xdr.getXdrLength ());
-            xdr.close ();
-            os.flush ();
+            sendMessage (xdr);
         } catch (IOException e) {
             throw new PlayerException
                 ("[WSN] : Couldn't request PLAYER_WSN_REQ_DATAFREQ" +
@@ -265,7 +254,7 @@ public class WSNInterface extends PlayerDevice {
      * Handle acknowledgement response messages.
      * @param header Player message header.
      */
-    public void handleResponse (PlayerMsgHdr header) {
+    public synchronized void handleResponse (PlayerMsgHdr header) {
         switch (header.getSubtype ()) {
             case PLAYER_WSN_REQ_POWER: {
                 // null response
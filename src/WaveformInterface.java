@@ -88,6 +88,7 @@ public class WaveformInterface extends PlayerDevice {
                         is.readFully (buffer, 0, 4 - (pwdata.getData_count () % 4));
 
                     readyPwdata = true;
+                    publishData (pwdata);
                     break;
                 }
             }
@@ -112,7 +113,7 @@ public class WaveformInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPwdata) {
             readyPwdata = false;
             return true;
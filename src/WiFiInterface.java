@@ -121,6 +121,7 @@ public class WiFiInterface extends PlayerDevice {
                     xdr.close ();
 
                     readyPwdata = true;
+                    publishData (pwdata);
                     break;
                 }
             }
@@ -144,7 +145,7 @@ public class WiFiInterface extends PlayerDevice {
      * Check if data is available.
      * @return true if ready, false if not ready
      */
-    public boolean isDataReady () {
+    public synchronized boolean isDataReady () {
         if (readyPwdata) {
             readyPwdata = false;
             return true;
@@ -158,14 +159,7 @@ public class WiFiInterface extends PlayerDevice {
      * See the player_wifi_mac_req structure from player.h
      */
     public void queryWifiMac () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_WIFI_REQ_MAC, 0);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Wifi] : Couldn't request PLAYER_WIFI_REQ_MAC: " +
-                        e.toString (), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_WIFI_REQ_MAC, 0);
     }
 
     /**
@@ -174,21 +168,14 @@ public class WiFiInterface extends PlayerDevice {
      * See the player_wifi_iwspy_addr_req structure from player.h
      */
     public void queryWifiIwspyAddrAdd () {
-        try {
-            sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_WIFI_REQ_IWSPY_ADD, 32*4);
-            os.flush ();
-        } catch (IOException e) {
-            throw new PlayerException
-                ("[Wifi] : Couldn't request PLAYER_WIFI_REQ_IWSPY_ADD: " +
-                        e.toString (), e);
-        }
+        sendHeader (PLAYER_MSGTYPE_REQ, PLAYER_WIFI_REQ_IWSPY_ADD, 32*4);
     }
 
     /**
      * Handle acknowledgement response messages.
      * @param header Player header
      */
-    public void handleResponse (PlayerMsgHdr header) {
+    public synchronized void handleResponse (PlayerMsgHdr header) {
         switch (header.getSubtype ()) {
             case PLAYER_WIFI_REQ_MAC: {
                 break;
@@ -0,0 +1,193 @@
+/*
+ *  Player Java Client 3 - PlayerCameraFrame.java
+ *  Copyright (C) 2006 Radu Bogdan Rusu
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * $Id$
+ *
+ */
+
+package javaclient3.structures.camera;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+
+import javaclient3.structures.*;
+
+/**
+ * A camera image held in a pooled, reusable buffer (see
+ * CameraInterface.enableFramePool ()). The frame belongs to the consumer
+ * until it calls {@link #release()}, which hands the buffer back to the pool
+ * for a future image; the frame must not be used afterwards.
+ * @author Radu Bogdan Rusu
+ * @version
+ * <ul>
+ *      <li>v3.0 - Player 3.0 supported
+ * </ul>
+ */
+public class PlayerCameraFrame implements PlayerConstants {
+
+    // Image dimensions [pixels].
+    private int width;
+    // Image dimensions [pixels].
+    private int height;
+    // Image bits-per-pixel (8, 16, 24, 32).
+    private int bpp;
+    // Image format (must be compatible with depth).
+    private int format;
+    // Scale divisor for scaled pixel values (see PlayerCameraData).
+    private int fdiv;
+    // Image compression.
+    private int compression;
+    // Time the image was taken at (seconds since epoch).
+    private double timestamp;
+    // Image data, between position 0 and limit.
+    private ByteBuffer image;
+
+    // Pool the frame returns to when released
+    private final Queue<PlayerCameraFrame> pool;
+    private boolean                        released;
+
+    /**
+     * Create a frame belonging to the given pool.
+     * @param capacity initial size of the image buffer [bytes]
+     * @param direct true to allocate the image buffer outside the Java heap
+     * @param pool the queue the frame is put back on when released
+     */
+    public PlayerCameraFrame (int capacity, boolean direct,
+                              Queue<PlayerCameraFrame> pool) {
+        this.image = direct ? ByteBuffer.allocateDirect (capacity)
+                            : ByteBuffer.allocate (capacity);
+        this.pool  = pool;
+    }
+
+    /**
+     * Prepare the frame for a new image of the given size, growing its
+     * buffer if needed. Used by the interface filling the frame.
+     * @param imageCount size of the image [bytes]
+     * @return the image buffer, cleared, with its limit set to the size
+     */
+    public synchronized ByteBuffer prepare (int imageCount) {
+        if (image.capacity () < imageCount)
+            image = image.isDirect () ? ByteBuffer.allocateDirect (imageCount)
+                                      : ByteBuffer.allocate (imageCount);
+        image.clear ();
+        image.limit (imageCount);
+        released = false;
+        return image;
+    }
+
+    /**
+     * Set the image properties. Used by the interface filling the frame.
+     * @param newWidth image width [pixels]
+     * @param newHeight image height [pixels]
+     * @param newBpp image bits-per-pixel
+     * @param newFormat image format
+     * @param newFdiv scale divisor
+     * @param newCompression image compression
+     * @param newTimestamp time the image was taken at
+     */
+    public synchronized void setProperties (int newWidth, int newHeight,
+            int newBpp, int newFormat, int newFdiv, int newCompression,
+            double newTimestamp) {
+        this.width       = newWidth;
+        this.height      = newHeight;
+        this.bpp         = newBpp;
+        this.format      = newFormat;
+        this.fdiv        = newFdiv;
+        this.compression = newCompression;
+        this.timestamp   = newTimestamp;
+    }
+
+    /**
+     * Give the frame back to its pool. Must be called exactly once by the
+     * consumer when it is done with the image.
+     */
+    public void release () {
+        synchronized (this) {
+            if (released)
+                throw new IllegalStateException ("Frame already released");
+            released = true;
+        }
+        pool.offer (this);
+    }
+
+    /**
+     * @return  Image dimensions [pixels].
+     */
+    public synchronized int getWidth () {
+        return this.width;
+    }
+
+    /**
+     * @return  Image dimensions [pixels].
+     */
+    public synchronized int getHeight () {
+        return this.height;
+    }
+
+    /**
+     * @return  Image bits-per-pixel (8, 16, 24, 32).
+     */
+    public synchronized int getBpp () {
+        return this.bpp;
+    }
+
+    /**
+     * @return  Image format (must be compatible with depth).
+     */
+    public synchronized int getFormat () {
+        return this.format;
+    }
+
+    /**
+     * @return  Scale divisor for images using scaled pixel values.
+     */
+    public synchronized int getFdiv () {
+        return this.fdiv;
+    }
+
+    /**
+     * @return  Image compression; PLAYER_CAMERA_COMPRESS_RAW indicates no
+     *       compression.
+     */
+    public synchronized int getCompression () {
+        return this.compression;
+    }
+
+    /**
+     * @return  Time the image was taken at (seconds since epoch).
+     */
+    public synchronized double getTimestamp () {
+        return this.timestamp;
+    }
+
+    /**
+     * @return  Size of image data (bytes).
+     */
+    public synchronized int getImage_count () {
+        return this.image.limit ();
+    }
+
+    /**
+     * @return  Image data (byte-aligned, row major order), between position
+     *       0 and the limit of the buffer. The buffer is only valid until
+     *       the frame is released.
+     */
+    public synchronized ByteBuffer getImage () {
+        return this.image;
+    }
+}
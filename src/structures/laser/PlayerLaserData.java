@@ -55,7 +55,7 @@ public class PlayerLaserData implements PlayerConstants {
     private int id;
 
     // X,Y cartesian position of scanned data [m] (not in player_laser_data)
-    private PlayerPoint2d points[] = new PlayerPoint2d[PLAYER_LASER_MAX_SAMPLES];
+    private PlayerPoint2d points[];
 
 
     /**
@@ -185,14 +185,28 @@ public class PlayerLaserData implements PlayerConstants {
     }
 
     /**
+     * Return the cartesian position of the scanned data. Unless set
+     * explicitly, the points are computed from the ranges on the first call.
      * @return X,Y cartesian position of scanned data [m]
      */
     public synchronized PlayerPoint2d[] getPoints () {
+        if (this.points == null) {
+            PlayerPoint2d[] newPoints = new PlayerPoint2d[ranges_count];
+            double currentAngle = min_angle;
+            for (int i = 0; i < ranges_count; i++) {
+                newPoints[i] = new PlayerPoint2d ();
+                newPoints[i].setPx ((float)(ranges[i] * Math.cos (currentAngle)));
+                newPoints[i].setPy ((float)(ranges[i] * Math.sin (currentAngle)));
+                currentAngle += resolution;
+            }
+            this.points = newPoints;
+        }
         return this.points;
     }
 
     /**
-     * @param newPoints X,Y cartesian position of scanned data [m]
+     * @param newPoints X,Y cartesian position of scanned data [m], or null
+     * to have them computed from the ranges
      */
     public synchronized void setPoints (PlayerPoint2d[] newPoints) {
         this.points = newPoints;
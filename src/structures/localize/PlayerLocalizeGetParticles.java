@@ -44,6 +44,26 @@ public class PlayerLocalizeGetParticles implements PlayerConstants {
     // The particles
     private PlayerLocalizeParticle[] particles;
 
+    // Structure-of-arrays representation (see setParticles (int, ...))
+    private int      count;
+    private double[] px;
+    private double[] py;
+    private double[] pa;
+    private double[] alpha;
+
+    /**
+     * Receives the particles one by one (see forEachParticle ()).
+     */
+    public interface ParticleConsumer {
+        /**
+         * @param px X coordinate of the particle [m]
+         * @param py Y coordinate of the particle [m]
+         * @param pa orientation of the particle [rad]
+         * @param alpha weight of the particle
+         */
+        void accept (double px, double py, double pa, double alpha);
+    }
+
 
     /**
      * @return  The best (?) pose [m, m, rad]
@@ -77,13 +97,32 @@ public class PlayerLocalizeGetParticles implements PlayerConstants {
      * @return  The number of particles included
      */
     public synchronized int getParticles_count () {
+        if (this.px != null)
+            return this.count;
         return (this.particles == null)?0:particles.length;
     }
 
     /**
+     * Return the particles as objects. When the set was filled in through
+     * {@link #setParticles(int, double[], double[], double[], double[])},
+     * the objects are created on the first call; prefer the array getters
+     * or {@link #forEachParticle(ParticleConsumer)} for large sets.
      * @return  The particles
      */
     public synchronized PlayerLocalizeParticle[] getParticles () {
+        if (this.particles == null && this.px != null) {
+            PlayerLocalizeParticle[] plps = new PlayerLocalizeParticle[count];
+            for (int i = 0; i < count; i++) {
+                PlayerPose2d pose = new PlayerPose2d ();
+                pose.setPx (px[i]);
+                pose.setPy (py[i]);
+                pose.setPa (pa[i]);
+                plps[i] = new PlayerLocalizeParticle ();
+                plps[i].setPose  (pose);
+                plps[i].setAlpha (alpha[i]);
+            }
+            this.particles = plps;
+        }
         return this.particles;
     }
 
@@ -92,5 +131,143 @@ public class PlayerLocalizeGetParticles implements PlayerConstants {
      */
     public synchronized void setParticles (PlayerLocalizeParticle[] newParticles) {
         this.particles = newParticles;
+        this.count     = 0;
+        this.px = this.py = this.pa = this.alpha = null;
+    }
+
+    /**
+     * Set the particles as parallel primitive arrays. The arrays are used
+     * as they are (not copied) and may be longer than <b>newCount</b>.
+     * @param newCount number of particles
+     * @param newPx X coordinates of the particles [m]
+     * @param newPy Y coordinates of the particles [m]
+     * @param newPa orientations of the particles [rad]
+     * @param newAlpha weights of the particles
+     */
+    public synchronized void setParticles (int newCount, double[] newPx,
+            double[] newPy, double[] newPa, double[] newAlpha) {
+        this.count     = newCount;
+        this.px        = newPx;
+        this.py        = newPy;
+        this.pa        = newPa;
+        this.alpha     = newAlpha;
+        this.particles = null;
+    }
+
+    /**
+     * @return X coordinates of the particles [m] (only the first
+     * getParticles_count () values are valid), or null if the set holds
+     * objects only.
+     */
+    public synchronized double[] getPx () {
+        return this.px;
+    }
+
+    /**
+     * @return Y coordinates of the particles [m] (only the first
+     * getParticles_count () values are valid), or null if the set holds
+     * objects only.
+     */
+    public synchronized double[] getPy () {
+        return this.py;
+    }
+
+    /**
+     * @return orientations of the particles [rad] (only the first
+     * getParticles_count () values are valid), or null if the set holds
+     * objects only.
+     */
+    public synchronized double[] getPa () {
+        return this.pa;
+    }
+
+    /**
+     * @return weights of the particles (only the first
+     * getParticles_count () values are valid), or null if the set holds
+     * objects only.
+     */
+    public synchronized double[] getAlpha () {
+        return this.alpha;
+    }
+
+    /**
+     * Pass every particle to the given consumer, in order, without creating
+     * any objects.
+     * @param consumer the consumer
+     */
+    public synchronized void forEachParticle (ParticleConsumer consumer) {
+        if (this.px != null) {
+            for (int i = 0; i < count; i++)
+                consumer.accept (px[i], py[i], pa[i], alpha[i]);
+        } else if (this.particles != null) {
+            for (int i = 0; i < particles.length; i++) {
+                PlayerPose2d pose = particles[i].getPose ();
+                consumer.accept (pose.getPx (), pose.getPy (), pose.getPa (),
+                                 particles[i].getAlpha ());
+            }
+        }
+    }
+
+    /**
+     * Compute the weighted mean pose of the particles. The orientation is
+     * averaged on the unit circle.
+     * @return the mean pose [m, m, rad], or null if there are no particles
+     * or their weights sum to zero
+     */
+    public synchronized PlayerPose2d getWeightedMean () {
+        final double[] sum = new double[5];
+        forEachParticle (new ParticleConsumer () {
+            public void accept (double x, double y, double a, double w) {
+                sum[0] += w;
+                sum[1] += w * x;
+                sum[2] += w * y;
+                sum[3] += w * Math.cos (a);
+                sum[4] += w * Math.sin (a);
+            }
+        });
+        if (sum[0] == 0.0)
+            return null;
+        PlayerPose2d pose = new PlayerPose2d ();
+        pose.setPx (sum[1] / sum[0]);
+        pose.setPy (sum[2] / sum[0]);
+        pose.setPa (Math.atan2 (sum[4], sum[3]));
+        return pose;
+    }
+
+    /**
+     * Compute the weighted covariance of the particle poses around their
+     * weighted mean. Orientation differences are normalized to [-pi, pi].
+     * @return the 3x3 covariance matrix over (x, y, a), row major
+     * [m^2, m^2 and rad^2], or null if there are no particles or their
+     * weights sum to zero
+     */
+    public synchronized double[][] getWeightedCovariance () {
+        final PlayerPose2d mean = getWeightedMean ();
+        if (mean == null)
+            return null;
+        final double mx = mean.getPx ();
+        final double my = mean.getPy ();
+        final double ma = mean.getPa ();
+        final double[] sum = new double[7];
+        forEachParticle (new ParticleConsumer () {
+            public void accept (double x, double y, double a, double w) {
+                double dx = x - mx;
+                double dy = y - my;
+                double da = Math.IEEEremainder (a - ma, 2 * Math.PI);
+                sum[0] += w;
+                sum[1] += w * dx * dx;
+                sum[2] += w * dx * dy;
+                sum[3] += w * dx * da;
+                sum[4] += w * dy * dy;
+                sum[5] += w * dy * da;
+                sum[6] += w * da * da;
+            }
+        });
+        double w = sum[0];
+        return new double[][] {
+            { sum[1] / w, sum[2] / w, sum[3] / w },
+            { sum[2] / w, sum[4] / w, sum[5] / w },
+            { sum[3] / w, sum[5] / w, sum[6] / w }
+        };
     }
 }
\ No newline at end of file
@@ -38,18 +38,49 @@ public class PlayerPointCloud3DData implements PlayerConstants {
 
     PlayerPointCloud3DElement[] points;
 
+    // Structure-of-arrays representation (see setPoints (int, ...))
+    int      count;
+    double[] x;
+    double[] y;
+    double[] z;
+    int[]    argb;
+
 
     /**
      * @return Number of 3D points in the cloud.
      */
     public synchronized int getPoints_count () {
+        if (this.x != null)
+            return this.count;
         return (this.points == null)?0:this.points.length;
     }
 
     /**
+     * Return the points as objects. When the cloud was filled in through
+     * {@link #setPoints(int, double[], double[], double[], int[])}, the
+     * objects are created on the first call.
      * @return 3D points in the cloud.
      */
     public synchronized PlayerPointCloud3DElement[] getPoints () {
+        if (this.points == null && this.x != null) {
+            PlayerPointCloud3DElement[] elements =
+                new PlayerPointCloud3DElement[count];
+            for (int i = 0; i < count; i++) {
+                PlayerPoint3d point = new PlayerPoint3d ();
+                point.setPx (x[i]);
+                point.setPy (y[i]);
+                point.setPz (z[i]);
+                PlayerColor color = new PlayerColor ();
+                color.setAlpha ((byte)(argb[i] >>> 24));
+                color.setRed   ((byte)(argb[i] >>> 16));
+                color.setGreen ((byte)(argb[i] >>>  8));
+                color.setBlue  ((byte)argb[i]);
+                elements[i] = new PlayerPointCloud3DElement ();
+                elements[i].setPoint (point);
+                elements[i].setColor (color);
+            }
+            this.points = elements;
+        }
         return this.points;
     }
 
@@ -58,5 +89,63 @@ public class PlayerPointCloud3DData implements PlayerConstants {
      */
     public synchronized void setPoints (PlayerPointCloud3DElement[] newPoints) {
         this.points = newPoints;
+        this.count  = 0;
+        this.x = this.y = this.z = null;
+        this.argb   = null;
+    }
+
+    /**
+     * Set the points as parallel primitive arrays. The arrays are used as
+     * they are (not copied) and may be longer than <b>newCount</b>.
+     * @param newCount number of points
+     * @param newX X coordinates of the points [m]
+     * @param newY Y coordinates of the points [m]
+     * @param newZ Z coordinates of the points [m]
+     * @param newArgb colors of the points, packed as 0xAARRGGBB
+     */
+    public synchronized void setPoints (int newCount, double[] newX,
+            double[] newY, double[] newZ, int[] newArgb) {
+        this.count  = newCount;
+        this.x      = newX;
+        this.y      = newY;
+        this.z      = newZ;
+        this.argb   = newArgb;
+        this.points = null;
+    }
+
+    /**
+     * @return X coordinates of the points [m] (only the first
+     * getPoints_count () values are valid), or null if the cloud holds
+     * objects only.
+     */
+    public synchronized double[] getX () {
+        return this.x;
+    }
+
+    /**
+     * @return Y coordinates of the points [m] (only the first
+     * getPoints_count () values are valid), or null if the cloud holds
+     * objects only.
+     */
+    public synchronized double[] getY () {
+        return this.y;
+    }
+
+    /**
+     * @return Z coordinates of the points [m] (only the first
+     * getPoints_count () values are valid), or null if the cloud holds
+     * objects only.
+     */
+    public synchronized double[] getZ () {
+        return this.z;
+    }
+
+    /**
+     * @return Colors of the points, packed as 0xAARRGGBB (only the first
+     * getPoints_count () values are valid), or null if the cloud holds
+     * objects only.
+     */
+    public synchronized int[] getArgb () {
+        return this.argb;
     }
-}
\ No newline at end of file
+}
@@ -37,29 +37,64 @@ import javaclient3.structures.*;
  */
 public class PlayerRangerData implements PlayerConstants {
 
-    // The range readings [m]
+    // The range readings [m], in double or in single precision
     private double[] ranges;
+    private float[]  rangesFloat;
 
 
     /**
      * @return  The number of valid range readings.
      */
     public synchronized int getRanges_count () {
-        return (this.ranges == null)?0:this.ranges.length;
+        if (this.ranges != null)
+            return this.ranges.length;
+        return (this.rangesFloat == null)?0:this.rangesFloat.length;
     }
 
     /**
+     * Return the range readings in double precision. If they were set
+     * in single precision, they are converted on the first call.
      * @return  The range readings [m]
      */
     public synchronized double[] getRanges () {
+        if (this.ranges == null && this.rangesFloat != null) {
+            double[] values = new double[this.rangesFloat.length];
+            for (int i = 0; i < values.length; i++)
+                values[i] = this.rangesFloat[i];
+            this.ranges = values;
+        }
         return this.ranges;
     }
 
+    /**
+     * Return the range readings in single precision. If they were set
+     * in double precision, they are converted on the first call.
+     * @return  The range readings [m]
+     */
+    public synchronized float[] getRangesFloat () {
+        if (this.rangesFloat == null && this.ranges != null) {
+            float[] values = new float[this.ranges.length];
+            for (int i = 0; i < values.length; i++)
+                values[i] = (float)this.ranges[i];
+            this.rangesFloat = values;
+        }
+        return this.rangesFloat;
+    }
+
     /**
      * @param newRanges  The range readings [m]
      */
     public synchronized void setRanges (double[] newRanges) {
-        this.ranges = newRanges;
+        this.ranges      = newRanges;
+        this.rangesFloat = null;
+    }
+
+    /**
+     * @param newRanges  The range readings [m], in single precision
+     */
+    public synchronized void setRangesFloat (float[] newRanges) {
+        this.ranges      = null;
+        this.rangesFloat = newRanges;
     }
 
 }
\ No newline at end of file
@@ -37,29 +37,64 @@ import javaclient3.structures.*;
  */
 public class PlayerRangerDataIntns implements PlayerConstants {
 
-    // The intensity readings
+    // The intensity readings, in double or in single precision
     private double[] intns;
+    private float[]  intnsFloat;
 
 
     /**
      * @return  The number of valid intensity readings.
      */
     public synchronized int getIntns_count () {
-        return (this.intns == null)?0:this.intns.length;
+        if (this.intns != null)
+            return this.intns.length;
+        return (this.intnsFloat == null)?0:this.intnsFloat.length;
     }
 
     /**
-     * @return  The intensity readings [m]
+     * Return the intensity readings in double precision. If they were set
+     * in single precision, they are converted on the first call.
+     * @return  The intensity readings
      */
     public synchronized double[] getIntens () {
+        if (this.intns == null && this.intnsFloat != null) {
+            double[] values = new double[this.intnsFloat.length];
+            for (int i = 0; i < values.length; i++)
+                values[i] = this.intnsFloat[i];
+            this.intns = values;
+        }
         return this.intns;
     }
 
     /**
-     * @param newIntns  The intensity readings [m]
+     * Return the intensity readings in single precision. If they were set
+     * in double precision, they are converted on the first call.
+     * @return  The intensity readings
+     */
+    public synchronized float[] getIntensFloat () {
+        if (this.intnsFloat == null && this.intns != null) {
+            float[] values = new float[this.intns.length];
+            for (int i = 0; i < values.length; i++)
+                values[i] = (float)this.intns[i];
+            this.intnsFloat = values;
+        }
+        return this.intnsFloat;
+    }
+
+    /**
+     * @param newIntns  The intensity readings
      */
     public synchronized void setIntns (double[] newIntns) {
-        this.intns = newIntns;
+        this.intns      = newIntns;
+        this.intnsFloat = null;
+    }
+
+    /**
+     * @param newIntns  The intensity readings, in single precision
+     */
+    public synchronized void setIntnsFloat (float[] newIntns) {
+        this.intns      = null;
+        this.intnsFloat = newIntns;
     }
 
 }
\ No newline at end of file
@@ -48,6 +48,13 @@ public class PlayerStereoData implements PlayerConstants {
     /** Special mode flags: defines how images are being sent. */
     int                               mode;
 
+    /** Point cloud as parallel arrays (see setPoints(int, ...)). */
+    int                               count;
+    float[]                           x;
+    float[]                           y;
+    float[]                           z;
+    byte[]                            rgb;
+
 
     /**
      * @return  The left channel image.
@@ -95,13 +102,32 @@ public class PlayerStereoData implements PlayerConstants {
      * @return  The number of 3-D points.
      */
     public synchronized int getPoints_count() {
+        if (this.x != null)
+            return this.count;
         return (this.points == null)?0:this.points.length;
     }
 
     /**
+     * When the point cloud was set through
+     * {@link #setPoints(int, float[], float[], float[], byte[])}, the element
+     * objects are created on the first call.
      * @return  The 3-D point cloud data.
      */
     public synchronized PlayerPointCloud3dStereoElement[] getPoints() {
+        if (points == null && x != null) {
+            PlayerPointCloud3dStereoElement[] elements =
+                new PlayerPointCloud3dStereoElement[count];
+            for (int i = 0; i < count; i++) {
+                elements[i] = new PlayerPointCloud3dStereoElement();
+                elements[i].setPx(x[i]);
+                elements[i].setPy(y[i]);
+                elements[i].setPz(z[i]);
+                elements[i].setRed(rgb[3 * i]);
+                elements[i].setGreen(rgb[3 * i + 1]);
+                elements[i].setBlue(rgb[3 * i + 2]);
+            }
+            points = elements;
+        }
         return points;
     }
 
@@ -110,6 +136,61 @@ public class PlayerStereoData implements PlayerConstants {
      */
     public synchronized void setPoints(PlayerPointCloud3dStereoElement[] newPoints) {
         this.points = newPoints;
+        this.count  = 0;
+        this.x = this.y = this.z = null;
+        this.rgb    = null;
+    }
+
+    /**
+     * Set the point cloud as parallel primitive arrays. The arrays are used
+     * as they are (not copied) and may be longer than needed.
+     * @param newCount  The number of points.
+     * @param newX  The X coordinates of the points [m].
+     * @param newY  The Y coordinates of the points [m].
+     * @param newZ  The Z coordinates of the points [m].
+     * @param newRgb  The colors of the points, 3 bytes (red, green, blue)
+     * per point.
+     */
+    public synchronized void setPoints(int newCount, float[] newX,
+            float[] newY, float[] newZ, byte[] newRgb) {
+        this.count  = newCount;
+        this.x      = newX;
+        this.y      = newY;
+        this.z      = newZ;
+        this.rgb    = newRgb;
+        this.points = null;
+    }
+
+    /**
+     * @return  The X coordinates of the points [m] (only the first
+     * getPoints_count() values are valid), or null.
+     */
+    public synchronized float[] getX() {
+        return x;
+    }
+
+    /**
+     * @return  The Y coordinates of the points [m] (only the first
+     * getPoints_count() values are valid), or null.
+     */
+    public synchronized float[] getY() {
+        return y;
+    }
+
+    /**
+     * @return  The Z coordinates of the points [m] (only the first
+     * getPoints_count() values are valid), or null.
+     */
+    public synchronized float[] getZ() {
+        return z;
+    }
+
+    /**
+     * @return  The colors of the points, 3 bytes (red, green, blue) per
+     * point (only the first 3 * getPoints_count() values are valid), or null.
+     */
+    public synchronized byte[] getRgb() {
+        return rgb;
     }
 
     /**
@@ -0,0 +1,434 @@
+/*
+ *  Player Java Client 3 - XdrByteBufferDecodingStream.java
+ *  Copyright (C) 2002-2006 Radu Bogdan Rusu, Maxim Batalin
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * $Id$
+ *
+ */
+
+package javaclient3.xdr;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The <code>XdrByteBufferDecodingStream</code> class provides the necessary
+ * functionality to {@link XdrDecodingStream} to retrieve XDR packets from
+ * a (heap or direct) {@link ByteBuffer}.
+ *
+ * <p>Decoding starts at the current position of the buffer and advances it
+ * as data is consumed, so the stream can be layered directly over a network
+ * read buffer. Besides the usual element-by-element methods, it offers bulk
+ * methods which decode whole int, float and double arrays into
+ * caller-supplied destinations without allocating intermediate objects.
+ */
+public class XdrByteBufferDecodingStream extends XdrDecodingStream {
+
+    /**
+     * Construct a new <code>XdrByteBufferDecodingStream</code> object and
+     * associate it with a buffer containing encoded XDR data, starting at the
+     * buffer's current position.
+     *
+     * @param buffer Buffer containing encoded XDR data.
+     * @param encodedLength Length of encoded XDR data within the buffer.
+     *
+     * @throws IllegalArgumentException if <code>encodedLength</code> is not
+     *   a multiple of four.
+     */
+    public XdrByteBufferDecodingStream(ByteBuffer buffer, int encodedLength) {
+        setXdrData(buffer, encodedLength);
+    }
+
+    /**
+     * Construct a new <code>XdrByteBufferDecodingStream</code> object and
+     * associate it with the remaining data of a buffer.
+     *
+     * @param buffer Buffer containing encoded XDR data.
+     *
+     * @throws IllegalArgumentException if the remaining data is not
+     *   a multiple of four.
+     */
+    public XdrByteBufferDecodingStream(ByteBuffer buffer) {
+        setXdrData(buffer, buffer.remaining());
+    }
+
+    /**
+     * Sets the buffer containing encoded XDR data as well as the length of
+     * the encoded data, starting at the buffer's current position. The byte
+     * order of the buffer is set to big-endian.
+     *
+     * @param buffer Buffer containing encoded XDR data.
+     * @param encodedLength Length of encoded XDR data within the buffer.
+     *
+     * @throws IllegalArgumentException if <code>encodedLength</code> is not
+     *   a multiple of four or exceeds the remaining data of the buffer.
+     */
+    public void setXdrData(ByteBuffer buffer, int encodedLength) {
+        if ( (encodedLength < 0)
+             || (encodedLength & 3) != 0
+             || encodedLength > buffer.remaining() ) {
+            throw(new IllegalArgumentException("length of encoded data must be a multiple of four, must not be negative and must fit in the buffer"));
+        }
+        this.buffer = buffer;
+        this.buffer.order(ByteOrder.BIG_ENDIAN);
+        this.bufferEnd = buffer.position() + encodedLength;
+    }
+
+    /**
+     * Returns the buffer holding the encoded data.
+     *
+     * @return Buffer with encoded data.
+     */
+    public ByteBuffer getXdrData() {
+        return buffer;
+    }
+
+    /**
+     * Returns the number of bytes left to decode in the current record.
+     *
+     * @return number of bytes left to decode.
+     */
+    public int getXdrRemaining() {
+        return bufferEnd - buffer.position();
+    }
+
+    /**
+     * Returns the Internet address of the sender of the current XDR data.
+     *
+     * @return always <code>null</code>.
+     */
+    public InetAddress getSenderAddress() {
+        return null;
+    }
+
+    /**
+     * Returns the port number of the sender of the current XDR data.
+     *
+     * @return always 0.
+     */
+    public int getSenderPort() {
+        return 0;
+    }
+
+    /**
+     * Initiates decoding of the next XDR record. The record starts at the
+     * position the buffer had when it was associated with this stream, so
+     * there is nothing to do here.
+     *
+     * @throws OncRpcException if an ONC/RPC error occurs.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void beginDecoding()
+           throws OncRpcException, IOException {
+    }
+
+    /**
+     * Closes this decoding XDR stream. The buffer is released but not
+     * modified, as it is usually owned by someone else.
+     *
+     * @throws OncRpcException if an ONC/RPC error occurs.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void close()
+           throws OncRpcException, IOException {
+        buffer = null;
+    }
+
+    /**
+     * Make sure that <code>length</code> more bytes can be decoded and return
+     * the absolute buffer index to decode them from.
+     */
+    private int claim(int length)
+            throws OncRpcException {
+        int index = buffer.position();
+        if ( length < 0 || length > bufferEnd - index ) {
+            throw(new OncRpcException(OncRpcException.RPC_BUFFERUNDERFLOW));
+        }
+        buffer.position(index + length);
+        return index;
+    }
+
+    /**
+     * Make sure that <code>length</code> more elements of <code>size</code>
+     * bytes each can be decoded and return the absolute buffer index to
+     * decode them from. The check is done before multiplying, so that huge
+     * lengths can't overflow.
+     */
+    private int claim(int length, int size)
+            throws OncRpcException {
+        int index = buffer.position();
+        if ( length < 0 || length > (bufferEnd - index) / size ) {
+            throw(new OncRpcException(OncRpcException.RPC_BUFFERUNDERFLOW));
+        }
+        buffer.position(index + length * size);
+        return index;
+    }
+
+    /**
+     * Return a big-endian view of the buffer, positioned at
+     * <code>index</code>, for bulk copies out of it.
+     */
+    private ByteBuffer view(int index) {
+        // duplicate() always starts out big-endian
+        ByteBuffer b = buffer.duplicate();
+        b.position(index);
+        return b;
+    }
+
+    /**
+     * Decodes (aka "deserializes") a "XDR int" value received from a
+     * XDR stream. A XDR int is 32 bits wide -- the same width Java's "int"
+     * data type has.
+     *
+     * @return The decoded int value.
+     *
+     * @throws OncRpcException if an ONC/RPC error occurs.
+     * @throws IOException if an I/O error occurs.
+     */
+    public int xdrDecodeInt()
+           throws OncRpcException, IOException {
+        return buffer.getInt(claim(4));
+    }
+
+    /**
+     * Decodes (aka "deserializes") an opaque value of the given length.
+     *
+     * @param length Length of opaque data to decode.
+     *
+     * @return Opaque data as a byte vector.
+     *
+     * @throws OncRpcException if an ONC/RPC error occurs.
+     * @throws IOException if an I/O error occurs.
+     */
+    public byte [] xdrDecodeOpaque(int length)
+           throws OncRpcException, IOException {
+        byte [] bytes = new byte[length];
+        xdrDecodeOpaque(bytes, 0, length);
+        return bytes;
+    }
+
+    /**
+     * Decodes (aka "deserializes") a XDR opaque value into a byte vector,
+     * starting at <code>offset</code>. The decoded data is always padded to
+     * be a multiple of four (because that's what the sender does).
+     *
+     * @param opaque Byte vector which will receive the decoded opaque value.
+     * @param offset Start offset in the byte vector.
+     * @param length the number of bytes to decode.
+     *
+     * @throws OncRpcException if an ONC/RPC error occurs.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void xdrDecodeOpaque(byte [] opaque, int offset, int length)
+           throws OncRpcException, IOException {
+        int alignedLength = (length + 3) & ~3;
+        int index = claim(alignedLength);
+        ByteBuffer source = buffer.duplicate();
+        source.position(index);
+        source.get(opaque, offset, length);
+    }
+
+    /**
+     * Decodes (aka "deserializes") a XDR opaque value directly into another
+     * buffer, which must have at least <code>length</code> bytes remaining.
+     * The decoded data is always padded to be a multiple of four.
+     *
+     * @param opaque Buffer which will receive the decoded opaque value.
+     * @param length the number of bytes to decode.
+     *
+     * @throws OncRpcException if an ONC/RPC error occurs.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void xdrDecodeOpaque(ByteBuffer opaque, int length)
+           throws OncRpcException, IOException {
+        int alignedLength = (length + 3) & ~3;
+        int index = claim(alignedLength);
+        ByteBuffer source = buffer.duplicate();
+        source.limit(index + length).position(index);
+        opaque.put(source);
+    }
+
+    /**
+     * Skips over <code>length</code> bytes of encoded data.
+     *
+     * @param length number of bytes to skip.
+     *
+     * @throws OncRpcException if an ONC/RPC error occurs.
+     */
+    public void skip(int length)
+           throws OncRpcException {
+        claim(length);
+    }
+
+    /**
+     * Decodes (aka "deserializes") a fixed-length vector of ints into a
+     * caller-supplied array.
+     *
+     * @param value Array which will receive the decoded values.
+     * @param offset Start offset in the array.
+     * @param length Number of ints to decode.
+     *
+     * @throws OncRpcException if an ONC/RPC error occurs.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void xdrDecodeIntFixedVector(int [] value, int offset, int length)
+           throws OncRpcException, IOException {
+        int index = claim(length, 4);
+        view(index).asIntBuffer().get(value, offset, length);
+    }
+
+    /**
+     * Decodes (aka "deserializes") a fixed-length vector of floats into a
+     * caller-supplied array.
+     *
+     * @param value Array which will receive the decoded values.
+     * @param offset Start offset in the array.
+     * @param length Number of floats to decode.
+     *
+     * @throws OncRpcException if an ONC/RPC error occurs.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void xdrDecodeFloatFixedVector(float [] value, int offset, int length)
+           throws OncRpcException, IOException {
+        int index = claim(length, 4);
+        view(index).asFloatBuffer().get(value, offset, length);
+    }
+
+    /**
+     * Decodes (aka "deserializes") a fixed-length vector of doubles into a
+     * caller-supplied array.
+     *
+     * @param value Array which will receive the decoded values.
+     * @param offset Start offset in the array.
+     * @param length Number of doubles to decode.
+     *
+     * @throws OncRpcException if an ONC/RPC error occurs.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void xdrDecodeDoubleFixedVector(double [] value, int offset, int length)
+           throws OncRpcException, IOException {
+        int index = claim(length, 8);
+        view(index).asDoubleBuffer().get(value, offset, length);
+    }
+
+    /**
+     * Decodes (aka "deserializes") a fixed-length vector of doubles into a
+     * caller-supplied array of floats, narrowing each value.
+     *
+     * @param value Array which will receive the decoded values.
+     * @param offset Start offset in the array.
+     * @param length Number of doubles to decode.
+     *
+     * @throws OncRpcException if an ONC/RPC error occurs.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void xdrDecodeDoubleFixedVectorAsFloat(float [] value, int offset, int length)
+           throws OncRpcException, IOException {
+        int index = claim(length, 8);
+        ByteBuffer b = buffer;
+        for ( int i = 0; i < length; ++i, index += 8 ) {
+            value[offset + i] = (float)b.getDouble(index);
+        }
+    }
+
+    /**
+     * Decodes (aka "deserializes") a counted vector of ints into a
+     * caller-supplied array. The element count is read from the stream.
+     *
+     * @param value Array which will receive the decoded values.
+     * @param offset Start offset in the array.
+     *
+     * @return Number of decoded ints.
+     *
+     * @throws OncRpcException if an ONC/RPC error occurs.
+     * @throws IOException if an I/O error occurs.
+     * @throws IndexOutOfBoundsException if the array is too small.
+     */
+    public int xdrDecodeIntVector(int [] value, int offset)
+           throws OncRpcException, IOException {
+        int length = xdrDecodeInt();
+        checkRoom(value.length, offset, length);
+        xdrDecodeIntFixedVector(value, offset, length);
+        return length;
+    }
+
+    /**
+     * Decodes (aka "deserializes") a counted vector of floats into a
+     * caller-supplied array. The element count is read from the stream.
+     *
+     * @param value Array which will receive the decoded values.
+     * @param offset Start offset in the array.
+     *
+     * @return Number of decoded floats.
+     *
+     * @throws OncRpcException if an ONC/RPC error occurs.
+     * @throws IOException if an I/O error occurs.
+     * @throws IndexOutOfBoundsException if the array is too small.
+     */
+    public int xdrDecodeFloatVector(float [] value, int offset)
+           throws OncRpcException, IOException {
+        int length = xdrDecodeInt();
+        checkRoom(value.length, offset, length);
+        xdrDecodeFloatFixedVector(value, offset, length);
+        return length;
+    }
+
+    /**
+     * Decodes (aka "deserializes") a counted vector of doubles into a
+     * caller-supplied array. The element count is read from the stream.
+     *
+     * @param value Array which will receive the decoded values.
+     * @param offset Start offset in the array.
+     *
+     * @return Number of decoded doubles.
+     *
+     * @throws OncRpcException if an ONC/RPC error occurs.
+     * @throws IOException if an I/O error occurs.
+     * @throws IndexOutOfBoundsException if the array is too small.
+     */
+    public int xdrDecodeDoubleVector(double [] value, int offset)
+           throws OncRpcException, IOException {
+        int length = xdrDecodeInt();
+        checkRoom(value.length, offset, length);
+        xdrDecodeDoubleFixedVector(value, offset, length);
+        return length;
+    }
+
+    private static void checkRoom(int capacity, int offset, int length) {
+        if ( length < 0 || offset + length > capacity ) {
+            throw(new IndexOutOfBoundsException("vector of " + length
+                + " elements does not fit at offset " + offset
+                + " of an array of " + capacity));
+        }
+    }
+
+    /**
+     * The buffer holding the encoded data. Decoding starts at its position
+     * and advances it.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Absolute index just past the end of the current XDR record.
+     */
+    private int bufferEnd;
+
+}
+
+// End of XdrByteBufferDecodingStream.java